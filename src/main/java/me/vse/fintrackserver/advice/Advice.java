@@ -1,12 +1,14 @@
 package me.vse.fintrackserver.advice;
 
-import com.google.common.util.concurrent.AtomicDouble;
 import lombok.Getter;
 import lombok.Setter;
 import me.vse.fintrackserver.enums.Frequencies;
 import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.rest.responses.AdviceResponse;
 
+import java.util.Collection;
+import java.util.function.Consumer;
+
 
 @Getter
 @Setter
@@ -15,8 +17,11 @@ public abstract class Advice {
     protected AccountRepository accountRepository;
     protected Frequencies frequency;
 
-    public void perform() {
-
-    }
+    /**
+     * Vyhodnotí pravidlo několika agregačními dotazy nad všemi zadanými uživateli najednou.
+     * Řádky (uživatel, metrika) se čtou proudově, vzniklé rady se předají do sink.
+     * @param userIds Uživatelé k vyhodnocení, null znamená všechny uživatele
+     */
+    public abstract void evaluate(Collection<String> userIds, Consumer<AdviceResponse> sink);
 
 }
@@ -1,23 +1,17 @@
 package me.vse.fintrackserver.advice;
 
+import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import me.vse.fintrackserver.enums.AdviceMessages;
-import me.vse.fintrackserver.model.Account;
-import me.vse.fintrackserver.model.AccountUserRights;
-import me.vse.fintrackserver.model.Transaction;
-import me.vse.fintrackserver.model.User;
 import me.vse.fintrackserver.repositories.UserRepository;
 import me.vse.fintrackserver.rest.responses.AdviceResponse;
-import me.vse.fintrackserver.services.AccountService;
-import me.vse.fintrackserver.services.AdviceService;
-import me.vse.fintrackserver.services.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Component
 @AllArgsConstructor
@@ -26,41 +20,17 @@ public class GoalPresentCheck extends Advice {
     @Autowired
     private final UserRepository userRepository;
 
-    @Autowired
-    private final AdviceService adviceService;
-
-    public void perform() {
-        int batchSize = 20;
-        int pageNumber = 0;
-        PageRequest request = PageRequest.of(pageNumber, batchSize);
-        Page<User> users = userRepository.findAll(request);
-        int totalPages = users.getTotalPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            for (User user : users) {
-
-                List<Account> accounts = users.stream()
-                        .map(User::getAccountUserRights)
-                        .flatMap(List::stream)
-                        .map(AccountUserRights::getAccount)
-                        .toList();
-
-                Account goalAccount = accounts.stream()
-                        .filter(account -> account.getGoalAmount() > 0)
-                        .findFirst()
-                        .orElse(null);
-
-                if (goalAccount == null) {
-                    adviceService.addResponse(new AdviceResponse(
-                            user.getId(),
-                            AdviceMessages.GOAL_ISNT_PRESENT,
-                            List.of()
-                    ));
-                }
-
-                request = PageRequest.of(i, batchSize);
-                users = userRepository.findAll(request);
-            }
+    @Override
+    @Transactional
+    public void evaluate(Collection<String> userIds, Consumer<AdviceResponse> sink) {
+        try (Stream<String> rows = userIds == null
+                ? userRepository.streamIdsWithoutGoal()
+                : userRepository.streamIdsWithoutGoal(userIds)) {
+            rows.forEach(userId -> sink.accept(new AdviceResponse(
+                    userId,
+                    AdviceMessages.GOAL_ISNT_PRESENT,
+                    List.of()
+            )));
         }
     }
 }
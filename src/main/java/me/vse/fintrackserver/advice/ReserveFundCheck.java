@@ -1,87 +1,65 @@
 package me.vse.fintrackserver.advice;
 
+import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
-import me.vse.fintrackserver.enums.AccountType;
 import me.vse.fintrackserver.enums.AdviceMessages;
-import me.vse.fintrackserver.model.Account;
-import me.vse.fintrackserver.model.AccountUserRights;
-import me.vse.fintrackserver.model.Transaction;
-import me.vse.fintrackserver.model.User;
-import me.vse.fintrackserver.repositories.UserRepository;
+import me.vse.fintrackserver.model.dto.UserMetricDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.rest.responses.AdviceResponse;
-import me.vse.fintrackserver.services.AccountService;
-import me.vse.fintrackserver.services.AdviceService;
-import me.vse.fintrackserver.services.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Doporučí založit rezervní fond, pokud žádný účet uživatele nemá zůstatek vyšší
+ * než nejvyšší měsíční výdaje některého z jeho účtů.
+ */
 @Component
 @AllArgsConstructor
 public class ReserveFundCheck extends Advice {
 
     @Autowired
-    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
 
-    @Autowired
-    private final TransactionService transactionService;
-
-    @Autowired
-    private final AccountService accountService;
-
-    @Autowired
-    private final AdviceService adviceService;
-
-    public void perform() {
-        int batchSize = 20;
-        int pageNumber = 0;
-        PageRequest request = PageRequest.of(pageNumber, batchSize);
-        Page<User> users = userRepository.findAll(request);
-        int totalPages = users.getTotalPages();
-
-        for (int i = 0; i < totalPages; i++) {
-            for (User user : users) {
+    @Override
+    @Transactional
+    public void evaluate(Collection<String> userIds, Consumer<AdviceResponse> sink) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime monthAgo = now.minusMonths(1);
 
-                List<Account> accounts = users.stream()
-                        .map(User::getAccountUserRights)
-                        .flatMap(List::stream)
-                        .map(AccountUserRights::getAccount)
-                        .toList();
+        try (Stream<UserMetricDto> rows = userIds == null
+                ? accountRepository.streamReserveMetrics(monthAgo, now)
+                : accountRepository.streamReserveMetrics(userIds, monthAgo, now)) {
 
-                double maxTotalExpense = 0.0;
-                for (Account account : accounts) {
-                    List<Transaction> transactions =
-                            transactionService.getExpenseTransactions(account,
-                                    LocalDateTime.now().minusMonths(1),
-                                    LocalDateTime.now()
-                            );
-                    double totalExpense = transactions.stream().mapToDouble(Transaction::getAmount).sum();
-                    maxTotalExpense = Math.max(maxTotalExpense, totalExpense);
+            String currentUserId = null;
+            double maxTotalExpense = 0.0;
+            double maxBalance = Double.NEGATIVE_INFINITY;
+            for (UserMetricDto row : (Iterable<UserMetricDto>) rows::iterator) {
+                if (!row.getUserId().equals(currentUserId)) {
+                    advise(currentUserId, maxTotalExpense, maxBalance, sink);
+                    currentUserId = row.getUserId();
+                    maxTotalExpense = 0.0;
+                    maxBalance = Double.NEGATIVE_INFINITY;
                 }
-
-                double finalMaxTotalExpense = maxTotalExpense;
-                Account reserveAccount = accounts.stream()
-                        .filter(account -> Double.compare((
-                                accountService.getBalance(account.getId(), null, null)),
-                                finalMaxTotalExpense) > 0)
-                        .findFirst()
-                        .orElse(null);
-
-                if (reserveAccount == null) {
-                    adviceService.addResponse(new AdviceResponse(
-                            user.getId(),
-                            AdviceMessages.RESERVE_FUND_CREATION,
-                            List.of(Double.toString(finalMaxTotalExpense))
-                            ));
-                }
-
-                request = PageRequest.of(i, batchSize);
-                users = userRepository.findAll(request);
+                maxTotalExpense = Math.max(maxTotalExpense, row.getValue());
+                maxBalance = Math.max(maxBalance, row.getBaseline());
             }
+            advise(currentUserId, maxTotalExpense, maxBalance, sink);
+        }
+    }
+
+    private void advise(String userId, double maxTotalExpense, double maxBalance, Consumer<AdviceResponse> sink) {
+        if (userId != null && Double.compare(maxBalance, maxTotalExpense) <= 0) {
+            sink.accept(new AdviceResponse(
+                    userId,
+                    AdviceMessages.RESERVE_FUND_CREATION,
+                    List.of(Double.toString(maxTotalExpense))
+            ));
         }
     }
 }
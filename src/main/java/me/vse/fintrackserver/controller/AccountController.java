@@ -9,14 +9,17 @@ import me.vse.fintrackserver.model.dto.AccountDto;
 import me.vse.fintrackserver.rest.requests.AccountAddRequest;
 import me.vse.fintrackserver.model.dto.UserIdDto;
 import me.vse.fintrackserver.services.AccountService;
+import me.vse.fintrackserver.services.DashboardService;
 import me.vse.fintrackserver.services.GeneralStatementService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 
@@ -32,6 +35,9 @@ public class AccountController {
     @Autowired
     private GeneralStatementService generalStatementService;
 
+    @Autowired
+    private DashboardService dashboardService;
+
     @GetMapping("/balance")
     @Operation(summary = "Get Account Balance", description = "Retrieve the balance of the specified account.")
     @ApiResponses(value = {
@@ -147,6 +153,23 @@ public class AccountController {
         return ResponseEntity.ok(accountService.retrieveAll(userId));
     }
 
+    @GetMapping("/dashboard")
+    @Operation(summary = "Get Dashboard",
+            description = "Retrieve balance, income, expense and net worth of all accounts available to the user.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved dashboard"),
+            @ApiResponse(responseCode = "409", description = "Invalid user ID provided")
+    })
+    public ResponseEntity<?> getDashboard(
+            @Parameter(description = "User ID for which to retrieve the dashboard", required = true)
+            @RequestParam String userId) {
+        try {
+            return ResponseEntity.ok(dashboardService.getDashboard(userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
     @GetMapping("/allByOwner")
     @Operation(summary = "Retrieve All Accounts Where User Is Owner", description = "Get all accounts for a specific user, who is an owner.")
     @ApiResponses(value = {
@@ -213,17 +236,59 @@ public class AccountController {
     }
 
     @GetMapping("/general-statement")
-    public ResponseEntity<byte[]> generateGeneralStatement() {
+    public ResponseEntity<?> generateGeneralStatement(
+            @Parameter(description = "Account id", required = true)
+            @RequestParam String accountId,
+
+            @Parameter(description = "User id", required = true)
+            @RequestParam String userId,
+
+            @Parameter(description = "Language of the labels (en, cz)")
+            @RequestParam(defaultValue = "en") String lang
+    ) {
         try {
+            generalStatementService.checkAccess(accountId, userId);
             HttpHeaders headers = new HttpHeaders();
             headers.add("Content-Disposition", "attachment; filename=general_statement.xlsx");
 
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(generalStatementService.generateReport("en", "dcc3533e-76f2-4c0a-9bb9-3a16259393ab"));
+                    .body(generalStatementService.generateReport(lang, accountId));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/general-statement/stream")
+    @Operation(summary = "Download general statement",
+            description = "Stream the general statement of the account as an xlsx file without buffering it in memory.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statement is being streamed"),
+            @ApiResponse(responseCode = "409", description = "Account doesn't exist or user has no access to it"),
+    })
+    public ResponseEntity<?> streamGeneralStatement(
+            @Parameter(description = "Account id", required = true)
+            @RequestParam String accountId,
+
+            @Parameter(description = "User id", required = true)
+            @RequestParam String userId,
+
+            @Parameter(description = "Language of the labels (en, cz)")
+            @RequestParam(defaultValue = "en") String lang
+    ) {
+        try {
+            generalStatementService.checkAccess(accountId, userId);
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+
+        StreamingResponseBody body = outputStream -> generalStatementService.writeReport(lang, accountId, null, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=general_statement.xlsx")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
 }
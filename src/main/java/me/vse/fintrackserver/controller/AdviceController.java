@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import me.vse.fintrackserver.services.AdviceSchedulerService;
 import me.vse.fintrackserver.services.AdviceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +22,9 @@ public class AdviceController {
     @Autowired
     private AdviceService adviceService;
 
+    @Autowired
+    private AdviceSchedulerService adviceSchedulerService;
+
     @GetMapping("/advice")
     @Operation(summary = "Get Advice", description = "Get generated advice.")
     @ApiResponses(value = {
@@ -32,4 +36,13 @@ public class AdviceController {
     ) {
         return ResponseEntity.ok(adviceService.getAdvice(id));
     }
+
+    @GetMapping("/metrics")
+    @Operation(summary = "Get Advice Scheduler Metrics", description = "Get queue depth and evaluation latency of the advice scheduler.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved metrics"),
+    })
+    public ResponseEntity<?> getMetrics() {
+        return ResponseEntity.ok(adviceSchedulerService.getMetrics());
+    }
 }
@@ -3,8 +3,11 @@ package me.vse.fintrackserver.controller;
 import lombok.RequiredArgsConstructor;
 import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.rest.responses.AnalyticsCacheStatsResponse;
 import me.vse.fintrackserver.services.AccountService;
+import me.vse.fintrackserver.services.AnalyticsJobService;
 import me.vse.fintrackserver.services.AnalyticsService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,6 +22,7 @@ public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
     private final AccountService accountService;
+    private final AnalyticsJobService analyticsJobService;
 
     /**
      * # Spuštění komplexní analýzy pro konkrétní účet
@@ -38,4 +42,50 @@ public class AnalyticsController {
         return ResponseEntity.ok(advice);
     }
 
+    /**
+     * # Asynchronní spuštění komplexní analýzy
+     * Výsledek se po dokončení odešle přes WebSocket na /topic/analytics/{accountId}.
+     * @param accountId ID účtu pro analýzu
+     * @param userId ID přihlášeného uživatele
+     * @param language Jazyk pro doporučení (en/cz), výchozí je cz
+     * @return Stav zařazené úlohy s jejím ID
+     */
+    @PostMapping("/analyze/jobs")
+    public ResponseEntity<?> submitAnalysisJob(
+            @RequestParam String accountId,
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "cz") String language) {
+        try {
+            User user = analyticsService.getUserById(userId);
+            Account account = accountService.checkUserAccountAccess(accountId, user);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(analyticsJobService.submit(account, language));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+
+    /**
+     * # Stav asynchronní analýzy
+     * @param jobId ID úlohy
+     * @param userId ID přihlášeného uživatele
+     * @return Stav úlohy, po dokončení i s výsledkem
+     */
+    @GetMapping("/analyze/jobs/{jobId}")
+    public ResponseEntity<?> getAnalysisJob(@PathVariable String jobId, @RequestParam String userId) {
+        try {
+            return ResponseEntity.ok(analyticsJobService.getJob(jobId, userId));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+
+    /**
+     * # Statistiky cache analytiky
+     * @return Počty zásahů a výpadků cache výsledků analýzy
+     */
+    @GetMapping("/analyze/cache-stats")
+    public ResponseEntity<AnalyticsCacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(analyticsService.getCacheStats());
+    }
+
 } 
\ No newline at end of file
@@ -0,0 +1,75 @@
+package me.vse.fintrackserver.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import me.vse.fintrackserver.rest.requests.BudgetRequest;
+import me.vse.fintrackserver.services.BudgetService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/budget")
+@Tag(name = "Budget Controller", description = "Operations related to monthly budgets")
+public class BudgetController {
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @GetMapping("/all")
+    @Operation(summary = "Get Account Budgets",
+            description = "Retrieve all budgets of an account with their month-to-date spending.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved budgets"),
+            @ApiResponse(responseCode = "409", description = "Conflict: account or user not found, or no access")
+    })
+    public ResponseEntity<?> getAll(
+            @Parameter(description = "The ID of the account", required = true) @RequestParam String accountId,
+            @Parameter(description = "The ID of the user", required = true) @RequestParam String userId
+    ) {
+        try {
+            return ResponseEntity.ok(budgetService.getAll(accountId, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/save")
+    @Operation(summary = "Save Budget",
+            description = "Create a budget for an account or one of its categories, or change the limit of an existing one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Budget successfully saved"),
+            @ApiResponse(responseCode = "409", description = "Conflict: budget could not be saved")
+    })
+    public ResponseEntity<?> save(
+            @Parameter(description = "Details of the budget", required = true)
+            @RequestBody BudgetRequest request
+    ) {
+        try {
+            return ResponseEntity.ok(budgetService.save(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/delete")
+    @Operation(summary = "Delete Budget", description = "Delete an existing budget by its ID.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Budget successfully deleted"),
+            @ApiResponse(responseCode = "409", description = "Conflict: budget could not be deleted")
+    })
+    public ResponseEntity<?> delete(
+            @Parameter(description = "The ID of the budget", required = true) @RequestParam String id,
+            @Parameter(description = "The ID of the user", required = true) @RequestParam String userId
+    ) {
+        try {
+            return ResponseEntity.ok(budgetService.delete(id, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
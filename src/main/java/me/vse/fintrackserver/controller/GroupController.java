@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import me.vse.fintrackserver.model.dto.AccountDto;
 import me.vse.fintrackserver.model.dto.GroupDto;
 import me.vse.fintrackserver.rest.requests.GroupRemoveUserRequest;
+import me.vse.fintrackserver.services.GroupAnalyticsService;
 import me.vse.fintrackserver.services.GroupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,6 +23,9 @@ public class GroupController {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private GroupAnalyticsService groupAnalyticsService;
+
     @GetMapping("/all")
     @Operation(summary = "Get All Groups", description = "Retrieve all groups for a specific user.")
     @ApiResponses(value = {
@@ -103,4 +107,21 @@ public class GroupController {
     ) {
         return ResponseEntity.ok(groupService.update(request));
     }
+
+    @GetMapping("/analytics")
+    @Operation(summary = "Get Group Analytics", description = "Retrieve consolidated income and expense totals of all group accounts.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved group analytics"),
+            @ApiResponse(responseCode = "409", description = "Conflict: group doesn't exist or user is not a member")
+    })
+    public ResponseEntity<?> getAnalytics(
+            @Parameter(description = "The ID of the group", required = true) @RequestParam String groupId,
+            @Parameter(description = "The ID of the user", required = true) @RequestParam String userId
+    ) {
+        try {
+            return ResponseEntity.ok(groupAnalyticsService.getGroupAnalytics(groupId, userId));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package me.vse.fintrackserver.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import me.vse.fintrackserver.services.AggregationRebuildService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/maintenance")
+@Tag(name = "Maintenance Controller", description = "Administrative maintenance operations")
+public class MaintenanceController {
+
+    @Autowired
+    private AggregationRebuildService aggregationRebuildService;
+
+    @PostMapping("/aggregation/rebuild")
+    @Operation(summary = "Rebuild Aggregations",
+            description = "Start a background rebuild of transaction aggregations, resuming an interrupted run.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Rebuild started"),
+            @ApiResponse(responseCode = "409", description = "User is not an admin or rebuild is already running")
+    })
+    public ResponseEntity<?> rebuildAggregations(
+            @Parameter(description = "The ID of the admin user", required = true) @RequestParam String userId,
+            @Parameter(description = "Ignore saved checkpoints and start from scratch")
+            @RequestParam(defaultValue = "false") boolean restart
+    ) {
+        try {
+            aggregationRebuildService.start(userId, restart);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+
+    @GetMapping("/aggregation/rebuild")
+    @Operation(summary = "Get Rebuild Status", description = "Retrieve progress of the aggregation rebuild.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved status"),
+            @ApiResponse(responseCode = "409", description = "User is not an admin")
+    })
+    public ResponseEntity<?> getRebuildStatus(
+            @Parameter(description = "The ID of the admin user", required = true) @RequestParam String userId
+    ) {
+        try {
+            return ResponseEntity.ok(aggregationRebuildService.getStatus(userId));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+}
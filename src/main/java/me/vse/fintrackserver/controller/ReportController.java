@@ -0,0 +1,117 @@
+package me.vse.fintrackserver.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import me.vse.fintrackserver.services.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+
+@RestController
+@RequestMapping("/api/v1/report")
+@Tag(name = "Report Controller", description = "Asynchronous generation of account reports")
+public class ReportController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @PostMapping("/jobs")
+    @Operation(summary = "Submit report job",
+            description = "Queue generation of the general statement. Completion is announced on /topic/analytics/{accountId}.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job accepted or already finished from the cache"),
+            @ApiResponse(responseCode = "409", description = "Invalid input, missing access or full job queue"),
+    })
+    public ResponseEntity<?> submit(
+            @Parameter(description = "Account id", required = true)
+            @RequestParam String accountId,
+
+            @Parameter(description = "User id", required = true)
+            @RequestParam String userId,
+
+            @Parameter(description = "Language of the labels (en, cz)")
+            @RequestParam(defaultValue = "en") String lang,
+
+            @Parameter(description = "Month (yyyy-MM) at whose end the statement is made, all transactions when omitted")
+            @RequestParam(required = false) String period
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit(accountId, userId, lang, period));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Get report job", description = "Retrieve the status of a report job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved job"),
+            @ApiResponse(responseCode = "409", description = "Job doesn't exist or user has no access"),
+    })
+    public ResponseEntity<?> getJob(
+            @PathVariable String jobId,
+
+            @Parameter(description = "User id", required = true)
+            @RequestParam String userId
+    ) {
+        try {
+            return ResponseEntity.ok(reportJobService.getJob(jobId, userId));
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}/download")
+    @Operation(summary = "Download report", description = "Download the file of a finished report job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Report file"),
+            @ApiResponse(responseCode = "409", description = "Job doesn't exist, isn't finished or user has no access"),
+    })
+    public ResponseEntity<?> download(
+            @PathVariable String jobId,
+
+            @Parameter(description = "User id", required = true)
+            @RequestParam String userId
+    ) {
+        FileChannel channel;
+        try {
+            channel = reportJobService.openFile(jobId, userId);
+        } catch (IllegalArgumentException exception) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(exception.getMessage());
+        }
+
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException exception) {
+            closeQuietly(channel);
+            throw new UncheckedIOException(exception);
+        }
+
+        StreamingResponseBody body = outputStream -> reportJobService.transferTo(channel, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=general_statement.xlsx")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .contentLength(size)
+                .body(body);
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Chyba se už hlásí z channel.size().
+        }
+    }
+}
@@ -37,9 +37,14 @@ public class TransactionController {
             @Parameter(description = "The ID of the account", required = true) @RequestParam String accountId,
             @Parameter(description = "Start date for filtering transactions", required = false) @RequestParam(required = false) LocalDateTime fromDate,
             @Parameter(description = "End date for filtering transactions", required = false) @RequestParam(required = false) LocalDateTime endDate,
-            @Parameter(description = "Page number for pagination", required = false, example = "0") @RequestParam(required = false, defaultValue = "0") int pageNumber
+            @Parameter(description = "Page number for pagination", required = false, example = "0") @RequestParam(required = false, defaultValue = "0") int pageNumber,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page, switches to cursor pagination", required = false) @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size for cursor pagination, switches to cursor pagination", required = false, example = "20") @RequestParam(required = false) Integer pageSize
     ) {
         try {
+            if (cursor != null || pageSize != null) {
+                return ResponseEntity.ok(transactionService.findAllByAccount(accountId, fromDate, endDate, cursor, pageSize));
+            }
             return ResponseEntity.ok(transactionService.findAllByAccount(accountId, fromDate, endDate, pageNumber));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
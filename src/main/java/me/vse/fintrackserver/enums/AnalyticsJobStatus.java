@@ -0,0 +1,10 @@
+package me.vse.fintrackserver.enums;
+
+public enum AnalyticsJobStatus {
+
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+
+}
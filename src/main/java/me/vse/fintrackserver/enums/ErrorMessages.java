@@ -27,8 +27,18 @@ public enum ErrorMessages {
     INCORRECT_COORDINATES,
     TRANSACTION_DOESNT_EXIST,
     CATEGORY_DOESNT_EXIST,
+    INCORRECT_CURSOR,
+    BUDGET_DOESNT_EXIST,
+    INCORRECT_BUDGET_LIMIT,
 
     UNPERMITTED_OPERATION,
+    REBUILD_ALREADY_RUNNING,
+    ANALYTICS_JOB_QUEUE_FULL,
+    ANALYTICS_JOB_DOESNT_EXIST,
+    REPORT_JOB_QUEUE_FULL,
+    REPORT_JOB_DOESNT_EXIST,
+    REPORT_NOT_READY,
+    INCORRECT_REPORT_PERIOD,
 
     COULD_NOT_HANDLE_ACCESS_CODE,
 
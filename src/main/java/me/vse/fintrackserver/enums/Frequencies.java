@@ -3,12 +3,38 @@ package me.vse.fintrackserver.enums;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+@AllArgsConstructor
 public enum Frequencies {
 
-    DAILY,
-    WEEKLY,
-    MONTHLY,
-    QUARTERLY,
-    YEARLY,
+    DAILY(1, ChronoUnit.DAYS),
+    WEEKLY(1, ChronoUnit.WEEKS),
+    MONTHLY(1, ChronoUnit.MONTHS),
+    QUARTERLY(3, ChronoUnit.MONTHS),
+    YEARLY(1, ChronoUnit.YEARS),
+
+    ;
+
+    private final int step;
+    private final ChronoUnit unit;
+
+    /**
+     * První termín po current v řadě anchor, anchor + step, anchor + 2 * step...
+     * Termíny se počítají vždy od anchor, takže měsíční řada od 31. ledna se neposune na 28. den.
+     */
+    public LocalDateTime nextAfter(LocalDateTime anchor, LocalDateTime current) {
+        if (current.isBefore(anchor)) {
+            return anchor;
+        }
+        long periods = unit.between(anchor, current) / step;
+        LocalDateTime next = anchor.plus(periods * step, unit);
+        while (!next.isAfter(current)) {
+            next = anchor.plus(++periods * step, unit);
+        }
+        return next;
+    }
 
 }
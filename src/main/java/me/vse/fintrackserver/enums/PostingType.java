@@ -0,0 +1,13 @@
+package me.vse.fintrackserver.enums;
+
+public enum PostingType {
+
+    INCOME,
+    REVENUE,
+    EXPENSE,
+    COST,
+    TRANSFER_IN,
+    TRANSFER_OUT,
+    TRANSFER_INTERNAL
+
+}
@@ -0,0 +1,10 @@
+package me.vse.fintrackserver.enums;
+
+public enum ReportJobStatus {
+
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+
+}
@@ -0,0 +1,8 @@
+package me.vse.fintrackserver.enums;
+
+public enum RollupGranularity {
+
+    DAY,
+    MONTH
+
+}
@@ -81,6 +81,12 @@ public class Account {
     @Column(name = "removed_at")
     private LocalDateTime removedAt;
 
+    @Column(name = "data_version", insertable = false, updatable = false)
+    private long dataVersion;
+
+    @Column(name = "statistics_backfilled", insertable = false, updatable = false)
+    private boolean statisticsBackfilled;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,32 @@
+package me.vse.fintrackserver.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import me.vse.fintrackserver.enums.UserRights;
+import me.vse.fintrackserver.model.identifiers.AccountAccessId;
+
+/**
+ * Výsledná práva uživatele k účtu z přímých práv i ze skupin. Tabulku udržuje AccountAccessService.
+ */
+@Entity
+@Table(name = "account_access")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(AccountAccessId.class)
+public class AccountAccess {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Id
+    @Column(name = "account_id")
+    private String accountId;
+
+    @Column(name = "rights")
+    private UserRights rights;
+
+}
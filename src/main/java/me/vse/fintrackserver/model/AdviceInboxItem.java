@@ -0,0 +1,36 @@
+package me.vse.fintrackserver.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import me.vse.fintrackserver.enums.AdviceMessages;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "advice_inbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AdviceInboxItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", unique = true, updatable = false)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "message", nullable = false)
+    private AdviceMessages message;
+
+    @Column(name = "arguments")
+    private String arguments;
+
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package me.vse.fintrackserver.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import me.vse.fintrackserver.enums.PostingType;
+import me.vse.fintrackserver.model.identifiers.PostingId;
+
+import java.time.LocalDateTime;
+
+/**
+ * Jedna strana transakce na jednom účtu se znaménkovou částkou. Tabulku udržuje PostingService.
+ */
+@Entity
+@Table(name = "posting")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(PostingId.class)
+public class Posting {
+
+    @Id
+    @Column(name = "transaction_id")
+    private String transactionId;
+
+    @Id
+    @Column(name = "account_id")
+    private String accountId;
+
+    @Column(name = "posting_type")
+    private PostingType type;
+
+    @Column(name = "signed_amount")
+    private double signedAmount;
+
+    @Column(name = "execution_date")
+    private LocalDateTime executionDateTime;
+
+}
@@ -45,6 +45,9 @@ public class StandingOrder {
     @Column(name = "end_date")
     private LocalDateTime endDate;
 
+    @Column(name = "next_execution_at")
+    private LocalDateTime nextExecutionAt;
+
     @Column(name = "created_at")
     @CreationTimestamp
     private LocalDateTime createdAt;
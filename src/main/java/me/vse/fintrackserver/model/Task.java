@@ -30,6 +30,18 @@ public class Task {
     @Column(name = "day_of_execution")
     private int dayOfExecution;
 
+    @Column(name = "checkpoint")
+    private String checkpoint;
+
+    @Column(name = "is_finished")
+    private boolean isFinished;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
     @Column(name = "created_at")
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -70,6 +70,12 @@ public class Transaction {
     @Column(name = "is_removed")
     private boolean isRemoved;
 
+    @Column(name = "source_standing_order_id")
+    private String sourceStandingOrderId;
+
+    @Column(name = "occurrence_at")
+    private LocalDateTime occurrenceAt;
+
     @Column(name = "created_at")
     @CreationTimestamp
     private LocalDateTime createdAt;
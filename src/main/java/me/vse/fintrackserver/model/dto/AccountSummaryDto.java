@@ -0,0 +1,26 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.*;
+import me.vse.fintrackserver.enums.AccountType;
+
+import java.util.Currency;
+
+@NoArgsConstructor
+@Getter
+@Setter
+@AllArgsConstructor
+@Builder
+@ToString
+public class AccountSummaryDto {
+
+    private String id;
+    private String name;
+    private AccountType type;
+    private Currency currency;
+    private String emoji;
+    private double balance;
+    private double income;
+    private double expense;
+    private double netWorth;
+
+}
@@ -0,0 +1,20 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.*;
+
+@NoArgsConstructor
+@Getter
+@Setter
+@AllArgsConstructor
+@Builder
+@ToString
+public class GroupAccountTotalsDto {
+
+    private String accountId;
+    private String name;
+    private double totalIncome;
+    private double totalExpense;
+    private double monthIncome;
+    private double monthExpense;
+
+}
@@ -0,0 +1,11 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RollupTotalsDto {
+    private Double totalIncome;
+    private Double totalExpense;
+}
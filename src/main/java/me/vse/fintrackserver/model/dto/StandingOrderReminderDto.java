@@ -0,0 +1,23 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class StandingOrderReminderDto {
+    private String standingOrderId;
+    private LocalDateTime nextExecutionAt;
+    private Integer remindDaysBefore;
+    private String accountId;
+    private String accountName;
+    private double amount;
+    private String note;
+    private String ownerId;
+
+    public LocalDateTime getRemindAt() {
+        return nextExecutionAt.minusDays(remindDaysBefore);
+    }
+}
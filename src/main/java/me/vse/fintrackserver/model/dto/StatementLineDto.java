@@ -0,0 +1,14 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.vse.fintrackserver.enums.TransactionTypes;
+
+@Getter
+@AllArgsConstructor
+public class StatementLineDto {
+    private String groupId;
+    private String groupName;
+    private Double amount;
+    private TransactionTypes type;
+}
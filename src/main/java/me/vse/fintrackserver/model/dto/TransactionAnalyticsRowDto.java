@@ -0,0 +1,16 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class TransactionAnalyticsRowDto {
+    private String id;
+    private double amount;
+    private String categoryId;
+    private String categoryName;
+    private LocalDateTime executionDateTime;
+}
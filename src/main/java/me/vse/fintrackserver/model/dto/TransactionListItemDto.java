@@ -0,0 +1,23 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import me.vse.fintrackserver.enums.TransactionTypes;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class TransactionListItemDto {
+    private String id;
+    private TransactionTypes type;
+    private double amount;
+    private LocalDateTime executionDateTime;
+    private String note;
+    private String categoryId;
+    private String categoryName;
+    private String assetId;
+    private String receiverId;
+}
@@ -0,0 +1,13 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class TransactionTotalsDto {
+    private Double totalIncome;
+    private Double totalExpense;
+    private Double totalRevenue;
+    private Double totalCost;
+}
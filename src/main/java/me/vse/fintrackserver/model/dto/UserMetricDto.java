@@ -0,0 +1,13 @@
+package me.vse.fintrackserver.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserMetricDto {
+    private String userId;
+    private String accountId;
+    private Double value;
+    private Double baseline;
+}
@@ -0,0 +1,17 @@
+package me.vse.fintrackserver.model.identifiers;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountAccessId implements Serializable {
+
+    private String userId;
+    private String accountId;
+
+}
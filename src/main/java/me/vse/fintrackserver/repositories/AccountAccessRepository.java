@@ -0,0 +1,60 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.model.AccountAccess;
+import me.vse.fintrackserver.model.identifiers.AccountAccessId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountAccessRepository extends JpaRepository<AccountAccess, AccountAccessId> {
+
+    /**
+     * Přímá práva k neodstraněným účtům a plná práva k účtům skupin, kterých je uživatel členem.
+     */
+    String ACCESS_INSERT = """
+        INSERT INTO account_access (user_id, account_id, rights)
+        SELECT user_id, account_id, MAX(rights)
+        FROM (
+            SELECT r.user_id, r.account_id, r.rights
+            FROM account_user_rights r
+            JOIN Account a ON a.id = r.account_id
+            WHERE a.is_removed = 0 AND r.rights > 0
+            UNION ALL
+            SELECT ug.user_id, ag.account_id, 2
+            FROM user_group_relation ug
+            JOIN Groups g ON g.id = ug.group_id
+            JOIN account_group_relation ag ON ag.group_id = ug.group_id
+            JOIN Account a ON a.id = ag.account_id
+            WHERE a.is_removed = 0 AND g.is_removed = 0
+        ) x
+    """;
+
+    List<AccountAccess> findByUserId(String userId);
+
+    @Query("SELECT DISTINCT a.userId FROM AccountAccess a WHERE a.accountId IN :accountIds")
+    List<String> findUserIdsByAccountIds(@Param("accountIds") Collection<String> accountIds);
+
+    @Modifying
+    @Query("DELETE FROM AccountAccess a WHERE a.userId IN :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<String> userIds);
+
+    @Modifying
+    @Query("DELETE FROM AccountAccess a WHERE a.accountId IN :accountIds")
+    int deleteByAccountIds(@Param("accountIds") Collection<String> accountIds);
+
+    @Modifying
+    @Query(value = ACCESS_INSERT + " WHERE x.user_id IN (:userIds) GROUP BY user_id, account_id",
+            nativeQuery = true)
+    int insertForUsers(@Param("userIds") Collection<String> userIds);
+
+    @Modifying
+    @Query(value = ACCESS_INSERT + " WHERE x.account_id IN (:accountIds) GROUP BY user_id, account_id",
+            nativeQuery = true)
+    int insertForAccounts(@Param("accountIds") Collection<String> accountIds);
+}
@@ -1,14 +1,22 @@
 package me.vse.fintrackserver.repositories;
 
+import jakarta.persistence.QueryHint;
 import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.model.dto.UserMetricDto;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, String> {
@@ -24,4 +32,91 @@ public interface AccountRepository extends JpaRepository<Account, String> {
 
     @Query("select a from Account a where lower(a.id) in (:ids)")
     List<Account> findAllByIds(@Param("ids") List<String> ids);
+
+    @Query("""
+        SELECT a.id FROM Account a
+        WHERE function('ora_hash', a.id, :maxBucket) = :partition
+        AND (:checkpoint IS NULL OR a.id > :checkpoint)
+        ORDER BY a.id
+    """)
+    List<String> findIdsByPartition(@Param("maxBucket") int maxBucket,
+                                    @Param("partition") int partition,
+                                    @Param("checkpoint") String checkpoint,
+                                    Pageable pageable);
+
+    @Query("""
+        SELECT a.id FROM Account a
+        WHERE (:lastId IS NULL OR a.id > :lastId)
+        ORDER BY a.id
+    """)
+    List<String> findIdsAfter(@Param("lastId") String lastId, Pageable pageable);
+
+    @Query("""
+        SELECT a.id FROM Account a
+        WHERE a.statisticsBackfilled = false
+        AND (:lastId IS NULL OR a.id > :lastId)
+        ORDER BY a.id
+    """)
+    List<String> findIdsWithoutStatisticsAfter(@Param("lastId") String lastId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.statisticsBackfilled = true WHERE a.id = :id")
+    int markStatisticsBackfilled(@Param("id") String id);
+
+    /**
+     * Zamkne řádky účtů do konce DB transakce. Zápis transakce i přepočet součtů účtu si berou stejný zámek,
+     * takže se změny jednoho účtu provádějí postupně.
+     */
+    @Query(value = "SELECT id FROM account WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<String> lockForUpdate(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.dataVersion = a.dataVersion + 1 WHERE a.id IN :ids")
+    int incrementDataVersion(@Param("ids") Collection<String> ids);
+
+    /**
+     * Zvýší verzi dat účtů, jejichž transakce (včetně příchozích převodů) patří do kategorie.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Account a SET a.dataVersion = a.dataVersion + 1
+        WHERE a.id IN (SELECT t.account.id FROM Transaction t WHERE t.category.id = :categoryId)
+        OR a.id IN (SELECT t.receiver.id FROM Transaction t WHERE t.category.id = :categoryId)
+    """)
+    int incrementDataVersionByCategoryId(@Param("categoryId") String categoryId);
+
+    @Query("SELECT DISTINCT r.user.id FROM AccountUserRights r WHERE r.account.id IN :ids")
+    List<String> findUserIdsByAccountIds(@Param("ids") Collection<String> ids);
+
+    String RESERVE_METRICS_SELECT = """
+        SELECT new me.vse.fintrackserver.model.dto.UserMetricDto(
+            r.user.id,
+            a.id,
+            COALESCE((SELECT SUM(t.amount) FROM Transaction t
+                      WHERE t.account = a AND t.executionDateTime >= :fromDate AND t.executionDateTime < :endDate
+                      AND (t.type IN (me.vse.fintrackserver.enums.TransactionTypes.EXPENSE,
+                                      me.vse.fintrackserver.enums.TransactionTypes.COST)
+                           OR (t.type = me.vse.fintrackserver.enums.TransactionTypes.TRANSFER
+                               AND (t.receiver IS NULL OR t.receiver <> t.account)))), 0.0),
+            a.initialAmount + COALESCE((SELECT SUM(g.totalIncome) - SUM(g.totalExpense)
+                                        FROM TransactionAggregation g WHERE g.account = a), 0.0)
+        )
+        FROM AccountUserRights r
+        JOIN r.account a
+        WHERE a.isRemoved = false
+    """;
+
+    /**
+     * Výdaje účtu za zadané období (value) a jeho zůstatek z agregací (baseline), seřazeno podle uživatele.
+     */
+    @Query(RESERVE_METRICS_SELECT + " ORDER BY r.user.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserMetricDto> streamReserveMetrics(@Param("fromDate") LocalDateTime fromDate,
+                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(RESERVE_METRICS_SELECT + " AND r.user.id IN :userIds ORDER BY r.user.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserMetricDto> streamReserveMetrics(@Param("userIds") Collection<String> userIds,
+                                               @Param("fromDate") LocalDateTime fromDate,
+                                               @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,67 @@
+package me.vse.fintrackserver.repositories;
+
+import jakarta.persistence.LockModeType;
+import me.vse.fintrackserver.enums.AdviceMessages;
+import me.vse.fintrackserver.model.AdviceInboxItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AdviceInboxRepository extends JpaRepository<AdviceInboxItem, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM AdviceInboxItem i WHERE i.userId = :userId ORDER BY i.createdAt, i.id")
+    List<AdviceInboxItem> findOldestForUpdate(@Param("userId") String userId, Pageable pageable);
+
+    /**
+     * Vloží radu uživatele, nebo obnoví už čekající radu se stejnou zprávou, jedním příkazem.
+     */
+    @Modifying
+    @Query(value = """
+        MERGE INTO advice_inbox i
+        USING (SELECT :userId AS user_id, :#{#message.ordinal()} AS message FROM dual) s
+        ON (i.user_id = s.user_id AND i.message = s.message)
+        WHEN MATCHED THEN UPDATE SET
+            i.arguments = :arguments,
+            i.created_at = CURRENT_TIMESTAMP
+        WHEN NOT MATCHED THEN INSERT (id, user_id, message, arguments, created_at)
+            VALUES (LOWER(RAWTOHEX(SYS_GUID())), s.user_id, s.message, :arguments, CURRENT_TIMESTAMP)
+    """, nativeQuery = true)
+    int merge(@Param("userId") String userId,
+              @Param("message") AdviceMessages message,
+              @Param("arguments") String arguments);
+
+    /**
+     * Smaže u zadaných uživatelů vše kromě maxPerUser nejnovějších rad.
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM advice_inbox WHERE id IN (
+            SELECT id FROM (
+                SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY created_at DESC, id DESC) AS position
+                FROM advice_inbox
+                WHERE user_id IN (:userIds)
+            ) WHERE position > :maxPerUser
+        )
+    """, nativeQuery = true)
+    int trimUsers(@Param("userIds") Collection<String> userIds, @Param("maxPerUser") int maxPerUser);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM advice_inbox WHERE id IN (
+            SELECT id FROM (
+                SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY created_at DESC, id DESC) AS position
+                FROM advice_inbox
+            ) WHERE position > :maxPerUser
+        )
+    """, nativeQuery = true)
+    int trimAll(@Param("maxPerUser") int maxPerUser);
+}
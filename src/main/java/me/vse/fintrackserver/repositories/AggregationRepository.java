@@ -5,11 +5,13 @@ import me.vse.fintrackserver.model.Category;
 import me.vse.fintrackserver.model.TransactionAggregation;
 import me.vse.fintrackserver.model.dto.AccountAggregationDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,4 +34,72 @@ public interface AggregationRepository extends JpaRepository<TransactionAggregat
     """)
     AccountAggregationDTO getTotalIncomeAndExpenseByAccount(@Param("accountId") String accountId);
 
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.AccountAggregationDTO(
+            t.account.id,
+            SUM(t.totalIncome),
+            SUM(t.totalExpense)
+        )
+        FROM TransactionAggregation t
+        WHERE t.account.id IN :accountIds
+        GROUP BY t.account.id
+    """)
+    List<AccountAggregationDTO> getTotalIncomeAndExpenseByAccountIds(@Param("accountIds") Collection<String> accountIds);
+
+    @Query("""
+        SELECT c.name, SUM(a.totalIncome), SUM(a.totalExpense)
+        FROM TransactionAggregation a
+        LEFT JOIN a.category c
+        WHERE a.account.id = :accountId
+        GROUP BY c.name
+    """)
+    List<Object[]> getCategoryTotalsByAccountId(@Param("accountId") String accountId);
+
+    /**
+     * Připočte změnu k řádku (účet, kategorie), případně řádek založí, jedním příkazem.
+     */
+    @Modifying
+    @Query(value = """
+        MERGE INTO transaction_aggregation_daily a
+        USING (SELECT :#{#account.id} AS account_id,
+                      :#{#category == null ? '-' : #category.id} AS category_key
+               FROM dual) s
+        ON (a.account_id = s.account_id AND NVL(a.category_id, '-') = s.category_key)
+        WHEN MATCHED THEN UPDATE SET
+            a.total_income = a.total_income + :income,
+            a.total_expense = a.total_expense + :expense,
+            a.updated_at = CURRENT_TIMESTAMP
+        WHEN NOT MATCHED THEN INSERT (id, account_id, category_id, total_income, total_expense, created_at, updated_at)
+            VALUES (LOWER(RAWTOHEX(SYS_GUID())), s.account_id, NULLIF(s.category_key, '-'),
+                    :income, :expense, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+    """, nativeQuery = true)
+    int mergeDelta(@Param("account") Account account,
+                   @Param("category") Category category,
+                   @Param("income") Double income,
+                   @Param("expense") Double expense);
+
+    @Modifying
+    @Query("""
+        UPDATE TransactionAggregation a
+        SET a.totalIncome = :income,
+            a.totalExpense = :expense,
+            a.updatedAt = CURRENT_TIMESTAMP
+        WHERE a.id = :id
+    """)
+    int setTotals(@Param("id") String id,
+                  @Param("income") Double income,
+                  @Param("expense") Double expense);
+
+    @Query("""
+        SELECT a.id, a.account.id, c.id, a.totalIncome, a.totalExpense
+        FROM TransactionAggregation a
+        LEFT JOIN a.category c
+        WHERE a.account.id = :accountId
+    """)
+    List<Object[]> findTotalsByAccountId(@Param("accountId") String accountId);
+
+    @Modifying
+    @Query("DELETE FROM TransactionAggregation a WHERE a.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") String accountId);
+
 }
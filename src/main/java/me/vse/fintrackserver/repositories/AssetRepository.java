@@ -7,6 +7,13 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface AssetRepository extends JpaRepository<Asset, String> {
+
+    @Query("SELECT a FROM Asset a WHERE a.account.id IN :accountIds AND a.isRemoved = false")
+    List<Asset> findActiveByAccountIds(@Param("accountIds") Collection<String> accountIds);
+
 }
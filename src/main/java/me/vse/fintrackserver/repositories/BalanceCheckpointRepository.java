@@ -0,0 +1,37 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, String> {
+
+    Optional<BalanceCheckpoint> findFirstByAccountAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(
+            Account account, LocalDateTime checkpointAt);
+
+    Optional<BalanceCheckpoint> findFirstByAccountOrderByCheckpointAtDesc(Account account);
+
+    @Modifying
+    @Query("""
+        UPDATE BalanceCheckpoint b
+        SET b.netFlow = b.netFlow + :delta,
+            b.updatedAt = CURRENT_TIMESTAMP
+        WHERE b.account = :account AND b.checkpointAt > :executedAt
+    """)
+    int addDelta(@Param("account") Account account,
+                 @Param("executedAt") LocalDateTime executedAt,
+                 @Param("delta") Double delta);
+
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint b WHERE b.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") String accountId);
+
+}
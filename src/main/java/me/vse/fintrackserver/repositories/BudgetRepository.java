@@ -0,0 +1,52 @@
+package me.vse.fintrackserver.repositories;
+
+import jakarta.persistence.LockModeType;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Budget;
+import me.vse.fintrackserver.model.Category;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetRepository extends JpaRepository<Budget, String> {
+
+    List<Budget> findAllByAccount(Account account);
+
+    @Query("SELECT b FROM Budget b WHERE b.account = :account AND b.category IS NULL")
+    Optional<Budget> findByAccount(@Param("account") Account account);
+
+    @Query("SELECT b FROM Budget b WHERE b.account = :account AND b.category = :category")
+    Optional<Budget> findByAccountAndCategory(@Param("account") Account account,
+                                              @Param("category") Category category);
+
+    /**
+     * Rozpočty, do kterých se započítává výdaj v dané kategorii: celkový rozpočet účtu a rozpočet kategorie.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT b FROM Budget b
+        WHERE b.account = :account
+        AND (b.category IS NULL OR b.category = :category)
+    """)
+    List<Budget> findAffectedForUpdate(@Param("account") Account account,
+                                       @Param("category") Category category);
+
+    @Modifying
+    @Query("""
+        UPDATE Budget b
+        SET b.spentMonthToDate = 0,
+            b.periodStart = :periodStart,
+            b.updatedAt = CURRENT_TIMESTAMP
+        WHERE b.periodStart < :periodStart
+    """)
+    int rollOver(@Param("periodStart") LocalDate periodStart);
+
+}
@@ -1,14 +1,27 @@
 package me.vse.fintrackserver.repositories;
 
+import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface GroupRepository extends JpaRepository<Group, String> {
 
     @Query("select g from Group g where g.code = :code")
     Group findByCode(@Param("code") String groupCode);
+
+    @Query("select count(r) > 0 from UserGroupRelation r where r.group.id = :groupId and r.user.id = :userId")
+    boolean isMember(@Param("groupId") String groupId, @Param("userId") String userId);
+
+    @Query("""
+        select a from AccountGroupRelation r join r.account a
+        where r.group.id = :groupId and a.isRemoved = false
+        order by a.id
+    """)
+    List<Account> findActiveAccounts(@Param("groupId") String groupId);
 }
@@ -0,0 +1,176 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.enums.PostingType;
+import me.vse.fintrackserver.model.Posting;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
+import me.vse.fintrackserver.model.identifiers.PostingId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Všechny dotazy filtrují jen account_id a rozsah execution_date, takže se čtou rozsahem
+ * indexu IDX_POSTING_ACCOUNT_DATE bez rozlišování odesílatele a příjemce.
+ */
+@Repository
+public interface PostingRepository extends JpaRepository<Posting, PostingId> {
+
+    String TOTALS_SELECT = """
+        SELECT new me.vse.fintrackserver.model.dto.TransactionTotalsDto(
+            COALESCE(SUM(CASE
+                WHEN p.type IN (me.vse.fintrackserver.enums.PostingType.INCOME,
+                                me.vse.fintrackserver.enums.PostingType.REVENUE,
+                                me.vse.fintrackserver.enums.PostingType.TRANSFER_IN) THEN p.signedAmount
+                ELSE 0.0 END), 0.0),
+            COALESCE(SUM(CASE
+                WHEN p.type IN (me.vse.fintrackserver.enums.PostingType.EXPENSE,
+                                me.vse.fintrackserver.enums.PostingType.COST,
+                                me.vse.fintrackserver.enums.PostingType.TRANSFER_OUT) THEN -p.signedAmount
+                ELSE 0.0 END), 0.0),
+            COALESCE(SUM(CASE
+                WHEN p.type = me.vse.fintrackserver.enums.PostingType.REVENUE THEN p.signedAmount
+                ELSE 0.0 END), 0.0),
+            COALESCE(SUM(CASE
+                WHEN p.type = me.vse.fintrackserver.enums.PostingType.COST THEN -p.signedAmount
+                ELSE 0.0 END), 0.0)
+        )
+        FROM Posting p
+        WHERE p.accountId = :accountId
+    """;
+
+    String TRANSACTIONS_SELECT = """
+        SELECT t FROM Posting p
+        JOIN Transaction t ON t.id = p.transactionId
+        WHERE p.accountId = :accountId
+    """;
+
+    /**
+     * Řádek seznamu transakcí bez načítání entit účtu, majetku a kategorie, jedním SQL dotazem.
+     */
+    String LIST_ITEMS_SELECT = """
+        SELECT new me.vse.fintrackserver.model.dto.TransactionListItemDto(
+            t.id, t.type, t.amount, t.executionDateTime, t.note, c.id, c.name, a.id, r.id
+        )
+        FROM Posting p
+        JOIN Transaction t ON t.id = p.transactionId
+        LEFT JOIN t.category c
+        LEFT JOIN t.forAsset a
+        LEFT JOIN t.receiver r
+        WHERE p.accountId = :accountId
+    """;
+
+    @Query(TOTALS_SELECT)
+    TransactionTotalsDto getTotals(@Param("accountId") String accountId);
+
+    @Query(TOTALS_SELECT + " AND p.executionDateTime >= :fromDate AND p.executionDateTime <= :endDate")
+    TransactionTotalsDto getTotals(@Param("accountId") String accountId,
+                                   @Param("fromDate") LocalDateTime fromDate,
+                                   @Param("endDate") LocalDateTime endDate);
+
+    @Query(TOTALS_SELECT + " AND p.executionDateTime <= :endDate")
+    TransactionTotalsDto getTotals(@Param("accountId") String accountId,
+                                   @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Čistý tok účtu (příjmy - výdaje) do endDate včetně.
+     */
+    @Query("""
+        SELECT COALESCE(SUM(p.signedAmount), 0.0) FROM Posting p
+        WHERE p.accountId = :accountId AND p.executionDateTime <= :endDate
+    """)
+    double getNetFlow(@Param("accountId") String accountId,
+                      @Param("endDate") LocalDateTime endDate);
+
+    @Query("""
+        SELECT COALESCE(SUM(p.signedAmount), 0.0) FROM Posting p
+        WHERE p.accountId = :accountId
+        AND p.executionDateTime >= :fromDate AND p.executionDateTime <= :endDate
+    """)
+    double getNetFlow(@Param("accountId") String accountId,
+                      @Param("fromDate") LocalDateTime fromDate,
+                      @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(p.executionDateTime) FROM Posting p WHERE p.accountId = :accountId")
+    LocalDateTime findFirstExecutionDateTime(@Param("accountId") String accountId);
+
+    @Query("""
+        SELECT COUNT(p) FROM Posting p
+        WHERE p.accountId = :accountId
+        AND p.executionDateTime >= :fromDate AND p.executionDateTime < :endDate
+    """)
+    long countBetween(@Param("accountId") String accountId,
+                      @Param("fromDate") LocalDateTime fromDate,
+                      @Param("endDate") LocalDateTime endDate);
+
+    @Query(TRANSACTIONS_SELECT + " AND p.type IN :types")
+    List<Transaction> findTransactions(@Param("accountId") String accountId,
+                                       @Param("types") Collection<PostingType> types);
+
+    @Query(TRANSACTIONS_SELECT + " AND p.type IN :types"
+            + " AND p.executionDateTime >= :fromDate AND p.executionDateTime <= :endDate")
+    List<Transaction> findTransactions(@Param("accountId") String accountId,
+                                       @Param("types") Collection<PostingType> types,
+                                       @Param("fromDate") LocalDateTime fromDate,
+                                       @Param("endDate") LocalDateTime endDate);
+
+    @Query(TRANSACTIONS_SELECT + " AND p.type IN :types AND p.executionDateTime <= :endDate")
+    List<Transaction> findTransactions(@Param("accountId") String accountId,
+                                       @Param("types") Collection<PostingType> types,
+                                       @Param("endDate") LocalDateTime endDate);
+
+    @Query(LIST_ITEMS_SELECT + " AND p.type IN :types ORDER BY p.executionDateTime DESC, p.transactionId DESC")
+    List<TransactionListItemDto> findListItems(@Param("accountId") String accountId,
+                                               @Param("types") Collection<PostingType> types);
+
+    @Query(LIST_ITEMS_SELECT + """
+        AND p.type IN :types
+        AND p.executionDateTime >= :fromDate AND p.executionDateTime <= :endDate
+        ORDER BY p.executionDateTime DESC, p.transactionId DESC
+    """)
+    List<TransactionListItemDto> findListItems(@Param("accountId") String accountId,
+                                               @Param("types") Collection<PostingType> types,
+                                               @Param("fromDate") LocalDateTime fromDate,
+                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(LIST_ITEMS_SELECT + """
+        AND p.type IN :types AND p.executionDateTime <= :endDate
+        ORDER BY p.executionDateTime DESC, p.transactionId DESC
+    """)
+    List<TransactionListItemDto> findListItems(@Param("accountId") String accountId,
+                                               @Param("types") Collection<PostingType> types,
+                                               @Param("endDate") LocalDateTime endDate);
+
+    @Query(LIST_ITEMS_SELECT + """
+        AND p.executionDateTime >= :fromDate AND p.executionDateTime <= :endDate
+        ORDER BY p.executionDateTime DESC, p.transactionId DESC
+    """)
+    List<TransactionListItemDto> findPage(@Param("accountId") String accountId,
+                                          @Param("fromDate") LocalDateTime fromDate,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          Pageable pageable);
+
+    @Query(LIST_ITEMS_SELECT + """
+        AND p.executionDateTime >= :fromDate
+        AND (p.executionDateTime < :cursorDate
+             OR (p.executionDateTime = :cursorDate AND p.transactionId < :cursorId))
+        ORDER BY p.executionDateTime DESC, p.transactionId DESC
+    """)
+    List<TransactionListItemDto> findPageAfterCursor(@Param("accountId") String accountId,
+                                                     @Param("fromDate") LocalDateTime fromDate,
+                                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                                     @Param("cursorId") String cursorId,
+                                                     Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Posting p WHERE p.transactionId = :transactionId")
+    int deleteByTransactionId(@Param("transactionId") String transactionId);
+}
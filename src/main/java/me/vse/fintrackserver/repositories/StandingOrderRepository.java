@@ -1,11 +1,63 @@
 package me.vse.fintrackserver.repositories;
 
 import me.vse.fintrackserver.model.StandingOrder;
-import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.dto.StandingOrderReminderDto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface StandingOrderRepository extends JpaRepository<StandingOrder, String> {
 
+    /**
+     * Příkazy na řadě v daném oddílu. Příkazy smazaných účtů ani příjemců se neprovádějí.
+     */
+    @Query("""
+        SELECT s FROM StandingOrder s
+        JOIN FETCH s.transactionSample t
+        JOIN t.account a
+        LEFT JOIN t.receiver r
+        WHERE s.nextExecutionAt <= :now
+        AND a.isRemoved = false AND (r IS NULL OR r.isRemoved = false)
+        AND function('ora_hash', s.id, :maxBucket) = :partition
+        ORDER BY s.nextExecutionAt, s.id
+    """)
+    List<StandingOrder> findDue(@Param("now") LocalDateTime now,
+                                @Param("maxBucket") int maxBucket,
+                                @Param("partition") int partition,
+                                Pageable pageable);
+
+    String REMINDER_SELECT = """
+        SELECT new me.vse.fintrackserver.model.dto.StandingOrderReminderDto(
+            s.id, s.nextExecutionAt, s.remindDaysBefore, a.id, a.name, t.amount, t.note, r.user.id
+        )
+        FROM StandingOrder s
+        JOIN s.transactionSample t
+        JOIN t.account a
+        LEFT JOIN AccountUserRights r ON r.account = a AND r.isOwner = true
+        WHERE s.remindDaysBefore IS NOT NULL AND s.nextExecutionAt IS NOT NULL
+    """;
+
+    /**
+     * Připomínky termínů do until. Díky indexu na next_execution_at se čte jen nejbližší okno.
+     */
+    @Query(REMINDER_SELECT + " AND s.nextExecutionAt > :from AND s.nextExecutionAt <= :until")
+    List<StandingOrderReminderDto> findReminders(@Param("from") LocalDateTime from,
+                                                 @Param("until") LocalDateTime until);
+
+    /**
+     * Připomínky příkazů změněných od since, i na jiných instancích, s termínem do until.
+     */
+    @Query(REMINDER_SELECT + " AND s.updatedAt > :since AND s.nextExecutionAt <= :until")
+    List<StandingOrderReminderDto> findRemindersUpdatedSince(@Param("since") LocalDateTime since,
+                                                             @Param("until") LocalDateTime until);
+
+    @Query(REMINDER_SELECT + " AND s.id = :id")
+    List<StandingOrderReminderDto> findReminder(@Param("id") String id);
+
 }
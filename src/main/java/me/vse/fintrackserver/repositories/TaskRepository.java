@@ -0,0 +1,87 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.model.Task;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TaskRepository extends JpaRepository<Task, String> {
+
+    Optional<Task> findByName(String name);
+
+    List<Task> findByNameStartingWith(String prefix);
+
+    @Modifying
+    @Query("""
+        UPDATE Task t
+        SET t.checkpoint = :checkpoint,
+            t.lastExecutedAt = CURRENT_TIMESTAMP,
+            t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.id = :id
+    """)
+    void updateCheckpoint(@Param("id") String id, @Param("checkpoint") String checkpoint);
+
+    /**
+     * Převezme lease úlohy, pokud je volná nebo prošlá a úloha ještě neproběhla pro daný termín.
+     */
+    @Modifying
+    @Query("""
+        UPDATE Task t
+        SET t.leaseOwner = :owner,
+            t.leaseUntil = :leaseUntil,
+            t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.name = :name
+        AND (t.checkpoint IS NULL OR t.checkpoint <> :occurrence)
+        AND (t.leaseUntil IS NULL OR t.leaseUntil < :now OR t.leaseOwner = :owner)
+    """)
+    int acquireLease(@Param("name") String name,
+                     @Param("occurrence") String occurrence,
+                     @Param("owner") String owner,
+                     @Param("now") LocalDateTime now,
+                     @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+        UPDATE Task t
+        SET t.leaseOwner = :owner,
+            t.leaseUntil = :leaseUntil,
+            t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.name = :name
+        AND (t.leaseUntil IS NULL OR t.leaseUntil < :now OR t.leaseOwner = :owner)
+    """)
+    int holdLease(@Param("name") String name,
+                  @Param("owner") String owner,
+                  @Param("now") LocalDateTime now,
+                  @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+        UPDATE Task t
+        SET t.checkpoint = :occurrence,
+            t.isFinished = true,
+            t.leaseUntil = NULL,
+            t.lastExecutedAt = CURRENT_TIMESTAMP,
+            t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.name = :name AND t.leaseOwner = :owner
+    """)
+    int completeLease(@Param("name") String name,
+                      @Param("occurrence") String occurrence,
+                      @Param("owner") String owner);
+
+    @Modifying
+    @Query("""
+        UPDATE Task t
+        SET t.leaseUntil = NULL,
+            t.updatedAt = CURRENT_TIMESTAMP
+        WHERE t.name = :name AND t.leaseOwner = :owner
+    """)
+    int releaseLease(@Param("name") String name, @Param("owner") String owner);
+
+}
@@ -1,75 +1,189 @@
 package me.vse.fintrackserver.repositories;
 
+import jakarta.persistence.QueryHint;
 import me.vse.fintrackserver.model.Account;
-import me.vse.fintrackserver.model.Category;
 import me.vse.fintrackserver.model.Transaction;
 import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.model.dto.AccountAggregationDTO;
+import me.vse.fintrackserver.model.dto.StatementLineDto;
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import me.vse.fintrackserver.model.dto.UserMetricDto;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, String> {
 
-    @Query("select t from Transaction t where t.account = :account or t.receiver = :account")
-    List<Transaction> findAllByAccount(@Param("account") Account account);
+    /**
+     * Podmínka (account OR receiver) je rozepsaná do dvou větví UNION ALL, každá čte jen svůj index
+     * (account_id, execution_date, id), resp. (receiver_id, execution_date, id). Převod mezi stejným
+     * účtem vrací jen první větev.
+     */
+    String OWN_TRANSACTIONS = "SELECT t.* FROM transaction t WHERE t.account_id = :#{#account.id}";
+    String INCOMING_TRANSACTIONS = "SELECT t.* FROM transaction t "
+            + "WHERE t.receiver_id = :#{#account.id} AND t.account_id <> :#{#account.id}";
+    String UNION_ALL = " UNION ALL ";
 
-    @Query("select t from Transaction t where (t.account = :account or t.receiver = :account) " +
-            "and t.executionDateTime >= :fromDate and t.executionDateTime <= :endDate")
-    List<Transaction> findAllByAccount(@Param("account") Account account,
-                                       @Param("fromDate") LocalDateTime fromDate,
-                                       @Param("endDate") LocalDateTime endDate);
+    /**
+     * Řádky rozvahy po majetku účtu, seřazené podle majetku, aby šly zpracovat jedním průchodem.
+     * Majetek bez transakcí má jeden řádek bez částky. Bez endDate se berou všechny transakce.
+     */
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.StatementLineDto(a.id, a.name, t.amount, t.type)
+        FROM Asset a
+        LEFT JOIN a.transactions t ON (:endDate IS NULL OR t.executionDateTime < :endDate)
+        WHERE a.account = :account
+        ORDER BY a.name, a.id, t.executionDateTime
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<StatementLineDto> streamStatementAssetLines(@Param("account") Account account,
+                                                       @Param("endDate") LocalDateTime endDate);
 
-    @Query("select t from Transaction t where (t.account = :account or t.receiver = :account) " +
-            "and t.executionDateTime <= :endDate")
-    List<Transaction> findAllByAccount(@Param("account") Account account,
-                                       @Param("endDate") LocalDateTime endDate);
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.StatementLineDto(c.id, COALESCE(c.name, 'Other'), t.amount, t.type)
+        FROM Transaction t
+        LEFT JOIN t.category c
+        WHERE t.account = :account
+        AND t.forAsset IS NULL
+        AND t.type = me.vse.fintrackserver.enums.TransactionTypes.INCOME
+        AND (:endDate IS NULL OR t.executionDateTime < :endDate)
+        ORDER BY c.name NULLS LAST, c.id, t.executionDateTime
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<StatementLineDto> streamStatementRevenueLines(@Param("account") Account account,
+                                                         @Param("endDate") LocalDateTime endDate);
+
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.StatementLineDto(a.id, a.name, t.amount, t.type)
+        FROM Transaction t
+        JOIN t.forAsset a
+        WHERE t.account = :account
+        AND t.type = me.vse.fintrackserver.enums.TransactionTypes.EXPENSE
+        AND (:endDate IS NULL OR t.executionDateTime < :endDate)
+        ORDER BY a.name, a.id, t.executionDateTime
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<StatementLineDto> streamStatementCostLines(@Param("account") Account account,
+                                                      @Param("endDate") LocalDateTime endDate);
 
-    @Query("select t from Transaction t where (t.account = :account or t.receiver = :account) " +
-            "and t.executionDateTime >= :fromDate and t.executionDateTime <= :endDate")
-    List<Transaction> findAllPagesByAccount(@Param("account") Account account,
-                                            @Param("fromDate") LocalDateTime fromDate,
-                                            @Param("endDate") LocalDateTime endDate,
-                                            Pageable pageable);
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto(
+            x.id, x.amount, x.categoryId, x.categoryName, x.executionDateTime
+        )
+        FROM (
+            SELECT t.id AS id, t.amount AS amount, c.id AS categoryId, c.name AS categoryName,
+                   t.executionDateTime AS executionDateTime
+            FROM Transaction t
+            LEFT JOIN t.category c
+            WHERE t.account = :account
+            UNION ALL
+            SELECT t.id, t.amount, c.id, c.name, t.executionDateTime
+            FROM Transaction t
+            LEFT JOIN t.category c
+            WHERE t.receiver = :account AND t.account <> :account
+        ) x
+    """)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TransactionAnalyticsRowDto> streamAnalyticsRowsByAccount(@Param("account") Account account);
 
-    @Query("select t from Transaction t where (t.account = :account or t.receiver = :account) " +
-            "and t.executionDateTime <= :endDate")
-    List<Transaction> findAllPagesByAccount(@Param("account") Account account,
-                                            @Param("endDate") LocalDateTime endDate,
-                                            Pageable pageable);
+    @Query(value = OWN_TRANSACTIONS + " AND t.amount > :threshold"
+            + UNION_ALL + INCOMING_TRANSACTIONS + " AND t.amount > :threshold", nativeQuery = true)
+    List<Transaction> findAllByAccountAndAmountGreaterThan(@Param("account") Account account,
+                                                          @Param("threshold") double threshold);
 
-    @Query("select t from Transaction t where (t.account = :account or t.receiver = :account)")
-    List<Transaction> findAllPagesByAccount(@Param("account") Account account, Pageable pageable);
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.AccountAggregationDTO(
+            t.account.id,
+            COALESCE(SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.REVENUE
+                              THEN t.amount ELSE 0.0 END), 0.0),
+            COALESCE(SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.COST
+                              THEN t.amount ELSE 0.0 END), 0.0)
+        )
+        FROM Transaction t
+        WHERE t.account.id IN :accountIds
+        AND t.type IN (me.vse.fintrackserver.enums.TransactionTypes.REVENUE,
+                       me.vse.fintrackserver.enums.TransactionTypes.COST)
+        GROUP BY t.account.id
+    """)
+    List<AccountAggregationDTO> getRevenueAndCostByAccountIds(@Param("accountIds") Collection<String> accountIds);
 
     @Query("""
-        SELECT t.account, t.category,
-               SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.INCOME THEN t.amount ELSE 0 END) AS totalIncome,
-               SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.EXPENSE THEN t.amount ELSE 0 END) AS totalExpense
+        SELECT t.account.id, c.id, function('trunc', t.executionDateTime),
+               SUM(CASE WHEN t.type IN (me.vse.fintrackserver.enums.TransactionTypes.INCOME,
+                                        me.vse.fintrackserver.enums.TransactionTypes.REVENUE)
+                        THEN t.amount ELSE 0.0 END),
+               SUM(CASE WHEN t.type IN (me.vse.fintrackserver.enums.TransactionTypes.EXPENSE,
+                                        me.vse.fintrackserver.enums.TransactionTypes.COST)
+                        THEN t.amount
+                        WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.TRANSFER
+                             AND (t.receiver IS NULL OR t.receiver <> t.account)
+                        THEN t.amount ELSE 0.0 END)
         FROM Transaction t
-        WHERE t.executionDateTime >= :xDays
-        GROUP BY t.account, t.category
+        LEFT JOIN t.category c
+        WHERE t.account.id = :accountId
+        GROUP BY t.account.id, c.id, function('trunc', t.executionDateTime)
     """)
-    List<Object[]> aggregateTransactionsForXDays(@Param("xDays") LocalDateTime xDays);
+    List<Object[]> aggregateOwnTotalsByCategoryAndDay(@Param("accountId") String accountId);
+
     @Query("""
-        SELECT SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.INCOME THEN t.amount ELSE 0 END) AS totalIncome,
-               SUM(CASE WHEN t.type = me.vse.fintrackserver.enums.TransactionTypes.EXPENSE THEN t.amount ELSE 0 END) AS totalExpense
+        SELECT t.receiver.id, c.id, function('trunc', t.executionDateTime), SUM(t.amount)
         FROM Transaction t
-        WHERE t.account = :account and t.category = :category
+        LEFT JOIN t.category c
+        WHERE t.type = me.vse.fintrackserver.enums.TransactionTypes.TRANSFER
+        AND t.receiver.id = :accountId AND t.account.id <> :accountId
+        GROUP BY t.receiver.id, c.id, function('trunc', t.executionDateTime)
     """)
-    Object[] getAggregatedTransactionsForAccountAndCategory(@Param("account") Account account,
-                                                                  @Param("category") Category category);
+    List<Object[]> aggregateIncomingTransfersByCategoryAndDay(@Param("accountId") String accountId);
+
+    String OWNER_EXPENSE_AVERAGES_SELECT = """
+        SELECT new me.vse.fintrackserver.model.dto.UserMetricDto(
+            r.user.id,
+            r.account.id,
+            COALESCE(AVG(CASE WHEN t.executionDateTime >= :lastMonthStart THEN t.amount END), 0.0),
+            COALESCE(AVG(CASE WHEN t.executionDateTime < :lastMonthStart THEN t.amount END), 0.0)
+        )
+        FROM AccountUserRights r
+        JOIN Transaction t ON t.account = r.account
+        WHERE r.isOwner = true AND r.account.isRemoved = false
+        AND t.executionDateTime < :currentMonthStart
+        AND (t.type IN (me.vse.fintrackserver.enums.TransactionTypes.EXPENSE,
+                        me.vse.fintrackserver.enums.TransactionTypes.COST)
+             OR (t.type = me.vse.fintrackserver.enums.TransactionTypes.TRANSFER
+                 AND (t.receiver IS NULL OR t.receiver <> t.account)))
+    """;
+
+    String OWNER_EXPENSE_AVERAGES_GROUP = " GROUP BY r.user.id, r.account.id ORDER BY r.user.id";
+
+    /**
+     * Průměrný výdaj minulého měsíce (value) a průměrný výdaj před ním (baseline) pro každý vlastněný účet.
+     */
+    @Query(OWNER_EXPENSE_AVERAGES_SELECT + OWNER_EXPENSE_AVERAGES_GROUP)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserMetricDto> streamOwnerExpenseAverages(@Param("lastMonthStart") LocalDateTime lastMonthStart,
+                                                     @Param("currentMonthStart") LocalDateTime currentMonthStart);
 
+    @Query(OWNER_EXPENSE_AVERAGES_SELECT + " AND r.user.id IN :userIds" + OWNER_EXPENSE_AVERAGES_GROUP)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserMetricDto> streamOwnerExpenseAverages(@Param("userIds") Collection<String> userIds,
+                                                     @Param("lastMonthStart") LocalDateTime lastMonthStart,
+                                                     @Param("currentMonthStart") LocalDateTime currentMonthStart);
 
+    /**
+     * Už zapsané termíny trvalých příkazů od from, dvojice (ID příkazu, termín).
+     */
     @Query("""
-        SELECT t FROM Transaction t
-        WHERE (t.account = :user OR t.receiver = :user)
-        AND t.executionDateTime >= :startDate
-        AND t.executionDateTime <= :endDate
+        SELECT t.sourceStandingOrderId, t.occurrenceAt FROM Transaction t
+        WHERE t.sourceStandingOrderId IN :standingOrderIds AND t.occurrenceAt >= :from
     """)
-    List<Transaction> findAllByAccountAndDaysBetween(Account user, LocalDateTime startDate, LocalDateTime endDate);
+    List<Object[]> findOccurrences(@Param("standingOrderIds") Collection<String> standingOrderIds,
+                                   @Param("from") LocalDateTime from);
 }
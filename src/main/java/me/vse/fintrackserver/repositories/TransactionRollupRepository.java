@@ -0,0 +1,103 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.enums.RollupGranularity;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Category;
+import me.vse.fintrackserver.model.TransactionRollup;
+import me.vse.fintrackserver.model.dto.RollupTotalsDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, String> {
+
+    /**
+     * Připočte změnu k řádku (účet, kategorie, granularita, začátek období), případně řádek založí,
+     * jedním příkazem. Granularita je v tabulce uložená jako pořadí hodnoty výčtu.
+     */
+    @Modifying
+    @Query(value = """
+        MERGE INTO transaction_rollup r
+        USING (SELECT :#{#account.id} AS account_id,
+                      :#{#category == null ? '-' : #category.id} AS category_key,
+                      TO_CHAR(:#{#granularity.ordinal()}) AS granularity,
+                      :bucketStart AS bucket_start
+               FROM dual) s
+        ON (r.account_id = s.account_id AND NVL(r.category_id, '-') = s.category_key
+            AND r.granularity = s.granularity AND r.bucket_start = s.bucket_start)
+        WHEN MATCHED THEN UPDATE SET
+            r.total_income = r.total_income + :income,
+            r.total_expense = r.total_expense + :expense,
+            r.updated_at = CURRENT_TIMESTAMP
+        WHEN NOT MATCHED THEN INSERT (id, account_id, category_id, granularity, bucket_start,
+                                      total_income, total_expense, created_at, updated_at)
+            VALUES (LOWER(RAWTOHEX(SYS_GUID())), s.account_id, NULLIF(s.category_key, '-'), s.granularity,
+                    s.bucket_start, :income, :expense, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+    """, nativeQuery = true)
+    int mergeDelta(@Param("account") Account account,
+                   @Param("category") Category category,
+                   @Param("granularity") RollupGranularity granularity,
+                   @Param("bucketStart") LocalDate bucketStart,
+                   @Param("income") Double income,
+                   @Param("expense") Double expense);
+
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.RollupTotalsDto(
+            COALESCE(SUM(r.totalIncome), 0.0),
+            COALESCE(SUM(r.totalExpense), 0.0)
+        )
+        FROM TransactionRollup r
+        WHERE r.account = :account AND r.granularity = :granularity
+        AND r.bucketStart >= :fromBucket AND r.bucketStart < :toBucket
+    """)
+    RollupTotalsDto sumTotals(@Param("account") Account account,
+                              @Param("granularity") RollupGranularity granularity,
+                              @Param("fromBucket") LocalDate fromBucket,
+                              @Param("toBucket") LocalDate toBucket);
+
+    @Query("""
+        SELECT new me.vse.fintrackserver.model.dto.RollupTotalsDto(
+            COALESCE(SUM(r.totalIncome), 0.0),
+            COALESCE(SUM(r.totalExpense), 0.0)
+        )
+        FROM TransactionRollup r
+        WHERE r.account = :account AND r.category = :category AND r.granularity = :granularity
+        AND r.bucketStart >= :fromBucket AND r.bucketStart < :toBucket
+    """)
+    RollupTotalsDto sumCategoryTotals(@Param("account") Account account,
+                                      @Param("category") Category category,
+                                      @Param("granularity") RollupGranularity granularity,
+                                      @Param("fromBucket") LocalDate fromBucket,
+                                      @Param("toBucket") LocalDate toBucket);
+
+    @Modifying
+    @Query("""
+        UPDATE TransactionRollup r
+        SET r.totalIncome = :income,
+            r.totalExpense = :expense,
+            r.updatedAt = CURRENT_TIMESTAMP
+        WHERE r.id = :id
+    """)
+    int setTotals(@Param("id") String id,
+                  @Param("income") Double income,
+                  @Param("expense") Double expense);
+
+    @Query("""
+        SELECT r.id, r.account.id, c.id, r.granularity, r.bucketStart, r.totalIncome, r.totalExpense
+        FROM TransactionRollup r
+        LEFT JOIN r.category c
+        WHERE r.account.id = :accountId
+    """)
+    List<Object[]> findTotalsByAccountId(@Param("accountId") String accountId);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollup r WHERE r.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") String accountId);
+
+}
@@ -0,0 +1,52 @@
+package me.vse.fintrackserver.repositories;
+
+import jakarta.persistence.LockModeType;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Category;
+import me.vse.fintrackserver.model.TransactionStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TransactionStatisticsRepository extends JpaRepository<TransactionStatistics, String> {
+
+    @Query("SELECT s FROM TransactionStatistics s WHERE s.account = :account AND s.category IS NULL")
+    Optional<TransactionStatistics> findByAccount(@Param("account") Account account);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TransactionStatistics s WHERE s.account = :account AND s.category IS NULL")
+    Optional<TransactionStatistics> findByAccountForUpdate(@Param("account") Account account);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TransactionStatistics s WHERE s.account = :account AND s.category = :category")
+    Optional<TransactionStatistics> findByAccountAndCategoryForUpdate(@Param("account") Account account,
+                                                                      @Param("category") Category category);
+
+    /**
+     * Založí prázdný řádek (účet, kategorie), pokud ještě neexistuje. Souběžné založení stejného
+     * řádku tak nespadne na unikátním indexu a obě transakce pak řádek zamknou přes *ForUpdate.
+     */
+    @Modifying
+    @Query(value = """
+        MERGE INTO transaction_statistics s
+        USING (SELECT :#{#account.id} AS account_id,
+                      :#{#category == null ? '-' : #category.id} AS category_key
+               FROM dual) d
+        ON (s.account_id = d.account_id AND NVL(s.category_id, '-') = d.category_key)
+        WHEN NOT MATCHED THEN INSERT (id, account_id, category_id, sample_count, mean, m2, created_at, updated_at)
+            VALUES (LOWER(RAWTOHEX(SYS_GUID())), d.account_id, NULLIF(d.category_key, '-'),
+                    0, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)
+    """, nativeQuery = true)
+    int mergeEmpty(@Param("account") Account account, @Param("category") Category category);
+
+    @Modifying
+    @Query("DELETE FROM TransactionStatistics s WHERE s.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") String accountId);
+
+}
@@ -1,14 +1,19 @@
 package me.vse.fintrackserver.repositories;
 
+import jakarta.persistence.QueryHint;
 import me.vse.fintrackserver.model.User;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
@@ -30,4 +35,20 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("select u from User u")
     List<User> findAllPageable(Pageable pageable);
+
+    String WITHOUT_GOAL_SELECT = """
+        SELECT u.id FROM User u
+        WHERE NOT EXISTS (
+            SELECT 1 FROM AccountUserRights r
+            WHERE r.user = u AND r.account.isRemoved = false AND r.account.goalAmount > 0
+        )
+    """;
+
+    @Query(WITHOUT_GOAL_SELECT)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<String> streamIdsWithoutGoal();
+
+    @Query(WITHOUT_GOAL_SELECT + " AND u.id IN :userIds")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<String> streamIdsWithoutGoal(@Param("userIds") Collection<String> userIds);
 }
@@ -0,0 +1,17 @@
+package me.vse.fintrackserver.rest.requests;
+
+import lombok.*;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BudgetRequest {
+
+    private String userId;
+    private String accountId;
+    private String categoryId;
+    private Double monthlyLimit;
+
+}
@@ -0,0 +1,26 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class AdviceSchedulerMetricsResponse {
+
+    private long pendingUsers;
+    private long pendingAccounts;
+    private long queuedBatches;
+    private long activeWorkers;
+    private long evaluatedUsers;
+    private long evaluatedBatches;
+    private long rejectedBatches;
+    private long failedEvaluations;
+    private double lastEvaluationMillis;
+    private double averageEvaluationMillis;
+    private double maxEvaluationMillis;
+    private long pendingAdvices;
+
+}
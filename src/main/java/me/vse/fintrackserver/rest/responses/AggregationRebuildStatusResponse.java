@@ -0,0 +1,19 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class AggregationRebuildStatusResponse {
+
+    private boolean running;
+    private int totalPartitions;
+    private int finishedPartitions;
+    private long processedAccounts;
+    private String lastError;
+
+}
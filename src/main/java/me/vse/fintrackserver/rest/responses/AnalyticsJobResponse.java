@@ -0,0 +1,26 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+import me.vse.fintrackserver.enums.AnalyticsJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class AnalyticsJobResponse {
+
+    private String jobId;
+    private String accountId;
+    private AnalyticsJobStatus status;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    @ToString.Exclude
+    private Map<String, Object> result;
+
+}
@@ -0,0 +1,24 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class BudgetResponse {
+
+    private String id;
+    private String accountId;
+    private String categoryId;
+    private String categoryName;
+    private double monthlyLimit;
+    private double spentMonthToDate;
+    private double remainingBudget;
+    private LocalDate periodStart;
+
+}
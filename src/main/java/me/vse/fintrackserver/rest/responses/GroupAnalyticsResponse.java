@@ -0,0 +1,29 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+import me.vse.fintrackserver.model.dto.GroupAccountTotalsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class GroupAnalyticsResponse {
+
+    private String groupId;
+    private String groupName;
+    private double totalIncome;
+    private double totalExpense;
+    private double monthIncome;
+    private double monthExpense;
+    private Map<String, Double> categoryIncomes;
+    private Map<String, Double> categoryExpenses;
+    private List<GroupAccountTotalsDto> accounts;
+    private LocalDateTime calculatedAt;
+
+}
@@ -0,0 +1,27 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+import me.vse.fintrackserver.enums.ReportJobStatus;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class ReportJobResponse {
+
+    private String jobId;
+    private String accountId;
+    private String lang;
+    private String period;
+    private ReportJobStatus status;
+    private boolean cached;
+    private Long size;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+}
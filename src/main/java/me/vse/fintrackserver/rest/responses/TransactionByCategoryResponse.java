@@ -1,8 +1,8 @@
 package me.vse.fintrackserver.rest.responses;
 
 import lombok.*;
-import me.vse.fintrackserver.model.Category;
-import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.dto.SimplifiedEntityDto;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
 
 import java.util.List;
 
@@ -14,7 +14,7 @@ import java.util.List;
 @ToString
 public class TransactionByCategoryResponse {
 
-    private Category category;
-    private List<Transaction> transactions;
+    private SimplifiedEntityDto category;
+    private List<TransactionListItemDto> transactions;
 
 }
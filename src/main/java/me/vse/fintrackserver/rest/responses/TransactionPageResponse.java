@@ -0,0 +1,19 @@
+package me.vse.fintrackserver.rest.responses;
+
+import lombok.*;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@ToString
+public class TransactionPageResponse {
+
+    private List<TransactionListItemDto> transactions;
+    private String nextCursor;
+
+}
@@ -0,0 +1,114 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import me.vse.fintrackserver.enums.UserRights;
+import me.vse.fintrackserver.model.AccountAccess;
+import me.vse.fintrackserver.repositories.AccountAccessRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * # Služba pro práva uživatelů k účtům
+ *
+ * Výsledná práva z přímých práv i členství ve skupinách jsou předpočítaná v tabulce account_access
+ * a přepočítají se při změně práv, účtu nebo skupiny. Práva uživatele se drží v cache, takže kontrola
+ * oprávnění je jedno vyhledání v mapě, při výpadku cache jeden dotaz přes primární klíč (user_id, account_id).
+ */
+@Service
+public class AccountAccessService {
+
+    @Autowired
+    private AccountAccessRepository accountAccessRepository;
+
+    @Value("${access.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${access.cache.expire-after-write-seconds:60}")
+    private long cacheExpireAfterWriteSeconds;
+
+    private LoadingCache<String, Map<String, UserRights>> cache;
+
+    @PostConstruct
+    private void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheExpireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build(CacheLoader.from(this::load));
+    }
+
+    public boolean canRead(String userId, String accountId) {
+        UserRights rights = getRights(userId, accountId);
+        return rights == UserRights.READ || rights == UserRights.WRITE;
+    }
+
+    public boolean canWrite(String userId, String accountId) {
+        return getRights(userId, accountId) == UserRights.WRITE;
+    }
+
+    /**
+     * Přepočítá práva uživatelů, volá se po změně jejich přímých práv nebo členství ve skupinách.
+     * Musí běžet ve stejné DB transakci jako změna, cache se zneplatní po commitu.
+     */
+    public void refreshUsers(Collection<String> userIds) {
+        Set<String> ids = userIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        accountAccessRepository.deleteByUserIds(ids);
+        accountAccessRepository.insertForUsers(ids);
+        afterCommit(() -> cache.invalidateAll(ids));
+    }
+
+    /**
+     * Přepočítá práva k účtům, volá se po odstranění účtu nebo změně jeho skupin.
+     */
+    public void refreshAccounts(Collection<String> accountIds) {
+        Set<String> ids = accountIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<String> userIds = new HashSet<>(accountAccessRepository.findUserIdsByAccountIds(ids));
+        accountAccessRepository.deleteByAccountIds(ids);
+        accountAccessRepository.insertForAccounts(ids);
+        userIds.addAll(accountAccessRepository.findUserIdsByAccountIds(ids));
+        afterCommit(() -> cache.invalidateAll(userIds));
+    }
+
+    private UserRights getRights(String userId, String accountId) {
+        if (userId == null || accountId == null) {
+            return UserRights.NONE;
+        }
+        return cache.getUnchecked(userId).getOrDefault(accountId, UserRights.NONE);
+    }
+
+    private Map<String, UserRights> load(String userId) {
+        Map<String, UserRights> rights = new HashMap<>();
+        for (AccountAccess access : accountAccessRepository.findByUserId(userId)) {
+            rights.put(access.getAccountId(), access.getRights());
+        }
+        return rights;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
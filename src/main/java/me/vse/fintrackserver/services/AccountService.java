@@ -11,7 +11,9 @@ import me.vse.fintrackserver.enums.UserRights;
 import me.vse.fintrackserver.mappers.AccountMapper;
 import me.vse.fintrackserver.model.*;
 import me.vse.fintrackserver.model.dto.AccountDto;
+import me.vse.fintrackserver.model.dto.RollupTotalsDto;
 import me.vse.fintrackserver.model.dto.SimplifiedEntityDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
 import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.rest.requests.AccountAddRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,11 +21,8 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.function.Predicate.not;
@@ -54,91 +53,87 @@ public class AccountService {
     @Autowired
     private TransactionAggregationService transactionAggregationService;
 
-    @Transactional
-    public Double getNetWorth(String id, LocalDateTime fromDate, LocalDateTime endDate) {
-        Account account = checkAccount(id);
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
 
-        AtomicReference<Double> initialAmount = new AtomicReference<>(account.getInitialAmount());
+    @Autowired
+    private AdviceSchedulerService adviceSchedulerService;
 
-        Consumer<Double> increaseConsumer = amount -> {
-            initialAmount.updateAndGet(v -> v + amount);
-        };
+    @Autowired
+    private AccountAccessService accountAccessService;
 
+    @Transactional
+    public Double getNetWorth(String id, LocalDateTime fromDate, LocalDateTime endDate) {
+        Account account = checkAccount(id);
 
-        account.getAssets().stream()
+        double assetsValue = account.getAssets().stream()
                 .filter(Objects::nonNull)
                 .filter(not(Asset::isRemoved))
                 .map(assetService::getCurrentAssetPrice)
-                .forEach(increaseConsumer);
-
-        if (AccountType.BUSINESS_ACCOUNT.equals(account.getType())) {
-            transactionService.getRevenueTransactions(account, fromDate, endDate)
-                    .forEach(transaction -> initialAmount.updateAndGet(v -> v + transaction.getAmount()));
-            transactionService.getCostTransactions(account, fromDate, endDate)
-                    .forEach(transaction -> initialAmount.updateAndGet(v -> v - transaction.getAmount()));
-        } else {
-            transactionService.getIncomeTransactions(account, fromDate, endDate)
-                    .forEach(transaction -> initialAmount.updateAndGet(v -> v + transaction.getAmount()));
-            transactionService.getExpenseTransactions(account, fromDate, endDate)
-                    .forEach(transaction -> initialAmount.updateAndGet(v -> v - transaction.getAmount()));
+                .filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue)
+                .sum();
+
+        boolean isBusiness = AccountType.BUSINESS_ACCOUNT.equals(account.getType());
+        if (!isBusiness && fromDate == null && endDate != null) {
+            return account.getInitialAmount() + assetsValue + balanceCheckpointService.getNetFlowAsOf(account, endDate);
         }
-        return initialAmount.get();
+
+        TransactionTotalsDto totals = transactionService.getTransactionTotals(account, fromDate, endDate);
+
+        if (isBusiness) {
+            return account.getInitialAmount() + assetsValue + totals.getTotalRevenue() - totals.getTotalCost();
+        }
+        return account.getInitialAmount() + assetsValue + totals.getTotalIncome() - totals.getTotalExpense();
     }
 
     @Transactional
     public Double getBalance(String id, LocalDateTime fromDate, LocalDateTime endDate) {
         Account account = checkAccount(id);
 
-        return account.getInitialAmount() + getIncome(id, fromDate, endDate) + getExpense(id, fromDate, endDate);
+        if (fromDate == null && endDate == null) {
+            Double savedTotal = transactionAggregationService.getTotal(id);
+            if (savedTotal != null) {
+                return account.getInitialAmount() + savedTotal;
+            }
+            TransactionTotalsDto totals = transactionService.getTransactionTotals(account, null, null);
+            return account.getInitialAmount() + totals.getTotalIncome() - totals.getTotalExpense();
+        }
+
+        if (fromDate == null) {
+            return account.getInitialAmount() + balanceCheckpointService.getNetFlowAsOf(account, endDate);
+        }
+
+        RollupTotalsDto totals = transactionAggregationService.getRangeTotals(account, fromDate, endDate);
+        return account.getInitialAmount() + totals.getTotalIncome() - totals.getTotalExpense();
     }
 
     @Transactional
     public Double getIncome(String id, LocalDateTime fromDate, LocalDateTime endDate) {
         Account account = checkAccount(id);
 
-        Double savedIncome = transactionAggregationService.getIncome(id);
-
-        AtomicReference<Double> initialAmount = new AtomicReference<>(0.0);
-
-        Consumer<Transaction> increaseConsumer = transaction -> {
-            initialAmount.updateAndGet(v -> v + transaction.getAmount());
-        };
-
-        if (savedIncome != null && savedIncome != 0.0 && fromDate == null && endDate == null) {
-                transactionService.getIncomeTransactions(account,
-                        LocalDate.now().atStartOfDay(),
-                        LocalDateTime.now())
-                .forEach(increaseConsumer);
-                initialAmount.updateAndGet(v -> v + savedIncome);
-        } else {
-            transactionService.getIncomeTransactions(account, fromDate, endDate).forEach(increaseConsumer);
+        if (fromDate == null && endDate == null) {
+            Double savedIncome = transactionAggregationService.getIncome(id);
+            return savedIncome != null
+                    ? savedIncome
+                    : transactionService.getTransactionTotals(account, null, null).getTotalIncome();
         }
 
-        return initialAmount.get();
+        return transactionAggregationService.getRangeTotals(account, fromDate, endDate).getTotalIncome();
     }
 
     @Transactional
     public Double getExpense(String id, LocalDateTime fromDate, LocalDateTime endDate) {
         Account account = checkAccount(id);
 
-        Double savedExpense = transactionAggregationService.getExpense(id);
-
-        AtomicReference<Double> initialAmount = new AtomicReference<>(0.0);
-
-        Consumer<Transaction> decreaseConsumer = transaction -> {
-                initialAmount.updateAndGet(v -> v - transaction.getAmount());
-        };
-        if (savedExpense != null && savedExpense != 0.0 && fromDate == null && endDate == null) {
-            transactionService.getExpenseTransactions(account,
-                            LocalDate.now().atStartOfDay(),
-                            LocalDateTime.now())
-                    .forEach(decreaseConsumer);
-            initialAmount.updateAndGet(v -> v - savedExpense);
-        } else {
-            transactionService.getExpenseTransactions(account, fromDate, endDate).forEach(decreaseConsumer);
+        if (fromDate == null && endDate == null) {
+            Double savedExpense = transactionAggregationService.getExpense(id);
+            return savedExpense != null
+                    ? -savedExpense
+                    : -transactionService.getTransactionTotals(account, null, null).getTotalExpense();
         }
 
-        return initialAmount.get();
+        return -transactionAggregationService.getRangeTotals(account, fromDate, endDate).getTotalExpense();
     }
 
     @Transactional
@@ -180,6 +175,8 @@ public class AccountService {
                 .build();
 
         entityManager.persist(userRights);
+        accountAccessService.refreshUsers(List.of(owner.getId()));
+        adviceSchedulerService.markUserDirty(owner.getId());
 
         return account;
     }
@@ -233,6 +230,7 @@ public class AccountService {
         Account record = entityManager.find(Account.class, accountDto.getId());
         accountMapper.updateAccountFromDto(accountDto, record);
         accountRepository.save(record);
+        adviceSchedulerService.markAccountsDirty(List.of(record.getId()));
         return record;
     }
 
@@ -247,6 +245,7 @@ public class AccountService {
         return account;
     }
 
+    @Transactional
     public Account delete(String id, String userId) {
        Account account = entityManager.find(Account.class, id);
        if (account == null) {
@@ -267,6 +266,8 @@ public class AccountService {
        account.setRemoved(true);
        account.setRemovedAt(LocalDateTime.now());
        accountRepository.save(account);
+       accountAccessService.refreshAccounts(List.of(account.getId()));
+       adviceSchedulerService.markAccountsDirty(List.of(account.getId()));
        return account;
     }
 
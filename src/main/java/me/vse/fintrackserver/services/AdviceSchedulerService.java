@@ -0,0 +1,205 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import me.vse.fintrackserver.advice.Advice;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.rest.responses.AdviceSchedulerMetricsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * # Plánovač vyhodnocení rad
+ *
+ * Zápisy transakcí a změny účtů označí dotčené uživatele jako "dirty". Plánovač v nastaveném
+ * intervalu vybere jen tyto uživatele a vyhodnotí pro ně rady na omezeném poolu vláken,
+ * takže cena vyhodnocení roste s počtem zápisů, ne s počtem uživatelů.
+ */
+@Slf4j
+@Service
+public class AdviceSchedulerService {
+
+    @Autowired
+    @Lazy
+    private List<Advice> advices;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AdviceService adviceService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${advice.scheduler.threads:2}")
+    private int threads;
+
+    @Value("${advice.scheduler.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${advice.scheduler.batch-size:500}")
+    private int batchSize;
+
+    private ThreadPoolExecutor executor;
+
+    private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> dirtyAccounts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong evaluatedUsers = new AtomicLong();
+    private final AtomicLong evaluatedBatches = new AtomicLong();
+    private final AtomicLong rejectedBatches = new AtomicLong();
+    private final AtomicLong failedEvaluations = new AtomicLong();
+    private final AtomicLong totalEvaluationNanos = new AtomicLong();
+    private final AtomicLong lastEvaluationNanos = new AtomicLong();
+    private final LongAccumulator maxEvaluationNanos = new LongAccumulator(Long::max, 0L);
+
+    @PostConstruct
+    private void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("advice-worker-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Označí uživatele účtů k novému vyhodnocení. V DB transakci se to projeví až po commitu.
+     */
+    public void markAccountsDirty(Collection<String> accountIds) {
+        afterCommit(() -> dirtyAccounts.addAll(accountIds));
+    }
+
+    public void markUserDirty(String userId) {
+        afterCommit(() -> dirtyUsers.add(userId));
+    }
+
+    /**
+     * Převezme uživatele označené od posledního běhu a rozdělí je do dávek pro pool vláken.
+     * Dávky, které se nevejdou do fronty, zůstanou označené na další běh.
+     */
+    @Scheduled(fixedDelayString = "${advice.scheduler.interval-ms:60000}")
+    public void dispatch() {
+        Set<String> userIds = drain(dirtyUsers);
+        Set<String> accountIds = drain(dirtyAccounts);
+        for (List<String> chunk : Iterables.partition(accountIds, batchSize)) {
+            userIds.addAll(accountRepository.findUserIdsByAccountIds(chunk));
+        }
+
+        for (List<String> batch : Iterables.partition(userIds, batchSize)) {
+            List<String> users = List.copyOf(batch);
+            try {
+                executor.execute(() -> evaluate(users));
+            } catch (RejectedExecutionException exception) {
+                rejectedBatches.incrementAndGet();
+                dirtyUsers.addAll(users);
+            }
+        }
+    }
+
+    /**
+     * Jednou denně vyhodnotí pravidla pro všechny uživatele. Každé pravidlo je jen pár agregačních dotazů,
+     * takže celý běh nezávisí na počtu uživatelů počtem příkazů. Označení uživatelé se zahodí až ve chvíli,
+     * kdy tato instance úlohu opravdu převezme, jinak počkají na běžný dispatch.
+     */
+    @Scheduled(cron = "${advice.scheduler.full-run-cron:0 0 3 * * ?}")
+    public void dispatchAll() {
+        String occurrence = LocalDate.now().toString();
+        try {
+            executor.execute(() -> jobLeaseService.runOnce("ADVICE_FULL_RUN", occurrence,
+                    jobLeaseService.getDefaultLease(), () -> {
+                        dirtyUsers.clear();
+                        dirtyAccounts.clear();
+                        evaluate(null);
+                    }));
+        } catch (RejectedExecutionException exception) {
+            rejectedBatches.incrementAndGet();
+        }
+    }
+
+    public AdviceSchedulerMetricsResponse getMetrics() {
+        long batches = evaluatedBatches.get();
+        return AdviceSchedulerMetricsResponse.builder()
+                .pendingUsers(dirtyUsers.size())
+                .pendingAccounts(dirtyAccounts.size())
+                .queuedBatches(executor.getQueue().size())
+                .activeWorkers(executor.getActiveCount())
+                .evaluatedUsers(evaluatedUsers.get())
+                .evaluatedBatches(batches)
+                .rejectedBatches(rejectedBatches.get())
+                .failedEvaluations(failedEvaluations.get())
+                .lastEvaluationMillis(toMillis(lastEvaluationNanos.get()))
+                .averageEvaluationMillis(batches == 0 ? 0.0 : toMillis(totalEvaluationNanos.get()) / batches)
+                .maxEvaluationMillis(toMillis(maxEvaluationNanos.get()))
+                .pendingAdvices(adviceService.getPendingCount())
+                .build();
+    }
+
+    private void evaluate(List<String> userIds) {
+        long start = System.nanoTime();
+        for (Advice advice : advices) {
+            try {
+                advice.evaluate(userIds, adviceService::addResponse);
+                adviceService.trim(userIds);
+            } catch (RuntimeException exception) {
+                failedEvaluations.incrementAndGet();
+                log.error("Advice {} failed for users {}", advice.getClass().getSimpleName(),
+                        userIds == null ? "(full run)" : userIds, exception);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (userIds != null) {
+            evaluatedUsers.addAndGet(userIds.size());
+        }
+        evaluatedBatches.incrementAndGet();
+        totalEvaluationNanos.addAndGet(elapsed);
+        lastEvaluationNanos.set(elapsed);
+        maxEvaluationNanos.accumulate(elapsed);
+    }
+
+    private Set<String> drain(Set<String> source) {
+        Set<String> drained = new HashSet<>();
+        Iterator<String> iterator = source.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -1,65 +1,102 @@
 package me.vse.fintrackserver.services;
 
-//import me.vse.fintrackserver.advice.ExpenseByCategoryCheck;
-import me.vse.fintrackserver.advice.ExpenseCheck;
-import me.vse.fintrackserver.repositories.AccountRepository;
+import com.google.common.collect.Iterables;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import me.vse.fintrackserver.model.AdviceInboxItem;
+import me.vse.fintrackserver.repositories.AdviceInboxRepository;
 import me.vse.fintrackserver.rest.responses.AdviceResponse;
+import me.vse.fintrackserver.services.utils.AdviceInbox;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
-import java.util.Set;
-
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * # Služba pro doručování rad
+ *
+ * Rady čekají ve schránce podle uživatele, takže výběr rady nezávisí na počtu čekajících rad.
+ * S advice.inbox.persistent=true se schránka drží v tabulce advice_inbox, přežije restart
+ * a sdílí ji všechny instance serveru.
+ */
 @Service
 public class AdviceService {
 
-    private final Set<AdviceResponse> responsesToBeSent = new HashSet<>();
-
-//    @Scheduled(cron = "0 0 3 * * ?")
-    @Scheduled(fixedRate = 3000)
-    public void scheduleTask() {
-        responsesToBeSent.clear();
+    private static final String ARGUMENT_SEPARATOR = "\u001F";
+    private static final int TRIM_CHUNK_SIZE = 1000;
 
-        Thread thread = new Thread(){
-            public void run() {
-                performAdviceChecks();
+    @Autowired
+    private AdviceInboxRepository adviceInboxRepository;
 
-                this.interrupt();
-            }
-        };
-        thread.start();
-    }
+    @Value("${advice.inbox.max-per-user:10}")
+    private int maxPerUser;
 
-//    @Autowired
-//    ExpenseByCategoryCheck expenseByCategoryCheck;
+    @Value("${advice.inbox.persistent:false}")
+    private boolean persistent;
 
-    @Autowired
-    ExpenseCheck expenseCheck;
+    private AdviceInbox inbox;
 
-    private void performAdviceChecks() {
+    @PostConstruct
+    private void init() {
+        inbox = new AdviceInbox(maxPerUser);
+    }
 
-//        expenseByCategoryCheck.perform();
+    @Transactional
+    public void addResponse(AdviceResponse response) {
+        if (!persistent) {
+            inbox.add(response);
+            return;
+        }
 
+        adviceInboxRepository.merge(response.getUserId(), response.getMessage(),
+                response.getArguments() == null ? null : String.join(ARGUMENT_SEPARATOR, response.getArguments()));
     }
 
-    public void addResponse(AdviceResponse response) {
-        responsesToBeSent.add(response);
+    /**
+     * Ponechá každému uživateli jen maxPerUser nejnovějších rad. Volá se jednou po vyhodnocení pravidla,
+     * ne po každé radě.
+     * @param userIds Vyhodnocení uživatelé, null znamená všechny uživatele
+     */
+    @Transactional
+    public void trim(Collection<String> userIds) {
+        if (!persistent) {
+            return;
+        }
+        if (userIds == null) {
+            adviceInboxRepository.trimAll(maxPerUser);
+            return;
+        }
+        for (List<String> chunk : Iterables.partition(userIds, TRIM_CHUNK_SIZE)) {
+            adviceInboxRepository.trimUsers(chunk, maxPerUser);
+        }
     }
 
+    @Transactional
     public AdviceResponse getAdvice(String userId) {
-        AdviceResponse response = null;
+        if (!persistent) {
+            return inbox.poll(userId);
+        }
 
-        for (AdviceResponse currentResponse : responsesToBeSent) {
-            if (currentResponse.getUserId().equals(userId)) {
-                response = response == null ? currentResponse : response;
-                responsesToBeSent.remove(currentResponse);
-            }
+        List<AdviceInboxItem> oldest = adviceInboxRepository.findOldestForUpdate(userId, PageRequest.of(0, 1));
+        if (oldest.isEmpty()) {
+            return null;
         }
 
-        return response;
+        AdviceInboxItem item = oldest.get(0);
+        adviceInboxRepository.delete(item);
+        return new AdviceResponse(
+                item.getUserId(),
+                item.getMessage(),
+                item.getArguments() == null || item.getArguments().isEmpty()
+                        ? List.of()
+                        : Arrays.asList(item.getArguments().split(ARGUMENT_SEPARATOR)));
     }
 
-
+    public long getPendingCount() {
+        return persistent ? adviceInboxRepository.count() : inbox.size();
+    }
 }
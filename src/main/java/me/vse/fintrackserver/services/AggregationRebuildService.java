@@ -0,0 +1,180 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.Task;
+import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.TaskRepository;
+import me.vse.fintrackserver.rest.responses.AggregationRebuildStatusResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * # Služba pro úplný přepočet agregací
+ *
+ * Účty se rozdělí do oddílů podle hashe ID a oddíly se zpracují paralelně na omezeném poolu vláken.
+ * Každý účet se přepočítá ve vlastní DB transakci spolu s uložením kontrolního bodu do tabulky tasks,
+ * takže přerušený přepočet pokračuje od posledního dokončeného účtu.
+ */
+@Service
+public class AggregationRebuildService {
+
+    private static final String TASK_PREFIX = "AGGREGATION_REBUILD_";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TransactionAggregationService transactionAggregationService;
+
+    @Autowired
+    private TransactionStatisticsService transactionStatisticsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${aggregation.rebuild.threads:4}")
+    private int threads;
+
+    @Value("${aggregation.rebuild.partitions:16}")
+    private int partitions;
+
+    @Value("${aggregation.rebuild.batch-size:200}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong processedAccounts = new AtomicLong();
+    private final AtomicReference<String> lastError = new AtomicReference<>();
+
+    /**
+     * Spustí přepočet na pozadí. Nedokončené oddíly z předchozího běhu pokračují od kontrolního bodu,
+     * pokud není požadován restart.
+     */
+    public void start(String userId, boolean restart) {
+        checkAdmin(userId);
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalArgumentException(ErrorMessages.REBUILD_ALREADY_RUNNING.name());
+        }
+
+        try {
+            List<Task> tasks = prepareTasks(restart);
+            processedAccounts.set(0);
+            lastError.set(null);
+
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(partitions));
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int partition = 0; partition < tasks.size(); partition++) {
+                Task task = tasks.get(partition);
+                if (task.isFinished()) continue;
+                int currentPartition = partition;
+                futures.add(CompletableFuture.runAsync(() -> rebuildPartition(task, currentPartition), executor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .whenComplete((result, exception) -> {
+                        if (exception != null) {
+                            lastError.set(exception.getMessage());
+                        }
+                        executor.shutdown();
+                        running.set(false);
+                    });
+        } catch (RuntimeException exception) {
+            running.set(false);
+            throw exception;
+        }
+    }
+
+    public AggregationRebuildStatusResponse getStatus(String userId) {
+        checkAdmin(userId);
+        List<Task> tasks = taskRepository.findByNameStartingWith(TASK_PREFIX + partitions + "_");
+        return AggregationRebuildStatusResponse.builder()
+                .running(running.get())
+                .totalPartitions(partitions)
+                .finishedPartitions((int) tasks.stream().filter(Task::isFinished).count())
+                .processedAccounts(processedAccounts.get())
+                .lastError(lastError.get())
+                .build();
+    }
+
+    private List<Task> prepareTasks(boolean restart) {
+        List<Task> tasks = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            tasks.add(taskRepository.findByName(taskName(partition))
+                    .orElseGet(() -> Task.builder().isFinished(true).build()));
+        }
+
+        boolean allFinished = tasks.stream().allMatch(Task::isFinished);
+        for (int partition = 0; partition < partitions; partition++) {
+            Task task = tasks.get(partition);
+            if (restart || allFinished) {
+                task.setName(taskName(partition));
+                task.setCheckpoint(null);
+                task.setFinished(false);
+                task.setLastExecutedAt(LocalDateTime.now());
+                tasks.set(partition, taskRepository.save(task));
+            }
+        }
+        return tasks;
+    }
+
+    private void rebuildPartition(Task task, int partition) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String checkpoint = task.getCheckpoint();
+
+        while (true) {
+            List<String> accountIds = accountRepository.findIdsByPartition(
+                    partitions - 1, partition, checkpoint, PageRequest.of(0, batchSize));
+            if (accountIds.isEmpty()) break;
+
+            for (String accountId : accountIds) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    transactionAggregationService.rebuildAccount(accountId);
+                    transactionStatisticsService.rebuildAccount(accountId);
+                    taskRepository.updateCheckpoint(task.getId(), accountId);
+                });
+                processedAccounts.incrementAndGet();
+                checkpoint = accountId;
+            }
+        }
+
+        task.setCheckpoint(checkpoint);
+        task.setFinished(true);
+        task.setLastExecutedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> taskRepository.save(task));
+    }
+
+    private void checkAdmin(String userId) {
+        User user = userId == null ? null : entityManager.find(User.class, userId);
+        if (user == null) {
+            throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
+        }
+        if (!user.isAdmin()) {
+            throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
+        }
+    }
+
+    private String taskName(int partition) {
+        return TASK_PREFIX + partitions + "_" + partition;
+    }
+}
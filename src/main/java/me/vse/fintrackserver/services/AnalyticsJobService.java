@@ -0,0 +1,154 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.vse.fintrackserver.enums.AnalyticsJobStatus;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.rest.responses.AnalyticsJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * # Služba pro asynchronní analytické úlohy
+ *
+ * Analýza běží na omezeném poolu vláken mimo vlákna HTTP požadavků a výsledek se odešle
+ * na /topic/analytics/{accountId}. Pro jeden účet běží nejvýše jedna úloha, opakovaný požadavek
+ * dostane ID již rozpracované úlohy. Pracovní vlákno dostane jen ID účtu a načte si ho samo.
+ */
+@Service
+public class AnalyticsJobService {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private AccountAccessService accountAccessService;
+
+    @Value("${analytics.jobs.threads:4}")
+    private int threads;
+
+    @Value("${analytics.jobs.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${analytics.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    private Cache<String, AnalyticsJobResponse> jobs;
+
+    private final Map<String, String> inFlightJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("analytics-job-%d").setDaemon(true).build());
+        jobs = CacheBuilder.newBuilder()
+                .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Zařadí analýzu účtu do fronty a hned vrátí stav úlohy.
+     * @throws IllegalArgumentException pokud je fronta úloh plná
+     */
+    public AnalyticsJobResponse submit(Account account, String language) {
+        String accountId = account.getId();
+        AnalyticsJobResponse[] created = new AnalyticsJobResponse[1];
+
+        String jobId = inFlightJobs.computeIfAbsent(accountId, k -> {
+            AnalyticsJobResponse job = AnalyticsJobResponse.builder()
+                    .jobId(UUID.randomUUID().toString())
+                    .accountId(accountId)
+                    .status(AnalyticsJobStatus.QUEUED)
+                    .submittedAt(LocalDateTime.now())
+                    .build();
+            jobs.put(job.getJobId(), job);
+            created[0] = job;
+            return job.getJobId();
+        });
+
+        if (created[0] != null) {
+            try {
+                executor.execute(() -> run(created[0], accountId, language));
+            } catch (RejectedExecutionException exception) {
+                inFlightJobs.remove(accountId, jobId);
+                jobs.invalidate(jobId);
+                throw new IllegalArgumentException(ErrorMessages.ANALYTICS_JOB_QUEUE_FULL.name());
+            }
+            return created[0];
+        }
+
+        AnalyticsJobResponse job = jobs.getIfPresent(jobId);
+        return job != null ? job : AnalyticsJobResponse.builder()
+                .jobId(jobId)
+                .accountId(accountId)
+                .status(AnalyticsJobStatus.RUNNING)
+                .build();
+    }
+
+    /**
+     * Vrátí stav úlohy, pokud má uživatel právo číst její účet.
+     */
+    public AnalyticsJobResponse getJob(String jobId, String userId) {
+        AnalyticsJobResponse job = jobId == null ? null : jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException(ErrorMessages.ANALYTICS_JOB_DOESNT_EXIST.name());
+        }
+        if (userId == null || !accountAccessService.canRead(userId, job.getAccountId())) {
+            throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
+        }
+        return job;
+    }
+
+    private void run(AnalyticsJobResponse job, String accountId, String language) {
+        jobs.put(job.getJobId(), withStatus(job, AnalyticsJobStatus.RUNNING).build());
+        try {
+            Map<String, Object> result = analyticsService.analyzeAccountTransactions(accountId, language, job.getJobId());
+            jobs.put(job.getJobId(), withStatus(job, AnalyticsJobStatus.DONE)
+                    .finishedAt(LocalDateTime.now())
+                    .result(result)
+                    .build());
+        } catch (RuntimeException exception) {
+            jobs.put(job.getJobId(), withStatus(job, AnalyticsJobStatus.FAILED)
+                    .finishedAt(LocalDateTime.now())
+                    .error(exception.getMessage())
+                    .build());
+            messagingTemplate.convertAndSend("/topic/analytics/" + accountId, Map.of(
+                    "type", "ANALYTICS_JOB_FAILED",
+                    "jobId", job.getJobId()
+            ));
+        } finally {
+            inFlightJobs.remove(accountId, job.getJobId());
+        }
+    }
+
+    private AnalyticsJobResponse.AnalyticsJobResponseBuilder withStatus(AnalyticsJobResponse job,
+                                                                        AnalyticsJobStatus status) {
+        return AnalyticsJobResponse.builder()
+                .jobId(job.getJobId())
+                .accountId(job.getAccountId())
+                .submittedAt(job.getSubmittedAt())
+                .status(status);
+    }
+}
@@ -1,21 +1,33 @@
 package me.vse.fintrackserver.services;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import me.vse.fintrackserver.enums.ErrorMessages;
 import me.vse.fintrackserver.enums.FinancialAdviceMessage;
 import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.Transaction;
 import me.vse.fintrackserver.model.User;
-import me.vse.fintrackserver.models.Subscription;
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.repositories.TransactionRepository;
 import me.vse.fintrackserver.repositories.UserRepository;
+import me.vse.fintrackserver.rest.responses.AnalyticsCacheStatsResponse;
+import me.vse.fintrackserver.services.utils.StreamingStatistics;
+import me.vse.fintrackserver.services.utils.TransactionAnalyticsAccumulator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * # Služba pro analýzu finančních transakcí
@@ -29,9 +41,28 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
 
     private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
-    private final PushNotificationService pushNotificationService;
+    private final BudgetService budgetService;
+    private final TransactionStatisticsService transactionStatisticsService;
+
+    @Value("${analytics.cache.max-size:1000}")
+    private long cacheMaxSize;
+
+    @Value("${analytics.cache.expire-after-access-minutes:30}")
+    private long cacheExpireAfterAccessMinutes;
+
+    private Cache<String, TransactionAnalyticsAccumulator> accumulatorCache;
+
+    @PostConstruct
+    private void init() {
+        accumulatorCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterAccess(cacheExpireAfterAccessMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
 
     /**
      * # Získání uživatele podle ID
@@ -46,26 +77,22 @@ public class AnalyticsService {
 
     /**
      * # Generování finančních doporučení
-     * @param transactions Seznam transakcí
-     * @param categoryTotals Součty podle kategorií
-     * @param monthlyTotals Měsíční součty
-     * @param averageMonthlyExpense Průměrné měsíční výdaje
+     * @param accumulator Statistiky transakcí účtu
      * @param language Jazyk pro doporučení (en/cz)
      * @return Seznam doporučení
      */
     private List<Map<String, Object>> generateFinancialAdvice(
-            List<Transaction> transactions,
-            Map<String, Double> categoryTotals,
-            Map<String, Double> monthlyTotals,
-            double averageMonthlyExpense,
+            TransactionAnalyticsAccumulator accumulator,
             String language) {
         
         List<Map<String, Object>> advice = new ArrayList<>();
+        Map<YearMonth, Double> monthlyTotals = accumulator.getMonthlyTotals();
+        Map<String, Double> categoryTotals = accumulator.getCategoryTotals();
+        double averageMonthlyExpense = accumulator.getAverageMonthlyTotal();
 
         // Analýza trendu výdajů
         if (!monthlyTotals.isEmpty()) {
-            String currentMonth = LocalDateTime.now().getMonth().toString();
-            double currentMonthTotal = monthlyTotals.getOrDefault(currentMonth, 0.0);
+            double currentMonthTotal = monthlyTotals.getOrDefault(YearMonth.now(), 0.0);
             
             if (currentMonthTotal > averageMonthlyExpense * 1.2) {
                 double percentage = ((currentMonthTotal - averageMonthlyExpense) / averageMonthlyExpense) * 100;
@@ -112,31 +139,18 @@ public class AnalyticsService {
         }
 
         // Analýza frekvence transakcí
-        if (!transactions.isEmpty()) {
-            Map<String, Long> dayOfWeekCounts = transactions.stream()
-                    .collect(Collectors.groupingBy(
-                        t -> t.getExecutionDateTime().getDayOfWeek().toString(),
-                        Collectors.counting()
-                    ));
-
-            String mostFrequentDay = dayOfWeekCounts.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .get()
-                    .getKey();
-
-            advice.add(Map.of(
-                "type", "INFO",
-                "category", "TRANSACTION_PATTERN",
-                "message", String.format(
-                    FinancialAdviceMessage.TRANSACTION_DAY_PATTERN.getMessage(language),
-                    mostFrequentDay
-                ),
-                "data", Map.of(
-                    "dayOfWeek", mostFrequentDay,
-                    "transactionCounts", dayOfWeekCounts
-                )
-            ));
-        }
+        accumulator.getMostFrequentDay().ifPresent(mostFrequentDay -> advice.add(Map.of(
+            "type", "INFO",
+            "category", "TRANSACTION_PATTERN",
+            "message", String.format(
+                FinancialAdviceMessage.TRANSACTION_DAY_PATTERN.getMessage(language),
+                mostFrequentDay
+            ),
+            "data", Map.of(
+                "dayOfWeek", mostFrequentDay,
+                "transactionCounts", accumulator.getDayOfWeekCounts()
+            )
+        )));
 
         // Doporučení pro úspory
         if (averageMonthlyExpense > 0) {
@@ -158,84 +172,118 @@ public class AnalyticsService {
         return advice;
     }
 
+    /**
+     * # Jednoprůchodový výpočet statistik
+     * Výsledek se ukládá do cache pod ID účtu a verzí jeho dat, takže každá změna transakcí
+     * účtu vede na nový klíč a stará položka postupně vyprší.
+     * @param account Účet pro analýzu
+     * @return Statistiky spočtené nad úzkou projekcí transakcí účtu
+     */
+    private TransactionAnalyticsAccumulator accumulate(Account account) {
+        String key = account.getId() + ":" + account.getDataVersion();
+        TransactionAnalyticsAccumulator cached = accumulatorCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        try (Stream<TransactionAnalyticsRowDto> rows = transactionRepository.streamAnalyticsRowsByAccount(account)) {
+            rows.forEach(accumulator::accept);
+        }
+        accumulatorCache.put(key, accumulator);
+        return accumulator;
+    }
+
+    /**
+     * # Statistiky cache analytiky
+     * @return Počty zásahů a výpadků cache
+     */
+    public AnalyticsCacheStatsResponse getCacheStats() {
+        CacheStats stats = accumulatorCache.stats();
+        return AnalyticsCacheStatsResponse.builder()
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .size(accumulatorCache.size())
+                .build();
+    }
+
     /**
      * # Spuštění komplexní analýzy
      * @param account Účet pro analýzu
      * @param language Jazyk pro doporučení (en/cz)
      * @return Komplexní analýza účtu
      */
+    @Transactional
     public Map<String, Object> analyzeAccountTransactions(Account account, String language) {
-        List<Transaction> transactions = transactionRepository.findAllByAccount(account);
+        return analyzeAccountTransactions(account, language, null);
+    }
+
+    /**
+     * # Spuštění komplexní analýzy v rámci asynchronní úlohy
+     * Účet se načte znovu ve vlastní DB transakci pracovního vlákna.
+     * @param accountId ID účtu pro analýzu
+     * @param language Jazyk pro doporučení (en/cz)
+     * @param jobId ID úlohy, které se přidá do zprávy přes WebSocket
+     * @return Komplexní analýza účtu
+     * @throws IllegalArgumentException pokud účet mezitím zanikl
+     */
+    @Transactional
+    public Map<String, Object> analyzeAccountTransactions(String accountId, String language, String jobId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name()));
+        return analyzeAccountTransactions(account, language, jobId);
+    }
+
+    /**
+     * # Spuštění komplexní analýzy v rámci asynchronní úlohy
+     * @param account Účet pro analýzu
+     * @param language Jazyk pro doporučení (en/cz)
+     * @param jobId ID úlohy, které se přidá do zprávy přes WebSocket, nebo null
+     * @return Komplexní analýza účtu
+     */
+    @Transactional
+    public Map<String, Object> analyzeAccountTransactions(Account account, String language, String jobId) {
+        TransactionAnalyticsAccumulator accumulator = accumulate(account);
         
         Map<String, Object> result = new HashMap<>();
         
         // Anomální transakce
-        double mean = 0.0;
-        double threshold;
-        if (!transactions.isEmpty()) {
-            DescriptiveStatistics stats = new DescriptiveStatistics();
-            transactions.stream()
-                    .mapToDouble(Transaction::getAmount)
-                    .forEach(stats::addValue);
-
-            mean = stats.getMean();
-            double stdDev = stats.getStandardDeviation();
-            threshold = mean + (2 * stdDev);
-
-            List<Transaction> anomalousTransactions = transactions.stream()
-                    .filter(t -> t.getAmount() > threshold)
-                    .collect(Collectors.toList());
-            
-            result.put("anomalousTransactions", anomalousTransactions);
+        if (!accumulator.isEmpty()) {
+            StreamingStatistics statistics = transactionStatisticsService.getAccountStatistics(account);
+            boolean hasStatistics = account.isStatisticsBackfilled() && statistics.getCount() > 0;
+            double mean = hasStatistics ? statistics.getMean() : accumulator.getMean();
+            double threshold = hasStatistics
+                    ? statistics.getAnomalyThreshold()
+                    : mean + (2 * accumulator.getStandardDeviation());
+
+            result.put("anomalousTransactions",
+                    transactionRepository.findAllByAccountAndAmountGreaterThan(account, threshold));
             result.put("transactionThreshold", threshold);
             result.put("averageAmount", mean);
-        } else {
-            threshold = 0.0;
         }
 
         // Analýza kategorií
-        Map<String, Double> categoryTotals = transactions.stream()
-                .filter(t -> t.getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCategory().getName(),
-                        Collectors.summingDouble(Transaction::getAmount)
-                ));
-        result.put("categoryAnalysis", categoryTotals);
+        result.put("categoryAnalysis", accumulator.getCategoryTotals());
 
         // Predikce výdajů
-        Map<String, Double> monthlyTotals = new HashMap<>();
-        double averageMonthlyExpense = 0.0;
-        if (!transactions.isEmpty()) {
-            monthlyTotals = transactions.stream()
-                    .collect(Collectors.groupingBy(
-                            t -> t.getExecutionDateTime().getMonth().toString(),
-                            Collectors.summingDouble(Transaction::getAmount)
-                    ));
-
-            averageMonthlyExpense = monthlyTotals.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
-            
-            result.put("predictedNextMonthExpense", averageMonthlyExpense);
-            result.put("monthlyTotals", monthlyTotals);
+        if (!accumulator.isEmpty()) {
+            result.put("predictedNextMonthExpense", accumulator.getAverageMonthlyTotal());
+            result.put("monthlyTotals", accumulator.getMonthlyTotalsByKey());
         }
 
         // Generování doporučení
-        List<Map<String, Object>> advice = generateFinancialAdvice(
-            transactions,
-            categoryTotals,
-            monthlyTotals,
-            averageMonthlyExpense,
-            language
-        );
-        result.put("financialAdvice", advice);
+        result.put("financialAdvice", generateFinancialAdvice(accumulator, language));
 
         // Základní statistiky
-        result.put("totalTransactions", transactions.size());
+        result.put("totalTransactions", accumulator.getCount());
         result.put("accountId", account.getId());
         result.put("accountName", account.getName());
         result.put("analysisTimestamp", LocalDateTime.now());
+        if (jobId != null) {
+            result.put("jobId", jobId);
+        }
 
         // Odeslání notifikace přes WebSocket
         messagingTemplate.convertAndSend(
@@ -246,63 +294,16 @@ public class AnalyticsService {
         return result;
     }
 
-    /**
-     * # Kontrola limitů rozpočtu
-     * @param newTransaction Nová transakce
-     */
-    public void checkBudgetLimits(Transaction newTransaction) {
-        Account account = newTransaction.getAccount();
-        List<Transaction> monthTransactions = transactionRepository.findAllByAccountAndDaysBetween(
-                account,
-                LocalDateTime.now().withDayOfMonth(1),
-                LocalDateTime.now()
-        );
-
-        double monthlyTotal = monthTransactions.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-
-        double monthlyLimit = 50000.0;
-
-        if (monthlyTotal > monthlyLimit) {
-            Map<String, Object> notification = new HashMap<>();
-            notification.put("type", "BUDGET_LIMIT_EXCEEDED");
-            notification.put("currentTotal", monthlyTotal);
-            notification.put("limit", monthlyLimit);
-            notification.put("accountId", account.getId());
-            
-            messagingTemplate.convertAndSend(
-                "/topic/analytics/" + account.getId(),
-                notification
-            );
-
-            // Send push notification to account owner
-            account.getUserRights().stream()
-                .filter(right -> right.isOwner())
-                .map(right -> right.getUser())
-                .findFirst()
-                .ifPresent(owner -> {
-                    Subscription subscription = pushNotificationService.getUserSubscription(owner.getId().toString());
-                    if (subscription != null) {
-                        pushNotificationService.sendNotification(
-                            subscription,
-                            String.format("Budget Alert: Account %s spending (%.2f) has exceeded the limit (%.2f)", 
-                                account.getName(), monthlyTotal, monthlyLimit)
-                        );
-                    }
-                });
-        }
-    }
-
     /**
      * # Získání souhrnné analýzy
      * @param account Účet pro analýzu
      * @return Souhrnná analýza
      */
+    @Transactional
     public Map<String, Object> getAnalyticsSummary(Account account) {
-        List<Transaction> transactions = transactionRepository.findAllByAccount(account);
+        TransactionAnalyticsAccumulator accumulator = accumulate(account);
         
-        if (transactions.isEmpty()) {
+        if (accumulator.isEmpty()) {
             return Map.of(
                 "totalTransactions", 0,
                 "totalAmount", 0.0,
@@ -311,20 +312,16 @@ public class AnalyticsService {
             );
         }
 
-        double totalAmount = transactions.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-
-        double avgAmount = totalAmount / transactions.size();
+        List<String> recentIds = accumulator.getRecentTransactionIds();
+        List<Transaction> recentTransactions = transactionRepository.findAllById(recentIds).stream()
+                .sorted(Comparator.comparing(transaction -> recentIds.indexOf(transaction.getId())))
+                .collect(Collectors.toList());
 
         return Map.of(
-            "totalTransactions", transactions.size(),
-            "totalAmount", totalAmount,
-            "averageAmount", avgAmount,
-            "recentTransactions", transactions.stream()
-                .sorted(Comparator.comparing(Transaction::getExecutionDateTime).reversed())
-                .limit(5)
-                .collect(Collectors.toList())
+            "totalTransactions", accumulator.getCount(),
+            "totalAmount", accumulator.getTotalAmount(),
+            "averageAmount", accumulator.getMean(),
+            "recentTransactions", recentTransactions
         );
     }
 
@@ -333,22 +330,18 @@ public class AnalyticsService {
      * @param account Účet pro analýzu
      * @return Analýza kategorií
      */
+    @Transactional
     public Map<String, Object> getCategoryAnalytics(Account account) {
-        List<Transaction> transactions = transactionRepository.findAllByAccount(account);
+        TransactionAnalyticsAccumulator accumulator = accumulate(account);
         
-        if (transactions.isEmpty()) {
+        if (accumulator.isEmpty()) {
             return Map.of(
                 "categoryTotals", Collections.emptyMap(),
                 "topCategories", Collections.emptyMap()
             );
         }
 
-        Map<String, Double> categoryTotals = transactions.stream()
-                .filter(t -> t.getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCategory().getName(),
-                        Collectors.summingDouble(Transaction::getAmount)
-                ));
+        Map<String, Double> categoryTotals = accumulator.getCategoryTotals();
 
         Map<String, Double> topCategories = categoryTotals.entrySet().stream()
                 .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
@@ -372,41 +365,7 @@ public class AnalyticsService {
      * @return Stav rozpočtu
      */
     public Map<String, Object> getBudgetStatus(Account account) {
-        List<Transaction> monthTransactions = transactionRepository.findAllByAccountAndDaysBetween(
-                account,
-                LocalDateTime.now().withDayOfMonth(1),
-                LocalDateTime.now()
-        );
-
-        double monthlyTotal = monthTransactions.stream()
-                .mapToDouble(Transaction::getAmount)
-                .sum();
-
-        double monthlyLimit = 50000.0;
-        double remainingBudget = monthlyLimit - monthlyTotal;
-
-        if (monthlyTotal > monthlyLimit) {
-            account.getUserRights().stream()
-                .filter(right -> right.isOwner())
-                .map(right -> right.getUser())
-                .findFirst()
-                .ifPresent(owner -> {
-                    Subscription subscription = pushNotificationService.getUserSubscription(owner.getId().toString());
-                    if (subscription != null) {
-                        pushNotificationService.sendNotification(
-                            subscription,
-                            String.format("Budget Alert: Account %s spending (%.2f) has exceeded the limit (%.2f)", 
-                                account.getName(), monthlyTotal, monthlyLimit)
-                        );
-                    }
-                });
-        }
-
-        return Map.of(
-            "currentSpending", monthlyTotal,
-            "budgetLimit", monthlyLimit,
-            "remainingBudget", remainingBudget
-        );
+        return budgetService.getStatus(account);
     }
 
     /**
@@ -415,89 +374,14 @@ public class AnalyticsService {
      * @param language Jazyk pro doporučení (en/cz)
      * @return Náhodné doporučení jako text
      */
+    @Transactional
     public String getRandomFinancialAdvice(Account account, String language) {
-        List<Transaction> transactions = transactionRepository.findAllByAccount(account);
-        
-        Map<String, Double> categoryTotals = transactions.stream()
-                .filter(t -> t.getCategory() != null)
-                .collect(Collectors.groupingBy(
-                        t -> t.getCategory().getName(),
-                        Collectors.summingDouble(Transaction::getAmount)
-                ));
-
-        Map<String, Double> monthlyTotals = new HashMap<>();
-        double averageMonthlyExpense = 0.0;
-        if (!transactions.isEmpty()) {
-            monthlyTotals = transactions.stream()
-                    .collect(Collectors.groupingBy(
-                            t -> t.getExecutionDateTime().getMonth().toString(),
-                            Collectors.summingDouble(Transaction::getAmount)
-                    ));
-
-            averageMonthlyExpense = monthlyTotals.values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .average()
-                    .orElse(0.0);
-        }
-
-        List<String> possibleAdvice = new ArrayList<>();
-
-        if (!monthlyTotals.isEmpty()) {
-            String currentMonth = LocalDateTime.now().getMonth().toString();
-            double currentMonthTotal = monthlyTotals.getOrDefault(currentMonth, 0.0);
-            if (currentMonthTotal > averageMonthlyExpense * 1.2) {
-                double percentage = ((currentMonthTotal - averageMonthlyExpense) / averageMonthlyExpense) * 100;
-                possibleAdvice.add(String.format(
-                    FinancialAdviceMessage.HIGH_SPENDING_WARNING.getMessage(language),
-                    percentage
-                ));
-            }
-        }
-
-        if (!categoryTotals.isEmpty()) {
-            Map.Entry<String, Double> highestCategory = categoryTotals.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .get();
-            double totalSpent = categoryTotals.values().stream().mapToDouble(Double::doubleValue).sum();
-            double categoryPercentage = (highestCategory.getValue() / totalSpent) * 100;
-            if (categoryPercentage > 40) {
-                possibleAdvice.add(String.format(
-                    FinancialAdviceMessage.HIGH_CATEGORY_SPENDING.getMessage(language),
-                    highestCategory.getKey(), categoryPercentage
-                ));
-            }
-        }
-
-        if (!transactions.isEmpty()) {
-            Map<String, Long> dayOfWeekCounts = transactions.stream()
-                    .collect(Collectors.groupingBy(
-                        t -> t.getExecutionDateTime().getDayOfWeek().toString(),
-                        Collectors.counting()
-                    ));
-            String mostFrequentDay = dayOfWeekCounts.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .get()
-                    .getKey();
-            possibleAdvice.add(String.format(
-                FinancialAdviceMessage.TRANSACTION_DAY_PATTERN.getMessage(language),
-                mostFrequentDay
-            ));
-        }
-
-        if (averageMonthlyExpense > 0) {
-            double recommendedSavings = averageMonthlyExpense * 0.2;
-            possibleAdvice.add(String.format(
-                FinancialAdviceMessage.MONTHLY_SAVINGS_RECOMMENDATION.getMessage(language),
-                averageMonthlyExpense, recommendedSavings
-            ));
-        }
+        List<String> possibleAdvice = generateFinancialAdvice(accumulate(account), language).stream()
+                .map(advice -> (String) advice.get("message"))
+                .collect(Collectors.toList());
 
         possibleAdvice.add(FinancialAdviceMessage.BUDGET_PLANNING_ADVICE.getMessage(language));
-        
-        if (possibleAdvice.isEmpty()) {
-            possibleAdvice.add(FinancialAdviceMessage.BUDGET_PLANNING_ADVICE.getMessage(language));
-        }
 
         return possibleAdvice.get(new Random().nextInt(possibleAdvice.size()));
     }
-} 
\ No newline at end of file
+}
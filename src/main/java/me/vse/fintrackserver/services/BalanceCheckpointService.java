@@ -0,0 +1,158 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.BalanceCheckpoint;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.BalanceCheckpointRepository;
+import me.vse.fintrackserver.repositories.PostingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * # Služba pro kontrolní body zůstatku
+ *
+ * Kontrolní bod drží čistý tok účtu (příjmy - výdaje) všech transakcí před okamžikem checkpointAt.
+ * Zůstatek k datu je pak součet nejbližšího kontrolního bodu a krátkého zbytku transakcí za ním.
+ * Zpětně zadané nebo upravené transakce posouvají všechny pozdější kontrolní body přes applyDelta.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final int ACCOUNT_BATCH_SIZE = 200;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PostingRepository postingRepository;
+
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${balance.checkpoint.every-transactions:500}")
+    private int checkpointEveryTransactions;
+
+    /**
+     * Promítne změnu čistého toku do všech kontrolních bodů po datu provedení transakce.
+     * Musí běžet ve stejné DB transakci jako zápis transakce.
+     */
+    public void applyDelta(Account account, LocalDateTime executedAt, double netDelta) {
+        if (executedAt == null || netDelta == 0.0) {
+            return;
+        }
+        balanceCheckpointRepository.addDelta(account, executedAt, netDelta);
+    }
+
+    /**
+     * Smaže kontrolní body účtu, noční úloha je vytvoří znovu z aktuálních transakcí.
+     */
+    public void deleteCheckpoints(String accountId) {
+        balanceCheckpointRepository.deleteByAccountId(accountId);
+    }
+
+    /**
+     * Čistý tok účtu (bez počátečního zůstatku) ke zvolenému okamžiku včetně.
+     */
+    public double getNetFlowAsOf(Account account, LocalDateTime endDate) {
+        Optional<BalanceCheckpoint> checkpoint = balanceCheckpointRepository
+                .findFirstByAccountAndCheckpointAtLessThanEqualOrderByCheckpointAtDesc(account, endDate);
+
+        if (checkpoint.isEmpty()) {
+            return postingRepository.getNetFlow(account.getId(), endDate);
+        }
+
+        return checkpoint.get().getNetFlow()
+                + postingRepository.getNetFlow(account.getId(), checkpoint.get().getCheckpointAt(), endDate);
+    }
+
+    /**
+     * Doplní kontrolní body ke každému začátku měsíce a po každých N transakcích od posledního bodu.
+     * Účet je při tom zamčený stejně jako při zápisu transakce, takže se mezi čtením čistého toku
+     * a uložením bodu nemůže objevit transakce, kterou by applyDelta do nového bodu nepromítla.
+     * Při více instancích proběhne v daný den jen na jedné z nich.
+     */
+    @Scheduled(cron = "0 30 0 * * *")
+    public void createCheckpoints() {
+        jobLeaseService.runOnce("BALANCE_CHECKPOINTS", LocalDate.now().toString(),
+                jobLeaseService.getDefaultLease(), this::createAllCheckpoints);
+    }
+
+    private void createAllCheckpoints() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String lastId = null;
+
+        while (true) {
+            List<String> accountIds = accountRepository.findIdsAfter(lastId, PageRequest.of(0, ACCOUNT_BATCH_SIZE));
+            if (accountIds.isEmpty()) break;
+
+            for (String accountId : accountIds) {
+                transactionTemplate.executeWithoutResult(status -> createCheckpoints(accountId));
+            }
+            lastId = accountIds.get(accountIds.size() - 1);
+        }
+    }
+
+    private void createCheckpoints(String accountId) {
+        accountRepository.lockForUpdate(List.of(accountId));
+        Account account = entityManager.getReference(Account.class, accountId);
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+
+        Optional<BalanceCheckpoint> last = balanceCheckpointRepository.findFirstByAccountOrderByCheckpointAtDesc(account);
+        LocalDateTime from = last.map(BalanceCheckpoint::getCheckpointAt).orElse(null);
+        double netFlow = last.map(BalanceCheckpoint::getNetFlow).orElse(0.0);
+
+        LocalDateTime start = from != null ? from : postingRepository.findFirstExecutionDateTime(accountId);
+        if (start == null) {
+            return;
+        }
+
+        LocalDateTime boundary = start.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+        while (!boundary.isAfter(today)) {
+            netFlow += netFlowBetween(account, from, boundary);
+            save(account, boundary, netFlow);
+            from = boundary;
+            boundary = boundary.plusMonths(1);
+        }
+
+        if ((from == null || from.isBefore(today))
+                && postingRepository.countBetween(accountId, from != null ? from : start, today)
+                    >= checkpointEveryTransactions) {
+            netFlow += netFlowBetween(account, from, today);
+            save(account, today, netFlow);
+        }
+    }
+
+    private double netFlowBetween(Account account, LocalDateTime from, LocalDateTime to) {
+        return from == null
+                ? postingRepository.getNetFlow(account.getId(), to.minusNanos(1))
+                : postingRepository.getNetFlow(account.getId(), from, to.minusNanos(1));
+    }
+
+    private void save(Account account, LocalDateTime checkpointAt, double netFlow) {
+        balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+                .account(account)
+                .checkpointAt(checkpointAt)
+                .netFlow(netFlow)
+                .build());
+    }
+}
@@ -0,0 +1,329 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.RollupGranularity;
+import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.models.Subscription;
+import me.vse.fintrackserver.repositories.BudgetRepository;
+import me.vse.fintrackserver.repositories.TransactionRollupRepository;
+import me.vse.fintrackserver.rest.requests.BudgetRequest;
+import me.vse.fintrackserver.rest.responses.BudgetResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * # Služba pro měsíční rozpočty účtů
+ *
+ * Každý rozpočet drží čítač výdajů od začátku měsíce, který se mění spolu se zápisem transakce.
+ * Kontrola překročení limitu je proto jen porovnání čítače s limitem, bez dotazu na transakce měsíce.
+ */
+@Service
+@AllArgsConstructor
+@Builder
+public class BudgetService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private BudgetRepository budgetRepository;
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private PushNotificationService pushNotificationService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private AccountAccessService accountAccessService;
+
+    public List<BudgetResponse> getAll(String accountId, String userId) {
+        Account account = getAccountWithRights(accountId, userId, false);
+        LocalDate periodStart = currentPeriodStart();
+        return budgetRepository.findAllByAccount(account).stream()
+                .map(budget -> toResponse(budget, periodStart))
+                .toList();
+    }
+
+    /**
+     * Založí rozpočet, nebo změní limit existujícího rozpočtu pro stejný účet a kategorii.
+     * Nový rozpočet převezme dosavadní výdaje měsíce z měsíčních součtů.
+     */
+    @Transactional
+    public BudgetResponse save(BudgetRequest request) {
+        if (request.getMonthlyLimit() == null || request.getMonthlyLimit() <= 0) {
+            throw new IllegalArgumentException(ErrorMessages.INCORRECT_BUDGET_LIMIT.name());
+        }
+
+        Account account = getAccountWithRights(request.getAccountId(), request.getUserId(), true);
+        Category category = null;
+        if (request.getCategoryId() != null) {
+            category = entityManager.find(Category.class, request.getCategoryId());
+            if (category == null) {
+                throw new IllegalArgumentException(ErrorMessages.CATEGORY_DOESNT_EXIST.name());
+            }
+        }
+
+        LocalDate periodStart = currentPeriodStart();
+        Budget budget = (category == null
+                ? budgetRepository.findByAccount(account)
+                : budgetRepository.findByAccountAndCategory(account, category))
+                .orElse(null);
+
+        if (budget == null) {
+            LocalDate periodEnd = periodStart.plusMonths(1);
+            double spent = (category == null
+                    ? transactionRollupRepository.sumTotals(account, RollupGranularity.MONTH, periodStart, periodEnd)
+                    : transactionRollupRepository.sumCategoryTotals(
+                            account, category, RollupGranularity.MONTH, periodStart, periodEnd))
+                    .getTotalExpense();
+            budget = Budget.builder()
+                    .account(account)
+                    .category(category)
+                    .spentMonthToDate(spent)
+                    .periodStart(periodStart)
+                    .build();
+        }
+
+        budget.setMonthlyLimit(request.getMonthlyLimit());
+        return toResponse(budgetRepository.save(budget), periodStart);
+    }
+
+    @Transactional
+    public BudgetResponse delete(String id, String userId) {
+        Budget budget = id == null ? null : entityManager.find(Budget.class, id);
+        if (budget == null) {
+            throw new IllegalArgumentException(ErrorMessages.BUDGET_DOESNT_EXIST.name());
+        }
+
+        getAccountWithRights(budget.getAccount().getId(), userId, true);
+        budgetRepository.delete(budget);
+        return toResponse(budget, currentPeriodStart());
+    }
+
+    /**
+     * Připočte výdaj transakce k rozpočtům účtu a ohlásí rozpočty, které tím překročily limit.
+     * Musí běžet ve stejné DB transakci jako zápis transakce.
+     */
+    public void applySpend(Transaction transaction) {
+        applySpendDelta(transaction, 1);
+    }
+
+    /**
+     * Připočte výdaje dávky transakcí. Výdaje se sečtou po účtech a kategoriích,
+     * takže se rozpočty zamknou a upraví jednou za skupinu, ne za každou transakci.
+     */
+    public void applySpendAll(Collection<Transaction> transactions) {
+        Map<String, Transaction> samples = new LinkedHashMap<>();
+        Map<String, Double> spends = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            double spend = spendOf(transaction);
+            if (spend == 0.0 || !isCurrentPeriod(transaction)) {
+                continue;
+            }
+            String key = transaction.getAccount().getId() + "|"
+                    + (transaction.getCategory() != null ? transaction.getCategory().getId() : "");
+            samples.putIfAbsent(key, transaction);
+            spends.merge(key, spend, Double::sum);
+        }
+
+        samples.forEach((key, transaction) ->
+                addSpend(transaction.getAccount(), transaction.getCategory(), spends.get(key)));
+    }
+
+    /**
+     * Odečte výdaj transakce z rozpočtů, volá se před změnou nebo smazáním transakce.
+     */
+    public void revertSpend(Transaction transaction) {
+        applySpendDelta(transaction, -1);
+    }
+
+    /**
+     * Na začátku měsíce vynuluje čítače všech rozpočtů jedním příkazem, při více instancích jen jednou.
+     */
+    @Scheduled(cron = "0 0 0 1 * *")
+    @Transactional
+    public void rollOverBudgets() {
+        LocalDate periodStart = currentPeriodStart();
+        jobLeaseService.runOnce("BUDGET_ROLLOVER", YearMonth.from(periodStart).toString(),
+                jobLeaseService.getDefaultLease(), () -> budgetRepository.rollOver(periodStart));
+    }
+
+    /**
+     * # Stav celkového rozpočtu účtu
+     * @param account Účet pro kontrolu
+     * @return Výdaje od začátku měsíce, limit a zbývající část rozpočtu
+     */
+    public Map<String, Object> getStatus(Account account) {
+        LocalDate periodStart = currentPeriodStart();
+        Map<String, Object> status = new HashMap<>();
+
+        budgetRepository.findByAccount(account).ifPresentOrElse(budget -> {
+            BudgetResponse response = toResponse(budget, periodStart);
+            status.put("currentSpending", response.getSpentMonthToDate());
+            status.put("budgetLimit", response.getMonthlyLimit());
+            status.put("remainingBudget", response.getRemainingBudget());
+        }, () -> status.put("currentSpending", transactionRollupRepository
+                .sumTotals(account, RollupGranularity.MONTH, periodStart, periodStart.plusMonths(1))
+                .getTotalExpense()));
+
+        return status;
+    }
+
+    private void applySpendDelta(Transaction transaction, int sign) {
+        double spend = spendOf(transaction);
+        if (spend == 0.0 || !isCurrentPeriod(transaction)) {
+            return;
+        }
+        addSpend(transaction.getAccount(), transaction.getCategory(), sign * spend);
+    }
+
+    private boolean isCurrentPeriod(Transaction transaction) {
+        return YearMonth.from(transaction.getExecutionDateTime()).equals(YearMonth.from(currentPeriodStart()));
+    }
+
+    private void addSpend(Account account, Category category, double spend) {
+        LocalDate periodStart = currentPeriodStart();
+        for (Budget budget : budgetRepository.findAffectedForUpdate(account, category)) {
+            if (budget.getPeriodStart() == null || budget.getPeriodStart().isBefore(periodStart)) {
+                budget.setSpentMonthToDate(0.0);
+                budget.setPeriodStart(periodStart);
+            }
+
+            boolean wasExceeded = budget.getSpentMonthToDate() > budget.getMonthlyLimit();
+            budget.setSpentMonthToDate(budget.getSpentMonthToDate() + spend);
+
+            if (!wasExceeded && budget.getSpentMonthToDate() > budget.getMonthlyLimit()) {
+                notifyExceeded(account, budget);
+            }
+        }
+    }
+
+    /**
+     * Výdaj transakce z pohledu jejího účtu, stejně jako v agregacích: výdaje, náklady
+     * a odchozí převody mimo vlastní účet.
+     */
+    private double spendOf(Transaction transaction) {
+        if (transaction == null || transaction.getAccount() == null || transaction.getType() == null
+                || transaction.getExecutionDateTime() == null) {
+            return 0.0;
+        }
+
+        return switch (transaction.getType()) {
+            case EXPENSE, COST -> transaction.getAmount();
+            case TRANSFER -> transaction.getReceiver() != null
+                    && Objects.equals(transaction.getReceiver().getId(), transaction.getAccount().getId())
+                    ? 0.0
+                    : transaction.getAmount();
+            default -> 0.0;
+        };
+    }
+
+    /**
+     * Upozornění se odešle až po commitu, aby se neposílalo během držení zámků rozpočtů
+     * ani pro transakci, která se nakonec odvolá.
+     */
+    private void notifyExceeded(Account account, Budget budget) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", "BUDGET_LIMIT_EXCEEDED");
+        notification.put("currentTotal", budget.getSpentMonthToDate());
+        notification.put("limit", budget.getMonthlyLimit());
+        notification.put("accountId", account.getId());
+        if (budget.getCategory() != null) {
+            notification.put("categoryId", budget.getCategory().getId());
+        }
+
+        String destination = "/topic/analytics/" + account.getId();
+        String ownerId = account.getUserRights() == null ? null : account.getUserRights().stream()
+                .filter(AccountUserRights::isOwner)
+                .map(rights -> rights.getUser().getId())
+                .findFirst()
+                .orElse(null);
+        String message = String.format("Budget Alert: Account %s spending (%.2f) has exceeded the limit (%.2f)",
+                account.getName(), budget.getSpentMonthToDate(), budget.getMonthlyLimit());
+
+        Runnable send = () -> {
+            messagingTemplate.convertAndSend(destination, notification);
+            if (ownerId == null) {
+                return;
+            }
+            Subscription subscription = pushNotificationService.getUserSubscription(ownerId);
+            if (subscription != null) {
+                pushNotificationService.sendNotification(subscription, message);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send.run();
+            }
+        });
+    }
+
+    private Account getAccountWithRights(String accountId, String userId, boolean write) {
+        Account account = accountId == null ? null : entityManager.find(Account.class, accountId);
+        if (account == null) {
+            throw new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name());
+        }
+
+        User user = userId == null ? null : entityManager.find(User.class, userId);
+        if (user == null) {
+            throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
+        }
+
+        boolean permitted = write
+                ? accountAccessService.canWrite(userId, accountId)
+                : accountAccessService.canRead(userId, accountId);
+        if (!permitted) {
+            throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
+        }
+        return account;
+    }
+
+    private BudgetResponse toResponse(Budget budget, LocalDate periodStart) {
+        boolean isCurrent = budget.getPeriodStart() != null && !budget.getPeriodStart().isBefore(periodStart);
+        double spent = isCurrent ? budget.getSpentMonthToDate() : 0.0;
+        return BudgetResponse.builder()
+                .id(budget.getId())
+                .accountId(budget.getAccount().getId())
+                .categoryId(budget.getCategory() != null ? budget.getCategory().getId() : null)
+                .categoryName(budget.getCategory() != null ? budget.getCategory().getName() : null)
+                .monthlyLimit(budget.getMonthlyLimit())
+                .spentMonthToDate(spent)
+                .remainingBudget(budget.getMonthlyLimit() - spent)
+                .periodStart(periodStart)
+                .build();
+    }
+
+    private LocalDate currentPeriodStart() {
+        return LocalDate.now().withDayOfMonth(1);
+    }
+}
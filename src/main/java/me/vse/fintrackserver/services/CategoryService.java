@@ -10,11 +10,13 @@ import me.vse.fintrackserver.model.Asset;
 import me.vse.fintrackserver.model.Category;
 import me.vse.fintrackserver.model.User;
 import me.vse.fintrackserver.model.dto.CategoryDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.repositories.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @AllArgsConstructor
@@ -29,6 +31,9 @@ public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Transactional
     public List<Category> getAll(String userId) {
         if (userId == null) {
@@ -79,8 +84,13 @@ public class CategoryService {
             throw new IllegalArgumentException(ErrorMessages.CATEGORY_DOESNT_EXIST.name());
         }
 
+        String previousName = category.getName();
         categoryMapper.updateCategoryMapperFromDto(categoryDto, category);
         categoryRepository.save(category);
+        if (!Objects.equals(previousName, category.getName())) {
+            // Analytika seskupuje podle názvu kategorie, přejmenování musí zneplatnit cache účtů
+            accountRepository.incrementDataVersionByCategoryId(id);
+        }
         return category;
     }
 
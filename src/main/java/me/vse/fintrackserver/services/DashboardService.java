@@ -0,0 +1,158 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.AccountType;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Asset;
+import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.model.dto.AccountAggregationDTO;
+import me.vse.fintrackserver.model.dto.AccountSummaryDto;
+import me.vse.fintrackserver.repositories.AggregationRepository;
+import me.vse.fintrackserver.repositories.AssetRepository;
+import me.vse.fintrackserver.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * # Služba pro přehled všech účtů uživatele
+ *
+ * Zůstatek, příjmy, výdaje a čisté jmění všech dostupných účtů se spočítají pevným počtem
+ * seskupených dotazů (GROUP BY účet), které běží souběžně.
+ */
+@Service
+public class DashboardService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    @Lazy
+    private AccountService accountService;
+
+    @Autowired
+    private AssetService assetService;
+
+    @Autowired
+    private AggregationRepository aggregationRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Value("${dashboard.threads:4}")
+    private int threads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    private void init() {
+        executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("dashboard-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<AccountSummaryDto> getDashboard(String userId) {
+        User user = userId == null ? null : entityManager.find(User.class, userId);
+        if (user == null) {
+            throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
+        }
+
+        List<Account> accounts = accountService.retrieveAll(userId);
+        if (accounts.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> accountIds = accounts.stream().map(Account::getId).collect(Collectors.toSet());
+        Set<String> businessAccountIds = accounts.stream()
+                .filter(account -> AccountType.BUSINESS_ACCOUNT.equals(account.getType()))
+                .map(Account::getId)
+                .collect(Collectors.toSet());
+
+        CompletableFuture<Map<String, AccountAggregationDTO>> totalsFuture = supply(() ->
+                byAccountId(aggregationRepository.getTotalIncomeAndExpenseByAccountIds(accountIds)));
+        CompletableFuture<Map<String, AccountAggregationDTO>> businessFuture = supply(() ->
+                businessAccountIds.isEmpty()
+                        ? Map.of()
+                        : byAccountId(transactionRepository.getRevenueAndCostByAccountIds(businessAccountIds)));
+        CompletableFuture<Map<String, Double>> assetsFuture = supply(() ->
+                assetRepository.findActiveByAccountIds(accountIds).stream()
+                        .collect(Collectors.groupingBy(asset -> asset.getAccount().getId(),
+                                Collectors.summingDouble(this::getAssetValue))));
+
+        Map<String, AccountAggregationDTO> totals = join(totalsFuture);
+        Map<String, AccountAggregationDTO> businessTotals = join(businessFuture);
+        Map<String, Double> assetValues = join(assetsFuture);
+
+        return accounts.stream()
+                .sorted(Comparator.comparing(Account::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(account -> toSummary(account, totals.get(account.getId()),
+                        businessTotals.get(account.getId()), assetValues.getOrDefault(account.getId(), 0.0)))
+                .toList();
+    }
+
+    private AccountSummaryDto toSummary(Account account, AccountAggregationDTO totals,
+                                        AccountAggregationDTO businessTotals, double assetsValue) {
+        double income = totals != null && totals.getTotalIncome() != null ? totals.getTotalIncome() : 0.0;
+        double expense = totals != null && totals.getTotalExpense() != null ? totals.getTotalExpense() : 0.0;
+        double balance = account.getInitialAmount() + income - expense;
+
+        double netWorth = AccountType.BUSINESS_ACCOUNT.equals(account.getType())
+                ? account.getInitialAmount() + assetsValue
+                    + (businessTotals != null ? businessTotals.getTotalIncome() - businessTotals.getTotalExpense() : 0.0)
+                : balance + assetsValue;
+
+        return AccountSummaryDto.builder()
+                .id(account.getId())
+                .name(account.getName())
+                .type(account.getType())
+                .currency(account.getCurrency())
+                .emoji(account.getEmoji())
+                .balance(balance)
+                .income(income)
+                .expense(-expense)
+                .netWorth(netWorth)
+                .build();
+    }
+
+    private double getAssetValue(Asset asset) {
+        Double price = assetService.getCurrentAssetPrice(asset);
+        return price != null ? price : 0.0;
+    }
+
+    private Map<String, AccountAggregationDTO> byAccountId(List<AccountAggregationDTO> rows) {
+        return rows.stream().collect(Collectors.toMap(AccountAggregationDTO::getAccountId, Function.identity()));
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+}
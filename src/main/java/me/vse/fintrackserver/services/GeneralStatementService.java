@@ -1,33 +1,67 @@
 package me.vse.fintrackserver.services;
 
 import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import me.vse.fintrackserver.enums.ErrorMessages;
 import me.vse.fintrackserver.enums.TransactionTypes;
 import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.Asset;
 import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.model.dto.StatementLineDto;
 import me.vse.fintrackserver.model.generalstatement.FinancialElement;
 import me.vse.fintrackserver.model.generalstatement.FinancialElementRow;
+import me.vse.fintrackserver.repositories.TransactionRepository;
+import me.vse.fintrackserver.services.utils.StatementColumn;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.jxls.common.Context;
 import org.jxls.util.JxlsHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 @Service
 public class GeneralStatementService {
 
+    private static final String TEMPLATE_PATH = "templates/general_statement_template.xlsx";
+    private static final int FIRST_ELEMENT_ROW = 7;
+    private static final int[] COLUMN_OFFSETS = {0, 4, 8, 12};
+
     @Autowired
     private AssetService assetService;
 
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountAccessService accountAccessService;
+
+    @Value("${statement.row-window:100}")
+    private int rowWindow;
+
     private final Map<String, Map<String, String>> language = new HashMap<>();
 
     public GeneralStatementService() {
@@ -72,9 +106,7 @@ public class GeneralStatementService {
 
         if (account == null) return null;
 
-        String templatePath = "templates/general_statement_template.xlsx";
-
-        InputStream inputStream = new ClassPathResource(templatePath).getInputStream();
+        InputStream inputStream = new ClassPathResource(TEMPLATE_PATH).getInputStream();
         Context context = new Context();
 
         // Step 1: Set date
@@ -222,4 +254,203 @@ public class GeneralStatementService {
         context.putVar("assets", assetElements);
     }
 
+    /**
+     * Podporovaný jazyk výkazu, neznámý jazyk se nahradí angličtinou.
+     */
+    public String resolveLanguage(String lang) {
+        return lang != null && language.containsKey(lang) ? lang : "en";
+    }
+
+    /**
+     * Ověří, že účet existuje a uživatel k němu má přístup. Volá se před zahájením streamování,
+     * dokud lze ještě vrátit chybový stav.
+     */
+    @Transactional
+    public void checkAccess(String accountId, String userId) {
+        Account account = accountId == null ? null : entityManager.find(Account.class, accountId);
+        if (account == null) {
+            throw new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name());
+        }
+
+        User user = userId == null ? null : entityManager.find(User.class, userId);
+        if (user == null) {
+            throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
+        }
+
+        if (!accountAccessService.canRead(userId, accountId)) {
+            throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
+        }
+    }
+
+    /**
+     * Revize dat, ze kterých se rozvaha účtu skládá: verze dat transakcí a poslední změna účtu
+     * nebo jeho majetku. Stejná revize znamená stejný obsah rozvahy.
+     */
+    @Transactional
+    public String getRevision(String accountId) {
+        Account account = entityManager.find(Account.class, accountId);
+        if (account == null) {
+            throw new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name());
+        }
+
+        LocalDateTime lastChange = account.getUpdatedAt();
+        for (Asset asset : account.getAssets()) {
+            if (asset.getUpdatedAt() != null && (lastChange == null || asset.getUpdatedAt().isAfter(lastChange))) {
+                lastChange = asset.getUpdatedAt();
+            }
+        }
+        long stamp = lastChange != null ? lastChange.toEpochSecond(ZoneOffset.UTC) : 0;
+        return account.getDataVersion() + "-" + stamp + "-" + account.getAssets().size();
+    }
+
+    /**
+     * # Rozvaha zapsaná přímo do výstupu
+     *
+     * Hlavička se převezme ze šablony, prvky rozvahy se zapisují přes SXSSF, který v paměti drží
+     * jen posledních N řádků. Řádky transakcí se čtou z dotazů seřazených podle skupin,
+     * takže se nikdy nenačte celý seznam transakcí účtu.
+     * @param period Měsíc, ke jehož konci se rozvaha sestaví, null pro všechny transakce
+     */
+    @Transactional
+    public void writeReport(String lang, String accountId, YearMonth period, OutputStream outputStream)
+            throws IOException {
+        Account account = entityManager.find(Account.class, accountId);
+        if (account == null) {
+            throw new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name());
+        }
+        LocalDateTime endDate = period != null ? period.plusMonths(1).atDay(1).atStartOfDay() : null;
+
+        Map<String, String> dictionary = language.get(resolveLanguage(lang));
+        XSSFWorkbook template;
+        try (InputStream inputStream = new ClassPathResource(TEMPLATE_PATH).getInputStream()) {
+            template = new XSSFWorkbook(inputStream);
+        }
+
+        XSSFSheet templateSheet = template.getSheetAt(0);
+        CellStyle[] styles = {
+                templateSheet.getRow(FIRST_ELEMENT_ROW).getCell(0).getCellStyle(),
+                templateSheet.getRow(FIRST_ELEMENT_ROW + 1).getCell(0).getCellStyle(),
+                templateSheet.getRow(FIRST_ELEMENT_ROW + 2).getCell(0).getCellStyle(),
+                templateSheet.getRow(FIRST_ELEMENT_ROW + 3).getCell(0).getCellStyle()
+        };
+        prepareHeader(templateSheet, dictionary, period);
+
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(template, rowWindow);
+             Stream<StatementLineDto> assets = transactionRepository.streamStatementAssetLines(account, endDate);
+             Stream<StatementLineDto> revenues = transactionRepository.streamStatementRevenueLines(account, endDate);
+             Stream<StatementLineDto> costs = transactionRepository.streamStatementCostLines(account, endDate)) {
+            workbook.setCompressTempFiles(true);
+            StatementColumn[] columns = {
+                    new StatementColumn(assets.iterator(), line -> TransactionTypes.INCOME.equals(line.getType())),
+                    new StatementColumn(liabilities(account, dictionary).iterator(), line -> false),
+                    new StatementColumn(revenues.iterator(), line -> false),
+                    new StatementColumn(costs.iterator(), line -> true)
+            };
+
+            try {
+                writeElements(workbook.getSheetAt(0), columns, styles, dictionary);
+                workbook.write(outputStream);
+            } finally {
+                workbook.dispose();
+            }
+        }
+    }
+
+    /**
+     * Doplní texty hlavičky šablony a odstraní z ní oblast prvků i JXLS příkazy,
+     * protože SXSSF umí zapisovat jen za poslední existující řádek.
+     * Rozvaha měsíce nese datum konce měsíce, takže stejná data dávají vždy stejný soubor.
+     */
+    private void prepareHeader(XSSFSheet sheet, Map<String, String> dictionary, YearMonth period) {
+        Map<String, String> variables = new HashMap<>(dictionary);
+        LocalDate date = period != null ? period.atEndOfMonth() : LocalDate.now();
+        variables.put("date", date.format(DateTimeFormatter.ofPattern("dd.MM.yyy")));
+
+        for (CellAddress address : new ArrayList<>(sheet.getCellComments().keySet())) {
+            Row row = sheet.getRow(address.getRow());
+            if (row == null) row = sheet.createRow(address.getRow());
+            Cell cell = row.getCell(address.getColumn());
+            if (cell == null) cell = row.createCell(address.getColumn());
+            cell.removeCellComment();
+        }
+
+        for (int i = sheet.getNumMergedRegions() - 1; i >= 0; i--) {
+            if (sheet.getMergedRegion(i).getFirstRow() >= FIRST_ELEMENT_ROW) {
+                sheet.removeMergedRegion(i);
+            }
+        }
+
+        for (int i = sheet.getLastRowNum(); i >= 0; i--) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue;
+            if (i >= FIRST_ELEMENT_ROW) {
+                sheet.removeRow(row);
+                continue;
+            }
+            for (Cell cell : row) {
+                if (cell.getCellType() == CellType.STRING && cell.getStringCellValue().startsWith("${")) {
+                    String value = cell.getStringCellValue();
+                    cell.setCellValue(variables.getOrDefault(value.substring(2, value.length() - 1), ""));
+                }
+            }
+        }
+    }
+
+    private List<StatementLineDto> liabilities(Account account, Map<String, String> dictionary) {
+        return List.of(
+                new StatementLineDto("shareCapital", dictionary.get("L_SHARE_CAPITAL"), account.getInitialAmount(), null),
+                new StatementLineDto("loan", dictionary.get("L_LOAN"), account.getGoalAmount(), null) // change to loan
+        );
+    }
+
+    private void writeElements(Sheet sheet, StatementColumn[] columns, CellStyle[] styles,
+                               Map<String, String> dictionary) {
+        StatementColumn.Row[] rows = new StatementColumn.Row[columns.length];
+        for (int rowIndex = FIRST_ELEMENT_ROW; ; rowIndex++) {
+            boolean any = false;
+            for (int i = 0; i < columns.length; i++) {
+                rows[i] = columns[i].poll();
+                any |= rows[i] != null;
+            }
+            if (!any) return;
+
+            Row row = sheet.createRow(rowIndex);
+            for (int i = 0; i < columns.length; i++) {
+                if (rows[i] != null) {
+                    writeCells(sheet, row, COLUMN_OFFSETS[i], rows[i], styles, dictionary);
+                }
+            }
+        }
+    }
+
+    private void writeCells(Sheet sheet, Row row, int column, StatementColumn.Row element, CellStyle[] styles,
+                            Map<String, String> dictionary) {
+        if (element.getKind() == StatementColumn.Kind.EMPTY) {
+            return;
+        }
+        Cell first = row.createCell(column);
+        Cell second = row.createCell(column + 1);
+        switch (element.getKind()) {
+            case HEADER -> {
+                first.setCellValue(element.getName());
+                sheet.addMergedRegion(new CellRangeAddress(row.getRowNum(), row.getRowNum(), column, column + 1));
+                first.setCellStyle(styles[0]);
+                second.setCellStyle(styles[0]);
+            }
+            case LABELS -> {
+                first.setCellValue(dictionary.get("L_DEBIT"));
+                second.setCellValue(dictionary.get("L_CREDIT"));
+                first.setCellStyle(styles[1]);
+                second.setCellStyle(styles[1]);
+            }
+            case LINE, TOTAL -> {
+                if (element.getDebit() != null) first.setCellValue(element.getDebit());
+                if (element.getCredit() != null) second.setCellValue(element.getCredit());
+                CellStyle style = element.getKind() == StatementColumn.Kind.LINE ? styles[2] : styles[3];
+                first.setCellStyle(style);
+                second.setCellStyle(style);
+            }
+        }
+    }
+
 }
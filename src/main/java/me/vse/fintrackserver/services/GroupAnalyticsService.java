@@ -0,0 +1,167 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.RollupGranularity;
+import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.model.dto.GroupAccountTotalsDto;
+import me.vse.fintrackserver.model.dto.RollupTotalsDto;
+import me.vse.fintrackserver.repositories.AggregationRepository;
+import me.vse.fintrackserver.repositories.GroupRepository;
+import me.vse.fintrackserver.repositories.TransactionRollupRepository;
+import me.vse.fintrackserver.rest.responses.GroupAnalyticsResponse;
+import me.vse.fintrackserver.services.utils.GroupAnalyticsPartial;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * # Služba pro souhrnnou analytiku skupiny
+ *
+ * Dílčí součty jednotlivých účtů skupiny se spočítají souběžně na fork/join poolu a sloučí se.
+ * Výsledek se ukládá do cache pod verzí skupiny, kterou tvoří verze dat všech jejích účtů a aktuální měsíc.
+ * Účty skupiny se načtou krátkým dotazem předem, během čekání na dílčí výpočty se nedrží DB spojení.
+ */
+@Service
+public class GroupAnalyticsService {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private AggregationRepository aggregationRepository;
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Value("${group.analytics.parallelism:4}")
+    private int parallelism;
+
+    @Value("${group.analytics.cache.max-size:500}")
+    private long cacheMaxSize;
+
+    @Value("${group.analytics.cache.expire-after-write-minutes:30}")
+    private long cacheExpireAfterWriteMinutes;
+
+    private ForkJoinPool pool;
+
+    private Cache<String, GroupAnalyticsResponse> cache;
+
+    @PostConstruct
+    private void init() {
+        pool = new ForkJoinPool(parallelism);
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheExpireAfterWriteMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public GroupAnalyticsResponse getGroupAnalytics(String groupId, String userId) {
+        Group group = groupId == null ? null : entityManager.find(Group.class, groupId);
+        if (group == null || group.isRemoved()) {
+            throw new IllegalArgumentException(ErrorMessages.GROUP_DOESNT_EXIST.name());
+        }
+
+        if (userId == null || !groupRepository.isMember(groupId, userId)) {
+            throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
+        }
+
+        List<Account> accounts = groupRepository.findActiveAccounts(groupId);
+
+        YearMonth month = YearMonth.now();
+        String key = groupId + ":" + month + ":" + accounts.stream()
+                .map(account -> account.getId() + "@" + account.getDataVersion())
+                .collect(Collectors.joining(","));
+
+        GroupAnalyticsResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        GroupAnalyticsResponse response = calculate(group, accounts, month);
+        cache.put(key, response);
+        return response;
+    }
+
+    private GroupAnalyticsResponse calculate(Group group, List<Account> accounts, YearMonth month) {
+        List<CompletableFuture<GroupAnalyticsPartial>> futures = accounts.stream()
+                .map(account -> CompletableFuture.supplyAsync(() -> calculateAccount(account, month), pool))
+                .toList();
+
+        List<GroupAnalyticsPartial> partials;
+        try {
+            partials = futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+
+        GroupAnalyticsPartial merged = new GroupAnalyticsPartial();
+        partials.forEach(merged::merge);
+
+        List<GroupAccountTotalsDto> accountTotals = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            GroupAnalyticsPartial partial = partials.get(i);
+            accountTotals.add(GroupAccountTotalsDto.builder()
+                    .accountId(accounts.get(i).getId())
+                    .name(accounts.get(i).getName())
+                    .totalIncome(partial.getTotalIncome())
+                    .totalExpense(partial.getTotalExpense())
+                    .monthIncome(partial.getMonthIncome())
+                    .monthExpense(partial.getMonthExpense())
+                    .build());
+        }
+
+        return GroupAnalyticsResponse.builder()
+                .groupId(group.getId())
+                .groupName(group.getName())
+                .totalIncome(merged.getTotalIncome())
+                .totalExpense(merged.getTotalExpense())
+                .monthIncome(merged.getMonthIncome())
+                .monthExpense(merged.getMonthExpense())
+                .categoryIncomes(merged.getCategoryIncomes())
+                .categoryExpenses(merged.getCategoryExpenses())
+                .accounts(accountTotals)
+                .calculatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private GroupAnalyticsPartial calculateAccount(Account account, YearMonth month) {
+        GroupAnalyticsPartial partial = new GroupAnalyticsPartial();
+        for (Object[] row : aggregationRepository.getCategoryTotalsByAccountId(account.getId())) {
+            partial.addCategory((String) row[0], toDouble(row[1]), toDouble(row[2]));
+        }
+
+        LocalDate monthStart = month.atDay(1);
+        RollupTotalsDto monthTotals = transactionRollupRepository.sumTotals(
+                account, RollupGranularity.MONTH, monthStart, monthStart.plusMonths(1));
+        partial.addMonth(monthTotals.getTotalIncome(), monthTotals.getTotalExpense());
+        return partial;
+    }
+
+    private double toDouble(Object value) {
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+}
@@ -40,6 +40,9 @@ public class GroupService {
     @Autowired
     private UserGroupRelationRepository userGroupRelationRepository;
 
+    @Autowired
+    private AccountAccessService accountAccessService;
+
     @Transactional
     public List<GroupViewResponse> getAll(String userId) {
         if (userId == null) {
@@ -139,6 +142,9 @@ public class GroupService {
             entityManager.persist(agr);
         }
 
+        accountAccessService.refreshUsers(userGroupRelations.stream()
+                .map(relation -> relation.getUser().getId())
+                .toList());
         return group;
     }
 
@@ -241,6 +247,12 @@ public class GroupService {
             entityManager.persist(agr);
         }
 
+        List<String> affectedUserIds = new ArrayList<>(group.getGroupUsersRelations().stream()
+                .map(relation -> relation.getUser().getId())
+                .toList());
+        usersToBeAdded.forEach(relation -> affectedUserIds.add(relation.getUser().getId()));
+        accountAccessService.refreshUsers(affectedUserIds);
+
         group.setName(groupDto.getName());
         groupRepository.save(group);
 
@@ -272,6 +284,7 @@ public class GroupService {
         if (relation.isEmpty()) return;
 
         userGroupRelationRepository.delete(relation.get());
+        accountAccessService.refreshUsers(List.of(userId));
     }
 
     @Transactional
@@ -289,6 +302,7 @@ public class GroupService {
         UserGroupRelation userGroupRelation = new UserGroupRelation(user, group);
 
         entityManager.persist(userGroupRelation);
+        accountAccessService.refreshUsers(List.of(userId));
     }
 
     @Transactional
@@ -311,5 +325,8 @@ public class GroupService {
         group.setRemoved(true);
         group.setRemovedAt(LocalDateTime.now());
         groupRepository.save(group);
+        accountAccessService.refreshUsers(group.getGroupUsersRelations().stream()
+                .map(relation -> relation.getUser().getId())
+                .toList());
     }
 }
@@ -0,0 +1,170 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import me.vse.fintrackserver.model.Task;
+import me.vse.fintrackserver.repositories.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * # Služba pro lease plánovaných úloh
+ *
+ * Při běhu více instancí serveru si úlohu převezme jen jedna z nich podmíněným UPDATE nad tabulkou tasks.
+ * Lease má omezenou platnost, takže po pádu instance úlohu po jejím vypršení převezme jiná instance.
+ * Dokončený termín úlohy se zapíše jako kontrolní bod a znovu se už nespustí.
+ */
+@Slf4j
+@Service
+public class JobLeaseService {
+
+    /**
+     * Práce jednoho oddílu. Po každé dávce volá extendLease, aby lease nevypršela během dlouhého oddílu.
+     */
+    @FunctionalInterface
+    public interface PartitionJob {
+        void run(int partition, Runnable extendLease);
+    }
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jobs.lease-minutes:60}")
+    private long leaseMinutes;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private TransactionTemplate required;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    private void init() {
+        required = new TransactionTemplate(transactionManager);
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Duration getDefaultLease() {
+        return Duration.ofMinutes(leaseMinutes);
+    }
+
+    /**
+     * Převezme úlohu pro daný termín, pokud ji pro něj ještě nikdo nedokončil a nedrží platnou lease.
+     */
+    public boolean tryAcquire(String name, String occurrence, Duration lease) {
+        ensureTask(name);
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = requiresNew.execute(status ->
+                taskRepository.acquireLease(name, occurrence, nodeId, now, now.plus(lease)));
+        return updated != null && updated > 0;
+    }
+
+    /**
+     * Převezme nebo prodlouží lease bez ohledu na termín, používá se pro trvalou roli vedoucí instance.
+     */
+    public boolean tryHold(String name, Duration lease) {
+        ensureTask(name);
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = requiresNew.execute(status ->
+                taskRepository.holdLease(name, nodeId, now, now.plus(lease)));
+        return updated != null && updated > 0;
+    }
+
+    /**
+     * Označí termín úlohy jako dokončený. Běží v aktuální DB transakci, aby se kontrolní bod
+     * zapsal spolu s výsledkem úlohy.
+     */
+    public void complete(String name, String occurrence) {
+        required.executeWithoutResult(status ->
+                taskRepository.completeLease(name, occurrence, nodeId));
+    }
+
+    public void release(String name) {
+        requiresNew.executeWithoutResult(status -> taskRepository.releaseLease(name, nodeId));
+    }
+
+    /**
+     * Spustí úlohu, pokud ji pro daný termín převezme tato instance. Při chybě se lease uvolní
+     * a termín zůstane nedokončený pro další pokus.
+     * @return true, pokud úloha na této instanci proběhla
+     */
+    public boolean runOnce(String name, String occurrence, Duration lease, Runnable job) {
+        return run(name, occurrence, lease, () -> {
+            job.run();
+            complete(name, occurrence);
+        });
+    }
+
+    /**
+     * Rozdělí úlohu na oddíly, z nichž každý má vlastní lease. Instance začínají na náhodném oddílu,
+     * takže si práci rozeberou mezi sebou a oddíl spadlé instance dokončí jiná.
+     * Každý oddíl běží ve vlastní DB transakci spolu se zápisem svého kontrolního bodu.
+     * Chyba jednoho oddílu se zaloguje a ostatní oddíly pokračují, nedokončený oddíl se zopakuje příště.
+     */
+    public void forEachPartition(String name, int partitions, String occurrence, Duration lease,
+                                 PartitionJob job) {
+        int offset = ThreadLocalRandom.current().nextInt(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            String partitionName = name + "_" + partitions + "_" + partition;
+            Runnable extendLease = () -> {
+                if (!tryHold(partitionName, lease)) {
+                    log.warn("Lease of {} was taken over by another instance", partitionName);
+                }
+            };
+            try {
+                run(partitionName, occurrence, lease, () -> required.executeWithoutResult(status -> {
+                    job.run(partition, extendLease);
+                    complete(partitionName, occurrence);
+                }));
+            } catch (RuntimeException exception) {
+                log.error("Partition {} of {} failed for {}", partition, name, occurrence, exception);
+            }
+        }
+    }
+
+    private boolean run(String name, String occurrence, Duration lease, Runnable job) {
+        if (!tryAcquire(name, occurrence, lease)) {
+            return false;
+        }
+        try {
+            job.run();
+            return true;
+        } catch (RuntimeException exception) {
+            release(name);
+            throw exception;
+        }
+    }
+
+    private void ensureTask(String name) {
+        if (taskRepository.findByName(name).isPresent()) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> taskRepository.saveAndFlush(Task.builder()
+                    .name(name)
+                    .isFinished(false)
+                    .build()));
+        } catch (DataIntegrityViolationException exception) {
+            // Úlohu mezitím založila jiná instance.
+        }
+    }
+}
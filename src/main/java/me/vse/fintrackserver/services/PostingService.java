@@ -0,0 +1,97 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import me.vse.fintrackserver.enums.PostingType;
+import me.vse.fintrackserver.model.Posting;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.repositories.PostingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * # Služba pro zaúčtování transakcí
+ *
+ * Každá transakce má v tabulce posting jeden řádek za každý dotčený účet se znaménkovou částkou:
+ * příjem a výnos kladně, výdaj a náklad záporně, převod záporně u odesílatele a kladně u příjemce.
+ * Převod v rámci jednoho účtu má jediný řádek s nulovou částkou. Směr převodu se tak určí jednou
+ * při zápisu a dotazy účtu už jen sčítají signed_amount v rozsahu dat.
+ */
+@Service
+@AllArgsConstructor
+@Builder
+public class PostingService {
+
+    public static final List<PostingType> INCOME_TYPES =
+            List.of(PostingType.INCOME, PostingType.REVENUE, PostingType.TRANSFER_IN);
+
+    public static final List<PostingType> EXPENSE_TYPES =
+            List.of(PostingType.EXPENSE, PostingType.COST, PostingType.TRANSFER_OUT);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PostingRepository postingRepository;
+
+    /**
+     * Zapíše řádky transakce. Musí běžet ve stejné DB transakci jako uložení transakce.
+     */
+    public void apply(Transaction transaction) {
+        for (Posting posting : legsOf(transaction)) {
+            entityManager.persist(posting);
+        }
+    }
+
+    /**
+     * Smaže řádky transakce hromadným DELETE hned, takže apply po úpravě transakce může zapsat
+     * řádky se stejným klíčem ve stejné DB transakci.
+     */
+    public void revert(Transaction transaction) {
+        if (transaction.getId() != null) {
+            postingRepository.deleteByTransactionId(transaction.getId());
+        }
+    }
+
+    public List<Posting> legsOf(Transaction transaction) {
+        if (transaction.getAccount() == null || transaction.getType() == null) {
+            return List.of();
+        }
+
+        String accountId = transaction.getAccount().getId();
+        String receiverId = transaction.getReceiver() != null ? transaction.getReceiver().getId() : null;
+        double amount = transaction.getAmount();
+
+        return switch (transaction.getType()) {
+            case INCOME -> List.of(leg(transaction, accountId, PostingType.INCOME, amount));
+            case REVENUE -> List.of(leg(transaction, accountId, PostingType.REVENUE, amount));
+            case EXPENSE -> List.of(leg(transaction, accountId, PostingType.EXPENSE, -amount));
+            case COST -> List.of(leg(transaction, accountId, PostingType.COST, -amount));
+            case TRANSFER -> {
+                if (Objects.equals(accountId, receiverId)) {
+                    yield List.of(leg(transaction, accountId, PostingType.TRANSFER_INTERNAL, 0.0));
+                }
+                if (receiverId == null) {
+                    yield List.of(leg(transaction, accountId, PostingType.TRANSFER_OUT, -amount));
+                }
+                yield List.of(
+                        leg(transaction, accountId, PostingType.TRANSFER_OUT, -amount),
+                        leg(transaction, receiverId, PostingType.TRANSFER_IN, amount));
+            }
+        };
+    }
+
+    private Posting leg(Transaction transaction, String accountId, PostingType type, double signedAmount) {
+        return Posting.builder()
+                .transactionId(transaction.getId())
+                .accountId(accountId)
+                .type(type)
+                .signedAmount(signedAmount)
+                .executionDateTime(transaction.getExecutionDateTime())
+                .build();
+    }
+}
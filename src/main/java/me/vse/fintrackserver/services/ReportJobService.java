@@ -0,0 +1,302 @@
+package me.vse.fintrackserver.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.ReportJobStatus;
+import me.vse.fintrackserver.rest.responses.ReportJobResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * # Služba pro asynchronní generování výkazů
+ *
+ * Výkaz se generuje na omezeném poolu vláken a ukládá se na disk pod klíčem (účet, revize dat, jazyk, období).
+ * Výkaz všech transakcí nese v hlavičce dnešní datum, proto je v jeho klíči i datum vygenerování.
+ * Opakovaný požadavek na nezměněný účet se obslouží z hotového souboru bez nového generování.
+ * Dokončení úlohy se ohlásí na /topic/analytics/{accountId}.
+ */
+@Service
+public class ReportJobService {
+
+    private static final String ALL_PERIODS = "all";
+    private static final String EXTENSION = ".xlsx";
+
+    @Autowired
+    private GeneralStatementService generalStatementService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${report.jobs.threads:2}")
+    private int threads;
+
+    @Value("${report.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${report.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${report.cache.dir:${java.io.tmpdir}/fintrack-reports}")
+    private String cacheDir;
+
+    private Path directory;
+
+    private ThreadPoolExecutor executor;
+
+    private Cache<String, ReportJobResponse> jobs;
+
+    private Cache<String, Path> jobFiles;
+
+    private final Map<String, String> inFlightJobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    private void init() throws IOException {
+        directory = Files.createDirectories(Paths.get(cacheDir));
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("report-job-%d").setDaemon(true).build());
+        jobs = CacheBuilder.newBuilder()
+                .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES)
+                .build();
+        jobFiles = CacheBuilder.newBuilder()
+                .expireAfterWrite(retentionMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Zařadí výkaz do fronty, nebo hned vrátí hotovou úlohu, pokud soubor pro aktuální revizi dat existuje.
+     * @param period Měsíc ve tvaru yyyy-MM, null pro všechny transakce
+     * @throws IllegalArgumentException pokud uživatel nemá přístup k účtu, období je chybné nebo je fronta plná
+     */
+    public ReportJobResponse submit(String accountId, String userId, String lang, String period) {
+        generalStatementService.checkAccess(accountId, userId);
+        String language = generalStatementService.resolveLanguage(lang);
+        YearMonth month = parsePeriod(period);
+        String periodKey = month != null ? month.toString() : ALL_PERIODS;
+        String revision = generalStatementService.getRevision(accountId);
+        String fileKey = month != null ? periodKey : allPeriodsKey();
+        Path file = directory.resolve(fileName(accountId, revision, language, fileKey));
+
+        ReportJobResponse.ReportJobResponseBuilder job = ReportJobResponse.builder()
+                .jobId(UUID.randomUUID().toString())
+                .accountId(accountId)
+                .lang(language)
+                .period(periodKey)
+                .submittedAt(LocalDateTime.now());
+
+        if (Files.exists(file)) {
+            ReportJobResponse done = job.status(ReportJobStatus.DONE)
+                    .cached(true)
+                    .size(sizeOf(file))
+                    .finishedAt(LocalDateTime.now())
+                    .build();
+            jobs.put(done.getJobId(), done);
+            jobFiles.put(done.getJobId(), file);
+            return done;
+        }
+
+        String key = file.getFileName().toString();
+        ReportJobResponse[] created = new ReportJobResponse[1];
+        String jobId = inFlightJobs.computeIfAbsent(key, k -> {
+            ReportJobResponse queued = job.status(ReportJobStatus.QUEUED).build();
+            jobs.put(queued.getJobId(), queued);
+            jobFiles.put(queued.getJobId(), file);
+            created[0] = queued;
+            return queued.getJobId();
+        });
+
+        if (created[0] != null) {
+            try {
+                executor.execute(() -> run(created[0], month, revision, file, key));
+            } catch (RejectedExecutionException exception) {
+                inFlightJobs.remove(key, jobId);
+                jobs.invalidate(jobId);
+                jobFiles.invalidate(jobId);
+                throw new IllegalArgumentException(ErrorMessages.REPORT_JOB_QUEUE_FULL.name());
+            }
+            return created[0];
+        }
+
+        ReportJobResponse running = jobs.getIfPresent(jobId);
+        return running != null ? running : job.jobId(jobId).status(ReportJobStatus.RUNNING).build();
+    }
+
+    /**
+     * Stav úlohy, jen pro uživatele s přístupem k účtu výkazu.
+     * @throws IllegalArgumentException pokud úloha neexistuje nebo uživatel nemá přístup k účtu
+     */
+    public ReportJobResponse getJob(String jobId, String userId) {
+        ReportJobResponse job = jobId == null ? null : jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException(ErrorMessages.REPORT_JOB_DOESNT_EXIST.name());
+        }
+        generalStatementService.checkAccess(job.getAccountId(), userId);
+        return job;
+    }
+
+    /**
+     * Otevře soubor hotového výkazu pro stažení. Stahuje se z otevřeného kanálu, takže soubor
+     * smazaný úklidem starých revizí během stahování se dočte celý.
+     * @throws IllegalArgumentException pokud úloha neexistuje, ještě neskončila nebo uživatel nemá přístup k účtu
+     */
+    public FileChannel openFile(String jobId, String userId) {
+        ReportJobResponse job = getJob(jobId, userId);
+        Path file = jobFiles.getIfPresent(jobId);
+        if (job.getStatus() != ReportJobStatus.DONE || file == null) {
+            throw new IllegalArgumentException(ErrorMessages.REPORT_NOT_READY.name());
+        }
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException exception) {
+            throw new IllegalArgumentException(ErrorMessages.REPORT_NOT_READY.name());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Zapíše otevřený soubor do výstupu přes FileChannel.transferTo a kanál zavře. Přenos řídí JDK,
+     * který použije kopírování v jádře, pokud to cílový kanál dovolí, aplikace sama soubor do paměti nenačítá.
+     */
+    public void transferTo(FileChannel file, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = file) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    private void run(ReportJobResponse job, YearMonth month, String revision, Path file, String key) {
+        jobs.put(job.getJobId(), withStatus(job, ReportJobStatus.RUNNING).build());
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                generalStatementService.writeReport(job.getLang(), job.getAccountId(), month, outputStream);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOtherRevisions(job.getAccountId(), revision, file);
+
+            jobs.put(job.getJobId(), withStatus(job, ReportJobStatus.DONE)
+                    .size(sizeOf(file))
+                    .finishedAt(LocalDateTime.now())
+                    .build());
+            notify(job, "REPORT_READY");
+        } catch (IOException | RuntimeException exception) {
+            deleteQuietly(temporary);
+            jobs.put(job.getJobId(), withStatus(job, ReportJobStatus.FAILED)
+                    .finishedAt(LocalDateTime.now())
+                    .error(exception.getMessage())
+                    .build());
+            notify(job, "REPORT_FAILED");
+        } finally {
+            inFlightJobs.remove(key, job.getJobId());
+        }
+    }
+
+    /**
+     * Výkazy starších revizí účtu už nikdo nestáhne, smažou se pro všechna období i jazyky,
+     * stejně jako výkazy všech transakcí z jiných dnů. Právě zapsaný soubor zůstane vždy.
+     * Pokud se mezitím data účtu změnila, úklid nechá na výkazu nové revize, aby nesmazal novější soubory.
+     */
+    private void deleteOtherRevisions(String accountId, String revision, Path written) throws IOException {
+        if (!revision.equals(generalStatementService.getRevision(accountId))) {
+            return;
+        }
+        String currentPrefix = accountId + "_" + revision + "_";
+        String currentAllPeriods = "_" + allPeriodsKey() + EXTENSION;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, accountId + "_*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean isStaleAllPeriods = name.contains("_" + ALL_PERIODS + "-") && !name.endsWith(currentAllPeriods);
+                if (!file.equals(written) && (!name.startsWith(currentPrefix) || isStaleAllPeriods)) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private void notify(ReportJobResponse job, String type) {
+        messagingTemplate.convertAndSend("/topic/analytics/" + job.getAccountId(), Map.of(
+                "type", type,
+                "jobId", job.getJobId()
+        ));
+    }
+
+    private ReportJobResponse.ReportJobResponseBuilder withStatus(ReportJobResponse job, ReportJobStatus status) {
+        return ReportJobResponse.builder()
+                .jobId(job.getJobId())
+                .accountId(job.getAccountId())
+                .lang(job.getLang())
+                .period(job.getPeriod())
+                .submittedAt(job.getSubmittedAt())
+                .status(status);
+    }
+
+    private YearMonth parsePeriod(String period) {
+        if (period == null || period.isBlank()) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException(ErrorMessages.INCORRECT_REPORT_PERIOD.name());
+        }
+    }
+
+    private String allPeriodsKey() {
+        return ALL_PERIODS + "-" + LocalDate.now();
+    }
+
+    private String fileName(String accountId, String revision, String lang, String period) {
+        return accountId + "_" + revision + "_" + lang + "_" + period + EXTENSION;
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Starou revizi smaže příští dokončený výkaz stejného účtu.
+        }
+    }
+}
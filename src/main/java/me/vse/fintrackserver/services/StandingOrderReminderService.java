@@ -0,0 +1,225 @@
+package me.vse.fintrackserver.services;
+
+import me.vse.fintrackserver.model.dto.StandingOrderReminderDto;
+import me.vse.fintrackserver.models.Subscription;
+import me.vse.fintrackserver.repositories.StandingOrderRepository;
+import me.vse.fintrackserver.services.utils.ReminderQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * # Služba pro připomínky trvalých příkazů
+ *
+ * Připomínky termínů v nejbližším okně se drží v prioritní frontě podle času připomenutí.
+ * Fronta se sestaví z DB po startu a jednou denně se posune okno, mezi tím ji průběžně
+ * aktualizují změny trvalých příkazů. Pravidelný tick dočte příkazy změněné na jiných instancích
+ * a vybírá připomínky z čela fronty, každou před odesláním ještě ověří proti DB.
+ */
+@Service
+public class StandingOrderReminderService {
+
+    private static final String LEADER_TASK = "STANDING_ORDER_REMINDERS";
+    private static final int LEASE_TICKS = 4;
+
+    @Autowired
+    private StandingOrderRepository standingOrderRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private PushNotificationService pushNotificationService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Value("${reminders.horizon-days:35}")
+    private long horizonDays;
+
+    @Value("${reminders.tick-ms:30000}")
+    private long tickMillis;
+
+    private final ReminderQueue<StandingOrderReminderDto> queue = new ReminderQueue<>();
+
+    private final Set<String> firedKeys = ConcurrentHashMap.newKeySet();
+
+    private volatile LocalDateTime loadedUntil;
+
+    private volatile LocalDateTime polledAt;
+
+    private volatile LocalDateTime notBefore = LocalDateTime.MIN;
+
+    private volatile boolean leader;
+
+    /**
+     * Sestaví frontu po startu. Připomínky, jejichž čas uplynul před startem, se už neodesílají.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        notBefore = LocalDateTime.now().minusNanos(tickMillis * 1_000_000);
+        reload();
+    }
+
+    /**
+     * Posune okno načtených termínů. Již odeslané připomínky se znovu neodešlou.
+     */
+    @Scheduled(cron = "0 15 0 * * *")
+    public void shiftWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        firedKeys.removeIf(key -> LocalDateTime.parse(key.substring(key.indexOf('@') + 1)).isBefore(now));
+        reload();
+    }
+
+    /**
+     * Připomínky odesílá jen instance, která drží lease. Instance, která lease nově převzala,
+     * si frontu znovu sestaví, protože dosud odeslané připomínky zná jen předchozí držitel.
+     */
+    @Scheduled(fixedDelayString = "${reminders.tick-ms:30000}")
+    public void fireDue() {
+        Duration lease = Duration.ofMillis(tickMillis * LEASE_TICKS);
+        if (!jobLeaseService.tryHold(LEADER_TASK, lease)) {
+            leader = false;
+            return;
+        }
+        if (!leader) {
+            notBefore = LocalDateTime.now().minus(lease);
+            reload();
+            leader = true;
+        } else {
+            pollChanges();
+        }
+
+        for (StandingOrderReminderDto reminder : queue.pollDue(LocalDateTime.now())) {
+            if (isCurrent(reminder) && firedKeys.add(key(reminder))) {
+                send(reminder);
+            }
+        }
+    }
+
+    /**
+     * Po commitu znovu načte připomínku trvalého příkazu, volá se po jeho založení, změně nebo provedení.
+     */
+    public void refresh(String standingOrderId) {
+        afterCommit(() -> {
+            List<StandingOrderReminderDto> reminders = standingOrderRepository.findReminder(standingOrderId);
+            if (reminders.isEmpty() || loadedUntil == null
+                    || reminders.get(0).getNextExecutionAt().isAfter(loadedUntil)) {
+                queue.cancel(standingOrderId);
+                return;
+            }
+            schedule(reminders.get(0));
+        });
+    }
+
+    public void cancel(String standingOrderId) {
+        afterCommit(() -> queue.cancel(standingOrderId));
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void reload() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusDays(horizonDays);
+        List<StandingOrderReminderDto> reminders = standingOrderRepository.findReminders(now, until);
+
+        queue.clear();
+        reminders.forEach(this::schedule);
+        loadedUntil = until;
+        polledAt = now;
+    }
+
+    /**
+     * Přeplánuje příkazy změněné od posledního dotazu. Čas změny zapisuje každá instance svými hodinami,
+     * proto se okno dotazu o jeden tick překrývá s předchozím.
+     */
+    private void pollChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        standingOrderRepository.findRemindersUpdatedSince(polledAt.minusNanos(tickMillis * 1_000_000), loadedUntil)
+                .forEach(this::schedule);
+        polledAt = now;
+    }
+
+    /**
+     * Ověří, že příkaz mezitím nikdo nesmazal ani nepřeplánoval. Přeplánovanou připomínku
+     * zařadí znovu s novým termínem.
+     */
+    private boolean isCurrent(StandingOrderReminderDto reminder) {
+        List<StandingOrderReminderDto> reminders = standingOrderRepository.findReminder(reminder.getStandingOrderId());
+        if (reminders.isEmpty()) {
+            return false;
+        }
+        StandingOrderReminderDto current = reminders.get(0);
+        if (current.getNextExecutionAt().equals(reminder.getNextExecutionAt())
+                && current.getRemindAt().equals(reminder.getRemindAt())) {
+            return true;
+        }
+        if (!current.getNextExecutionAt().isAfter(loadedUntil)) {
+            schedule(current);
+        }
+        return false;
+    }
+
+    private void schedule(StandingOrderReminderDto reminder) {
+        if (firedKeys.contains(key(reminder)) || reminder.getRemindAt().isBefore(notBefore)) {
+            return;
+        }
+        queue.schedule(reminder.getStandingOrderId(), reminder.getRemindAt(), reminder);
+    }
+
+    private void send(StandingOrderReminderDto reminder) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", "STANDING_ORDER_REMINDER");
+        notification.put("standingOrderId", reminder.getStandingOrderId());
+        notification.put("accountId", reminder.getAccountId());
+        notification.put("amount", reminder.getAmount());
+        notification.put("note", reminder.getNote());
+        notification.put("executionDateTime", reminder.getNextExecutionAt());
+        messagingTemplate.convertAndSend("/topic/analytics/" + reminder.getAccountId(), notification);
+
+        if (reminder.getOwnerId() == null) {
+            return;
+        }
+        Subscription subscription = pushNotificationService.getUserSubscription(reminder.getOwnerId());
+        if (subscription != null) {
+            pushNotificationService.sendNotification(
+                    subscription,
+                    String.format("Reminder: standing order of %.2f from account %s will be executed on %s",
+                            reminder.getAmount(), reminder.getAccountName(), reminder.getNextExecutionAt().toLocalDate())
+            );
+        }
+    }
+
+    private String key(StandingOrderReminderDto reminder) {
+        return reminder.getStandingOrderId() + "@" + reminder.getNextExecutionAt();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
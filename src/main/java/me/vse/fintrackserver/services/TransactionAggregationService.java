@@ -1,69 +1,365 @@
 package me.vse.fintrackserver.services;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import me.vse.fintrackserver.enums.RollupGranularity;
 import me.vse.fintrackserver.model.Account;
 import me.vse.fintrackserver.model.Category;
+import me.vse.fintrackserver.model.Transaction;
 import me.vse.fintrackserver.model.TransactionAggregation;
+import me.vse.fintrackserver.model.TransactionRollup;
 import me.vse.fintrackserver.model.dto.AccountAggregationDTO;
+import me.vse.fintrackserver.model.dto.RollupTotalsDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.repositories.AggregationRepository;
+import me.vse.fintrackserver.repositories.PostingRepository;
 import me.vse.fintrackserver.repositories.TransactionRepository;
+import me.vse.fintrackserver.repositories.TransactionRollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * # Služba pro správu agregovaných součtů transakcí
+ *
+ * Součty se udržují průběžně při každé změně transakce (apply / revert), a to celkově
+ * a po dnech a měsících. Noční úloha slouží už jen jako kontrola a oprava případných odchylek.
+ */
 @Service
+@AllArgsConstructor
+@Builder
 public class TransactionAggregationService {
 
+    private static final double TOLERANCE = 0.005;
+    private static final LocalDateTime ROLLUP_MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String VERIFY_TASK = "AGGREGATION_VERIFY";
+    private static final int VERIFY_BATCH_SIZE = 100;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private PostingRepository postingRepository;
+
     @Autowired
     private AggregationRepository aggregationRepository;
 
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Připočte transakci k agregacím. Musí běžet ve stejné DB transakci jako zápis transakce.
+     */
+    public void apply(Transaction transaction) {
+        applyDelta(List.of(transaction), 1);
+    }
+
+    /**
+     * Připočte dávku transakcí. Změny se nejdřív sečtou po řádcích agregací, takže na každý dotčený
+     * řádek připadne jeden příkaz za celou dávku, ne jeden za každou transakci.
+     */
+    public void applyAll(Collection<Transaction> transactions) {
+        applyDelta(transactions, 1);
+    }
+
+    /**
+     * Odečte transakci z agregací, volá se před změnou nebo smazáním transakce.
+     */
+    public void revert(Transaction transaction) {
+        applyDelta(List.of(transaction), -1);
+    }
+
+    private void applyDelta(Collection<Transaction> transactions, int sign) {
+        DeltaBatch batch = new DeltaBatch();
+        for (Transaction transaction : transactions) {
+            collectDelta(batch, transaction, sign);
+        }
+
+        batch.totals.forEach((key, delta) -> aggregationRepository.mergeDelta(
+                batch.accounts.get(key.accountId()), batch.categories.get(key.categoryId()), delta[0], delta[1]));
+        batch.rollups.forEach((key, delta) -> transactionRollupRepository.mergeDelta(
+                batch.accounts.get(key.accountId()), batch.categories.get(key.categoryId()),
+                key.granularity(), key.bucketStart(), delta[0], delta[1]));
+        // kontrolní body leží vždy na začátku dne, pro jeden den stačí jeden posun od nejdřívějšího provedení
+        batch.checkpoints.forEach((key, delta) -> balanceCheckpointService.applyDelta(
+                batch.accounts.get(key.accountId()), batch.firstExecutions.get(key), delta[0]));
+    }
+
+    private void collectDelta(DeltaBatch batch, Transaction transaction, int sign) {
+        if (transaction == null || transaction.getAccount() == null || transaction.getType() == null) {
+            return;
+        }
+
+        Account account = transaction.getAccount();
+        Account receiver = transaction.getReceiver();
+        Category category = transaction.getCategory();
+        LocalDateTime executedAt = transaction.getExecutionDateTime();
+        double amount = sign * transaction.getAmount();
+
+        switch (transaction.getType()) {
+            case INCOME, REVENUE -> batch.add(account, category, executedAt, amount, 0.0);
+            case EXPENSE, COST -> batch.add(account, category, executedAt, 0.0, amount);
+            case TRANSFER -> {
+                boolean isSelfTransfer = receiver != null && Objects.equals(receiver.getId(), account.getId());
+                if (!isSelfTransfer) {
+                    batch.add(account, category, executedAt, 0.0, amount);
+                }
+                if (receiver != null && !isSelfTransfer) {
+                    batch.add(receiver, category, executedAt, amount, 0.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Příjmy a výdaje účtu za období. Celé měsíce a dny se berou z rollup tabulky,
+     * z transakcí se dopočítají jen neúplné krajní dny.
+     */
+    public RollupTotalsDto getRangeTotals(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
+        LocalDateTime from = fromDate != null ? fromDate : ROLLUP_MIN_DATE;
+        LocalDateTime end = endDate != null ? endDate : LocalDateTime.now();
+        if (end.isBefore(from)) {
+            return new RollupTotalsDto(0.0, 0.0);
+        }
+
+        LocalDate firstFullDay = from.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? from.toLocalDate()
+                : from.toLocalDate().plusDays(1);
+        LocalDate lastFullDayExclusive = end.toLocalDate();
+
+        double[] totals = new double[2];
+        if (!firstFullDay.isBefore(lastFullDayExclusive)) {
+            addRawTotals(totals, account, from, end);
+            return new RollupTotalsDto(totals[0], totals[1]);
+        }
+
+        if (from.isBefore(firstFullDay.atStartOfDay())) {
+            addRawTotals(totals, account, from, firstFullDay.atStartOfDay().minusNanos(1));
+        }
+
+        LocalDate firstFullMonth = firstFullDay.getDayOfMonth() == 1
+                ? firstFullDay
+                : firstFullDay.withDayOfMonth(1).plusMonths(1);
+        LocalDate lastFullMonthExclusive = lastFullDayExclusive.withDayOfMonth(1);
+
+        if (firstFullMonth.isBefore(lastFullMonthExclusive)) {
+            addRollupTotals(totals, account, RollupGranularity.DAY, firstFullDay, firstFullMonth);
+            addRollupTotals(totals, account, RollupGranularity.MONTH, firstFullMonth, lastFullMonthExclusive);
+            addRollupTotals(totals, account, RollupGranularity.DAY, lastFullMonthExclusive, lastFullDayExclusive);
+        } else {
+            addRollupTotals(totals, account, RollupGranularity.DAY, firstFullDay, lastFullDayExclusive);
+        }
+
+        addRawTotals(totals, account, lastFullDayExclusive.atStartOfDay(), end);
+        return new RollupTotalsDto(totals[0], totals[1]);
+    }
+
+    private void addRollupTotals(double[] totals, Account account, RollupGranularity granularity,
+                                 LocalDate fromBucket, LocalDate toBucket) {
+        if (!fromBucket.isBefore(toBucket)) {
+            return;
+        }
+        RollupTotalsDto rollup = transactionRollupRepository.sumTotals(account, granularity, fromBucket, toBucket);
+        totals[0] += rollup.getTotalIncome();
+        totals[1] += rollup.getTotalExpense();
+    }
+
+    private void addRawTotals(double[] totals, Account account, LocalDateTime from, LocalDateTime end) {
+        TransactionTotalsDto raw = postingRepository.getTotals(account.getId(), from, end);
+        totals[0] += raw.getTotalIncome();
+        totals[1] += raw.getTotalExpense();
+    }
+
+    /**
+     * Kontrolní průchod: po dávkách účtů přepočítá celkové, denní i měsíční součty každého účtu z jeho
+     * transakcí a opraví jen řádky, které se rozcházejí. V paměti jsou vždy jen součty jednoho účtu.
+     * Každá dávka běží ve vlastní DB transakci a účet je během kontroly zamčený stejně jako při zápisu transakce.
+     * Při více instancích proběhne kontrola v dané hodině jen na jedné z nich.
+     */
     @Scheduled(cron = "0 0 0 * * *")
-    @Transactional
-    public void aggregateAndSaveDailyTransactions() {
-        LocalDateTime aDayAgo = LocalDateTime.now().minusDays(1);
-
-        List<Object[]> results = transactionRepository.aggregateTransactionsForXDays(aDayAgo);
-
-        for (Object[] row : results) {
-            Account account = (Account) row[0];
-            Category category = (Category) row[1];
-            Double totalIncome = (Double) row[2];
-            Double totalExpense = (Double) row[3];
-
-            Optional<TransactionAggregation> existingAggregation = aggregationRepository
-                    .findByAccountAndCategory(account, category);
-
-            TransactionAggregation aggregation;
-            if (existingAggregation.isPresent()) {
-                aggregation = existingAggregation.get();
-                Double prevIncome = aggregation.getTotalIncome();
-                Double prevExpense = aggregation.getTotalExpense();
-
-                aggregation.setTotalIncome(prevIncome + totalIncome);
-                aggregation.setTotalExpense(prevExpense + totalExpense);
-            } else {
-                Object[] result = transactionRepository
-                        .getAggregatedTransactionsForAccountAndCategory(account, category);
-
-                totalIncome = (Double) result[0];
-                totalExpense = (Double) result[1];
-
-                aggregation = TransactionAggregation.builder()
-                        .account(account)
-                        .category(category)
-                        .totalIncome(totalIncome)
-                        .totalExpense(totalExpense)
-                        .build();
+    public void verifyAndRepairAggregations() {
+        jobLeaseService.runOnce(VERIFY_TASK, LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).toString(),
+                jobLeaseService.getDefaultLease(), this::verifyAndRepair);
+    }
+
+    private void verifyAndRepair() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<String> accountIds = accountRepository.findIdsAfter(null, PageRequest.of(0, VERIFY_BATCH_SIZE));
+        while (!accountIds.isEmpty()) {
+            List<String> batch = accountIds;
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::verifyAccount));
+            accountIds = accountRepository.findIdsAfter(batch.get(batch.size() - 1),
+                    PageRequest.of(0, VERIFY_BATCH_SIZE));
+        }
+    }
+
+    private void verifyAccount(String accountId) {
+        accountRepository.lockForUpdate(List.of(accountId));
+
+        Map<String, double[]> expectedTotals = new HashMap<>();
+        Map<String, double[]> expectedRollups = new HashMap<>();
+        for (Object[] row : transactionRepository.aggregateOwnTotalsByCategoryAndDay(accountId)) {
+            collect(expectedTotals, expectedRollups, row, toDouble(row[3]), toDouble(row[4]));
+        }
+        for (Object[] row : transactionRepository.aggregateIncomingTransfersByCategoryAndDay(accountId)) {
+            collect(expectedTotals, expectedRollups, row, toDouble(row[3]), 0.0);
+        }
+
+        for (Object[] row : aggregationRepository.findTotalsByAccountId(accountId)) {
+            double[] totals = expectedTotals.remove(key((String) row[1], (String) row[2]));
+            if (isDifferent(totals, row[3], row[4])) {
+                double[] fixed = totals != null ? totals : new double[2];
+                aggregationRepository.setTotals((String) row[0], fixed[0], fixed[1]);
+            }
+        }
+        insertAggregations(expectedTotals);
+
+        for (Object[] row : transactionRollupRepository.findTotalsByAccountId(accountId)) {
+            double[] totals = expectedRollups.remove(key((String) row[1], (String) row[2])
+                    + "|" + row[3] + "|" + row[4]);
+            if (isDifferent(totals, row[5], row[6])) {
+                double[] fixed = totals != null ? totals : new double[2];
+                transactionRollupRepository.setTotals((String) row[0], fixed[0], fixed[1]);
             }
-            aggregationRepository.save(aggregation);
         }
+        insertRollups(expectedRollups);
+    }
+
+    /**
+     * Přepočítá agregace jednoho účtu od nuly. Volající drží DB transakci,
+     * takže se staré řádky nahradí novými atomicky. Účet se zamkne stejně jako při zápisu transakce,
+     * aby souběžný zápis nezměnil transakce mezi výpočtem a uložením součtů.
+     */
+    public void rebuildAccount(String accountId) {
+        accountRepository.lockForUpdate(List.of(accountId));
+
+        Map<String, double[]> expectedTotals = new HashMap<>();
+        Map<String, double[]> expectedRollups = new HashMap<>();
+
+        for (Object[] row : transactionRepository.aggregateOwnTotalsByCategoryAndDay(accountId)) {
+            collect(expectedTotals, expectedRollups, row, toDouble(row[3]), toDouble(row[4]));
+        }
+        for (Object[] row : transactionRepository.aggregateIncomingTransfersByCategoryAndDay(accountId)) {
+            collect(expectedTotals, expectedRollups, row, toDouble(row[3]), 0.0);
+        }
+
+        aggregationRepository.deleteByAccountId(accountId);
+        transactionRollupRepository.deleteByAccountId(accountId);
+        balanceCheckpointService.deleteCheckpoints(accountId);
+        insertAggregations(expectedTotals);
+        insertRollups(expectedRollups);
+    }
+
+    private void insertAggregations(Map<String, double[]> expectedTotals) {
+        List<TransactionAggregation> aggregations = new ArrayList<>();
+        expectedTotals.forEach((key, totals) -> {
+            String[] parts = key.split("\\|", -1);
+            aggregations.add(TransactionAggregation.builder()
+                    .account(entityManager.getReference(Account.class, parts[0]))
+                    .category(getCategoryReference(parts[1]))
+                    .totalIncome(totals[0])
+                    .totalExpense(totals[1])
+                    .build());
+        });
+        aggregationRepository.saveAll(aggregations);
+    }
+
+    private void insertRollups(Map<String, double[]> expectedRollups) {
+        List<TransactionRollup> rollups = new ArrayList<>();
+        expectedRollups.forEach((key, totals) -> {
+            String[] parts = key.split("\\|", -1);
+            rollups.add(TransactionRollup.builder()
+                    .account(entityManager.getReference(Account.class, parts[0]))
+                    .category(getCategoryReference(parts[1]))
+                    .granularity(RollupGranularity.valueOf(parts[2]))
+                    .bucketStart(LocalDate.parse(parts[3]))
+                    .totalIncome(totals[0])
+                    .totalExpense(totals[1])
+                    .build());
+        });
+        transactionRollupRepository.saveAll(rollups);
+    }
+
+    private void collect(Map<String, double[]> expectedTotals, Map<String, double[]> expectedRollups,
+                         Object[] row, double income, double expense) {
+        String key = key((String) row[0], (String) row[1]);
+        LocalDate day = toLocalDate(row[2]);
+
+        add(expectedTotals, key, income, expense);
+        if (day != null) {
+            add(expectedRollups, key + "|" + RollupGranularity.DAY + "|" + day, income, expense);
+            add(expectedRollups, key + "|" + RollupGranularity.MONTH + "|" + day.withDayOfMonth(1), income, expense);
+        }
+    }
+
+    private void add(Map<String, double[]> expected, String key, double income, double expense) {
+        double[] totals = expected.computeIfAbsent(key, k -> new double[2]);
+        totals[0] += income;
+        totals[1] += expense;
+    }
+
+    private boolean isDifferent(double[] expected, Object storedIncome, Object storedExpense) {
+        double income = expected != null ? expected[0] : 0.0;
+        double expense = expected != null ? expected[1] : 0.0;
+        return Math.abs(toDouble(storedIncome) - income) > TOLERANCE
+                || Math.abs(toDouble(storedExpense) - expense) > TOLERANCE;
+    }
+
+    private Category getCategoryReference(String categoryId) {
+        return categoryId.isEmpty() ? null : entityManager.getReference(Category.class, categoryId);
+    }
+
+    private String key(String accountId, String categoryId) {
+        return accountId + "|" + (categoryId == null ? "" : categoryId);
+    }
+
+    private double toDouble(Object value) {
+        return value == null ? 0.0 : ((Number) value).doubleValue();
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.toLocalDate();
+        } else if (value instanceof LocalDate date) {
+            return date;
+        } else if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toLocalDate();
+        } else if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return null;
     }
 
     public Double getIncome(String accountId) {
@@ -84,4 +380,43 @@ public class TransactionAggregationService {
         return aggregation.getTotalIncome() - aggregation.getTotalExpense();
     }
 
+    private record RowKey(String accountId, String categoryId, RollupGranularity granularity, LocalDate bucketStart) {
+    }
+
+    /**
+     * Součty změn jedné dávky po řádcích agregací, rollupů a dnech kontrolních bodů.
+     */
+    private static class DeltaBatch {
+
+        private final Map<String, Account> accounts = new HashMap<>();
+        private final Map<String, Category> categories = new HashMap<>();
+        private final Map<RowKey, double[]> totals = new LinkedHashMap<>();
+        private final Map<RowKey, double[]> rollups = new LinkedHashMap<>();
+        private final Map<RowKey, double[]> checkpoints = new LinkedHashMap<>();
+        private final Map<RowKey, LocalDateTime> firstExecutions = new HashMap<>();
+
+        private void add(Account account, Category category, LocalDateTime executedAt, double income, double expense) {
+            String categoryId = category != null ? category.getId() : null;
+            accounts.putIfAbsent(account.getId(), account);
+            categories.putIfAbsent(categoryId, category);
+            addTo(totals, new RowKey(account.getId(), categoryId, null, null), income, expense);
+
+            if (executedAt != null) {
+                LocalDate day = executedAt.toLocalDate();
+                addTo(rollups, new RowKey(account.getId(), categoryId, RollupGranularity.DAY, day), income, expense);
+                addTo(rollups, new RowKey(account.getId(), categoryId, RollupGranularity.MONTH, day.withDayOfMonth(1)),
+                        income, expense);
+
+                RowKey checkpointKey = new RowKey(account.getId(), null, RollupGranularity.DAY, day);
+                addTo(checkpoints, checkpointKey, income - expense, 0.0);
+                firstExecutions.merge(checkpointKey, executedAt, (first, next) -> next.isBefore(first) ? next : first);
+            }
+        }
+
+        private void addTo(Map<RowKey, double[]> target, RowKey key, double income, double expense) {
+            double[] delta = target.computeIfAbsent(key, k -> new double[2]);
+            delta[0] += income;
+            delta[1] += expense;
+        }
+    }
 }
@@ -5,31 +5,48 @@ import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.PostingType;
 import me.vse.fintrackserver.enums.TransactionTypes;
 import me.vse.fintrackserver.mappers.StandingOrderMapper;
 import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.model.dto.SimplifiedEntityDto;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.PostingRepository;
 import me.vse.fintrackserver.repositories.StandingOrderRepository;
 import me.vse.fintrackserver.repositories.TransactionRepository;
 import me.vse.fintrackserver.rest.requests.StandingOrderRequest;
 import me.vse.fintrackserver.rest.requests.TransactionRequest;
 import me.vse.fintrackserver.rest.responses.TransactionByCategoryResponse;
+import me.vse.fintrackserver.rest.responses.TransactionPageResponse;
+import me.vse.fintrackserver.services.utils.TransactionCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class TransactionService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final LocalDateTime KEYSET_MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime KEYSET_MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int STANDING_ORDER_BATCH_SIZE = 50;
+    private static final int STANDING_ORDER_PARTITIONS = 8;
+    private static final String STANDING_ORDERS_TASK = "STANDING_ORDERS";
+
     @Autowired
     private EntityManager entityManager;
 
@@ -43,37 +60,120 @@ public class TransactionService {
     private StandingOrderMapper standingOrderMapper;
 
     @Autowired
-    @Lazy
-    private AccountService accountService;
+    private AccountAccessService accountAccessService;
+
+    @Autowired
+    private TransactionAggregationService transactionAggregationService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionStatisticsService transactionStatisticsService;
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @Autowired
+    private AdviceSchedulerService adviceSchedulerService;
+
+    @Autowired
+    private StandingOrderReminderService standingOrderReminderService;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private PostingRepository postingRepository;
+
+    @Autowired
+    private PostingService postingService;
 
     public TransactionService(EntityManager entityManager, TransactionRepository transactionRepository,
                               StandingOrderRepository standingOrderRepository, StandingOrderMapper standingOrderMapper,
-                              @Lazy AccountService accountService)
+                              AccountAccessService accountAccessService,
+                              TransactionAggregationService transactionAggregationService,
+                              AccountRepository accountRepository,
+                              TransactionStatisticsService transactionStatisticsService,
+                              BudgetService budgetService,
+                              AdviceSchedulerService adviceSchedulerService,
+                              StandingOrderReminderService standingOrderReminderService,
+                              JobLeaseService jobLeaseService,
+                              PostingRepository postingRepository,
+                              PostingService postingService)
     {
         this.entityManager = entityManager;
         this.transactionRepository = transactionRepository;
         this.standingOrderRepository = standingOrderRepository;
         this.standingOrderMapper = standingOrderMapper;
-        this.accountService = accountService;
+        this.accountAccessService = accountAccessService;
+        this.transactionAggregationService = transactionAggregationService;
+        this.accountRepository = accountRepository;
+        this.transactionStatisticsService = transactionStatisticsService;
+        this.budgetService = budgetService;
+        this.adviceSchedulerService = adviceSchedulerService;
+        this.standingOrderReminderService = standingOrderReminderService;
+        this.jobLeaseService = jobLeaseService;
+        this.postingRepository = postingRepository;
+        this.postingService = postingService;
     }
 
     @Transactional
-    public List<Transaction> findAllByAccount(String id,
-                                              LocalDateTime fromDate,
-                                              LocalDateTime endDate,
-                                              int pageNumber
+    public List<TransactionListItemDto> findAllByAccount(String id,
+                                                         LocalDateTime fromDate,
+                                                         LocalDateTime endDate,
+                                                         int pageNumber
     ) {
         Account account = checkAccount(id, null);
-        int batchSize = 20;
-        Pageable pageable = PageRequest.of(pageNumber, batchSize);
+        Pageable pageable = PageRequest.of(pageNumber, DEFAULT_PAGE_SIZE);
 
-        if (fromDate == null && endDate != null) {
-            return transactionRepository.findAllPagesByAccount(account, endDate, pageable);
-        } else if (fromDate != null && endDate == null) {
-            return transactionRepository.findAllPagesByAccount(account, fromDate, LocalDateTime.now(), pageable);
+        return postingRepository.findPage(account.getId(),
+                fromDate != null ? fromDate : KEYSET_MIN_DATE,
+                endDate != null ? endDate : KEYSET_MAX_DATE,
+                pageable);
+    }
+
+    /**
+     * Keyset (seek) stránkování: místo přeskakování pageNumber * batchSize řádků pokračuje
+     * od pozice (executionDateTime, id) poslední vrácené transakce.
+     */
+    @Transactional
+    public TransactionPageResponse findAllByAccount(String id,
+                                                    LocalDateTime fromDate,
+                                                    LocalDateTime endDate,
+                                                    String cursor,
+                                                    Integer pageSize
+    ) {
+        Account account = checkAccount(id, null);
+        int batchSize = checkPageSize(pageSize);
+        // one extra row tells whether another page exists
+        Pageable pageable = PageRequest.of(0, batchSize + 1);
+        LocalDateTime lowerBound = fromDate != null ? fromDate : KEYSET_MIN_DATE;
+
+        List<TransactionListItemDto> transactions;
+        if (cursor == null || cursor.isBlank()) {
+            LocalDateTime upperBound = endDate != null ? endDate : KEYSET_MAX_DATE;
+            transactions = postingRepository.findPage(
+                    account.getId(), lowerBound, upperBound, pageable);
         } else {
-            return transactionRepository.findAllPagesByAccount(account, pageable);
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            transactions = postingRepository.findPageAfterCursor(
+                    account.getId(), lowerBound, position.getExecutionDateTime(), position.getId(), pageable);
         }
+
+        boolean hasNext = transactions.size() > batchSize;
+        List<TransactionListItemDto> page = hasNext ? transactions.subList(0, batchSize) : transactions;
+        String nextCursor = hasNext ? TransactionCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return TransactionPageResponse.builder()
+                .transactions(page)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private int checkPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(pageSize, MAX_PAGE_SIZE);
     }
 
     @Transactional
@@ -83,16 +183,17 @@ public class TransactionService {
                                                                    boolean isIncome
     ) {
         Account account = checkAccount(accountId, null);
-        List<Transaction> transactionSet = isIncome ? getIncomeTransactions(account, fromDate, endDate)
-                : getExpenseTransactions(account, fromDate, endDate);
-
-        return transactionSet.stream()
-                .collect(Collectors.groupingBy(transaction ->
-                        Optional.ofNullable(transaction.getCategory())
-                                .orElse(Category.builder().name("Other").build())))
-                .entrySet().stream()
-                .map(entry -> new TransactionByCategoryResponse(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+        List<TransactionListItemDto> transactions = findListItems(account,
+                isIncome ? PostingService.INCOME_TYPES : PostingService.EXPENSE_TYPES, fromDate, endDate);
+
+        Map<String, TransactionByCategoryResponse> byCategory = new LinkedHashMap<>();
+        for (TransactionListItemDto transaction : transactions) {
+            String categoryName = transaction.getCategoryId() != null ? transaction.getCategoryName() : "Other";
+            byCategory.computeIfAbsent(transaction.getCategoryId(), categoryId ->
+                    new TransactionByCategoryResponse(new SimplifiedEntityDto(categoryId, categoryName), new ArrayList<>()))
+                    .getTransactions().add(transaction);
+        }
+        return new ArrayList<>(byCategory.values());
     }
 
     @Transactional
@@ -100,7 +201,13 @@ public class TransactionService {
         // TODO check sender
         Transaction transaction = new Transaction();
         performChecks(transactionRequest, transaction);
+        lockAccounts(transaction);
         entityManager.persist(transaction);
+        postingService.apply(transaction);
+        transactionAggregationService.apply(transaction);
+        transactionStatisticsService.scoreAndApply(transaction);
+        budgetService.applySpend(transaction);
+        touchAccounts(transaction);
         return transaction;
     }
 
@@ -116,14 +223,7 @@ public class TransactionService {
             throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
         }
 
-        boolean doesntHaveRights = accountService.retrieveAll(user.getId()).stream()
-                .map(Account::getTransactions)
-                .flatMap(List::stream)
-                .toList()
-                .stream()
-                .noneMatch(currentTransaction -> currentTransaction.getId().equals(transaction.getId()));
-
-        if (doesntHaveRights) {
+        if (!accountAccessService.canWrite(user.getId(), accountIdOf(transaction))) {
             throw new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name());
         }
 
@@ -135,8 +235,10 @@ public class TransactionService {
                 .remindDaysBefore(standingOrderRequest.getRemindDaysBefore())
                 .lastRepeatedAt(LocalDateTime.now())
                 .build();
+        scheduleNextExecution(standingOrder, LocalDateTime.now());
 
         entityManager.persist(standingOrder);
+        standingOrderReminderService.refresh(standingOrder.getId());
         return standingOrder;
     }
 
@@ -164,15 +266,26 @@ public class TransactionService {
             throw new IllegalArgumentException(ErrorMessages.TRANSACTION_DOESNT_EXIST.name());
         }
 
+        lockAccounts(transaction);
+        postingService.revert(transaction);
+        transactionAggregationService.revert(transaction);
+        transactionStatisticsService.revert(transaction);
+        budgetService.revertSpend(transaction);
+        touchAccounts(transaction);
         performChecks(transactionRequest, transaction);
+        lockAccounts(transaction);
         transactionRepository.save(transaction);
+        postingService.apply(transaction);
+        transactionAggregationService.apply(transaction);
+        transactionStatisticsService.apply(transaction);
+        budgetService.applySpend(transaction);
+        touchAccounts(transaction);
         return transaction;
     }
 
     @Transactional
     public Transaction delete(String id, String userId) {
 
-        // TODO check sender
         if (id == null) {
             throw new IllegalArgumentException(ErrorMessages.TRANSACTION_DOESNT_EXIST.name());
         }
@@ -187,21 +300,24 @@ public class TransactionService {
             throw new IllegalArgumentException(ErrorMessages.USER_DOESNT_EXIST.name());
         }
 
-
-        if (accountService.retrieveAll(userId).stream()
-                        .map(Account::getTransactions)
-                        .flatMap(List::stream)
-                        .toList()
-                        .stream()
-                        .noneMatch(currentTransaction -> currentTransaction.getId().equals(transaction.getId()))
-        ) {
+        if (!accountAccessService.canWrite(user.getId(), accountIdOf(transaction))) {
             throw new IllegalArgumentException(ErrorMessages.TRANSACTION_DOESNT_EXIST.name());
         }
 
+        lockAccounts(transaction);
+        postingService.revert(transaction);
+        transactionAggregationService.revert(transaction);
+        transactionStatisticsService.revert(transaction);
+        budgetService.revertSpend(transaction);
+        touchAccounts(transaction);
         transactionRepository.delete(transaction);
         return transaction;
     }
 
+    private String accountIdOf(Transaction transaction) {
+        return transaction.getAccount() != null ? transaction.getAccount().getId() : null;
+    }
+
     private void performChecks(TransactionRequest transactionRequest, Transaction transaction) {
         transaction.setType(checkType(transactionRequest.getType(), transaction.getType()));
         transaction.setAccount(checkAccount(transactionRequest.getAccountId(), transaction.getAccount()));
@@ -318,7 +434,9 @@ public class TransactionService {
         }
 
         standingOrderMapper.updateStandingOrderFromRequest(standingOrderRequest, standingOrder);
+        scheduleNextExecution(standingOrder, LocalDateTime.now());
         standingOrderRepository.save(standingOrder);
+        standingOrderReminderService.refresh(standingOrder.getId());
     }
 
     @Transactional
@@ -335,100 +453,257 @@ public class TransactionService {
 
         standingOrder = standingOrder == null ? transaction.getStandingOrder() : standingOrder;
         standingOrderRepository.delete(standingOrder);
+        standingOrderReminderService.cancel(standingOrder.getId());
     }
 
     public List<Transaction> getExpenseTransactions(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
-        Predicate<Transaction> isExpense = transaction ->
-                transaction.getAccount().equals(account) &&
-                        (TransactionTypes.EXPENSE.equals(transaction.getType()) ||
-                                TransactionTypes.COST.equals(transaction.getType()));
-
-        Predicate<Transaction> isOutGoingTransfer = transaction ->
-                transaction.getAccount().equals(account) &&
-                        TransactionTypes.TRANSFER.equals(transaction.getType()) &&
-                        (!transaction.getAccount().equals(transaction.getReceiver()));
-
-        return getTransactionSet(account, fromDate, endDate)
-                .stream()
-                .filter(transaction -> isExpense.test(transaction)
-                        || isOutGoingTransfer.test(transaction))
-                .collect(Collectors.toList());
+        return findByPostingTypes(account, PostingService.EXPENSE_TYPES, fromDate, endDate);
     }
 
     public List<Transaction> getIncomeTransactions(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
-        Predicate<Transaction> isIncome = transaction ->
-                transaction.getAccount().equals(account) &&
-                        (TransactionTypes.INCOME.equals(transaction.getType()) ||
-                                TransactionTypes.REVENUE.equals(transaction.getType()));
-
-        Predicate<Transaction> isUpComingTransfer = transaction ->
-                (!transaction.getAccount().equals(account)) &&
-                        TransactionTypes.TRANSFER.equals(transaction.getType()) &&
-                        account.equals(transaction.getReceiver());
-
-        return getTransactionSet(account, fromDate, endDate)
-                .stream()
-                .filter(transaction -> isIncome.test(transaction)
-                        || isUpComingTransfer.test(transaction))
-                .collect(Collectors.toList());
+        return findByPostingTypes(account, PostingService.INCOME_TYPES, fromDate, endDate);
     }
 
     public List<Transaction> getRevenueTransactions(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
-        Predicate<Transaction> isRevenue = transaction ->
-                transaction.getAccount().equals(account) &&
-                        (TransactionTypes.REVENUE.equals(transaction.getType()));
-
-        return getTransactionSet(account, fromDate, endDate)
-                .stream().filter(isRevenue).collect(Collectors.toList());
+        return findByPostingTypes(account, List.of(PostingType.REVENUE), fromDate, endDate);
     }
 
     public List<Transaction> getCostTransactions(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
-        Predicate<Transaction> isCost = transaction ->
-                transaction.getAccount().equals(account) &&
-                        (TransactionTypes.COST.equals(transaction.getType()));
+        return findByPostingTypes(account, List.of(PostingType.COST), fromDate, endDate);
+    }
+
+    /**
+     * Součty příjmů, výdajů, výnosů a nákladů účtu spočtené jedním agregačním dotazem nad tabulkou posting,
+     * se stejnými pravidly pro převody jako getIncomeTransactions a getExpenseTransactions.
+     */
+    public TransactionTotalsDto getTransactionTotals(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
+        if (fromDate != null && endDate == null) {
+            return postingRepository.getTotals(account.getId(), fromDate, LocalDateTime.now());
+        } else if (fromDate == null && endDate != null) {
+            return postingRepository.getTotals(account.getId(), endDate);
+        } else if (fromDate != null) {
+            return postingRepository.getTotals(account.getId(), fromDate, endDate);
+        } else {
+            return postingRepository.getTotals(account.getId());
+        }
+    }
 
-        return getTransactionSet(account, fromDate, endDate)
-                .stream().filter(isCost).collect(Collectors.toList());
+    private List<Transaction> findByPostingTypes(Account account, List<PostingType> types,
+                                                 LocalDateTime fromDate, LocalDateTime endDate) {
+        if (fromDate != null && endDate == null) {
+            return postingRepository.findTransactions(account.getId(), types, fromDate, LocalDateTime.now());
+        } else if (fromDate == null && endDate != null) {
+            return postingRepository.findTransactions(account.getId(), types, endDate);
+        } else if (fromDate != null) {
+            return postingRepository.findTransactions(account.getId(), types, fromDate, endDate);
+        } else {
+            return postingRepository.findTransactions(account.getId(), types);
+        }
     }
 
-    private List<Transaction> getTransactionSet(Account account, LocalDateTime fromDate, LocalDateTime endDate) {
+    private List<TransactionListItemDto> findListItems(Account account, List<PostingType> types,
+                                                       LocalDateTime fromDate, LocalDateTime endDate) {
         if (fromDate != null && endDate == null) {
-            return transactionRepository.findAllByAccount(account, fromDate, LocalDateTime.now());
+            return postingRepository.findListItems(account.getId(), types, fromDate, LocalDateTime.now());
         } else if (fromDate == null && endDate != null) {
-            return transactionRepository.findAllByAccount(account, endDate);
+            return postingRepository.findListItems(account.getId(), types, endDate);
         } else if (fromDate != null) {
-            return transactionRepository.findAllByAccount(account, fromDate, endDate);
+            return postingRepository.findListItems(account.getId(), types, fromDate, endDate);
         } else {
-            return transactionRepository.findAllByAccount(account);
+            return postingRepository.findListItems(account.getId(), types);
         }
     }
 
+    /**
+     * Provede jen trvalé příkazy, které jsou na řadě. Každý zmeškaný termín se provede zvlášť s datem
+     * svého termínu, kopie vzorové transakce se vkládají po dávkách. Termín je v transakci zapsán spolu
+     * s posunem next_execution_at, unikátní index (příkaz, termín) brání dvojímu provedení
+     * a už zapsané termíny se přeskočí.
+     * Příkazy jsou rozdělené do oddílů podle hashe ID, každý oddíl zpracuje jen instance, která
+     * převezme jeho lease, a to ve vlastní DB transakci.
+     */
     @Scheduled(cron = "0 0 2 * * ?") // 2 AM
     public void runStandingOrders() {
-        int batchSize = 50;
-        PageRequest pageRequest = PageRequest.of(0, batchSize);
-        Page<StandingOrder> standingOrders = standingOrderRepository.findAll(pageRequest);
-        int totalPages = standingOrders.getTotalPages();
-
-        for (int i = 0; i < totalPages; i++) {
-
-            for (StandingOrder standingOrder : standingOrders) {
-                Transaction transaction = standingOrder.getTransactionSample();
-                LocalDateTime now = LocalDateTime.now();
-                transaction.setExecutionDateTime(now);
-                transaction.setCreatedAt(now);
-                transaction.setUpdatedAt(now);
-                entityManager.persist(transaction);
+        LocalDateTime now = LocalDateTime.now();
+        jobLeaseService.forEachPartition(STANDING_ORDERS_TASK, STANDING_ORDER_PARTITIONS,
+                now.toLocalDate().toString(), jobLeaseService.getDefaultLease(),
+                (partition, extendLease) -> runStandingOrders(partition, now, extendLease));
+    }
+
+    private void runStandingOrders(int partition, LocalDateTime now, Runnable extendLease) {
+        Set<String> touchedAccountIds = new HashSet<>();
+        int maxBucket = STANDING_ORDER_PARTITIONS - 1;
+
+        List<StandingOrder> dueOrders = standingOrderRepository.findDue(now, maxBucket, partition,
+                PageRequest.of(0, STANDING_ORDER_BATCH_SIZE));
+        while (!dueOrders.isEmpty()) {
+            executeBatch(dueOrders, now, touchedAccountIds);
+            entityManager.flush();
+            entityManager.clear();
+            extendLease.run();
+            dueOrders = standingOrderRepository.findDue(now, maxBucket, partition,
+                    PageRequest.of(0, STANDING_ORDER_BATCH_SIZE));
+        }
+
+        if (!touchedAccountIds.isEmpty()) {
+            accountRepository.incrementDataVersion(touchedAccountIds);
+            adviceSchedulerService.markAccountsDirty(touchedAccountIds);
+        }
+    }
+
+    /**
+     * Provede dávku příkazů. Účty dávky se zamknou najednou a nové transakce se vloží dřív,
+     * než se jejich změny jednou za dávku započtou do agregací, statistik a rozpočtů.
+     * Termíny, které už v transakcích jsou, se přeskočí a jen se posune plán příkazu.
+     */
+    private void executeBatch(List<StandingOrder> dueOrders, LocalDateTime now, Set<String> touchedAccountIds) {
+        Set<String> accountIds = new HashSet<>();
+        dueOrders.forEach(standingOrder -> accountIds.addAll(accountIdsOf(standingOrder.getTransactionSample())));
+        if (!accountIds.isEmpty()) {
+            accountRepository.lockForUpdate(accountIds);
+        }
+
+        Map<String, Set<LocalDateTime>> executedOccurrences = findExecutedOccurrences(dueOrders);
+        List<Transaction> transactions = new ArrayList<>();
+        for (StandingOrder standingOrder : dueOrders) {
+            executeDueOccurrences(standingOrder, now,
+                    executedOccurrences.getOrDefault(standingOrder.getId(), Set.of()), transactions);
+        }
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        transactions.forEach(postingService::apply);
+        transactionAggregationService.applyAll(transactions);
+        transactionStatisticsService.applyAll(transactions);
+        budgetService.applySpendAll(transactions);
+        transactions.forEach(transaction -> touchedAccountIds.addAll(accountIdsOf(transaction)));
+    }
+
+    private Map<String, Set<LocalDateTime>> findExecutedOccurrences(List<StandingOrder> dueOrders) {
+        LocalDateTime from = dueOrders.stream()
+                .map(StandingOrder::getNextExecutionAt)
+                .min(LocalDateTime::compareTo)
+                .orElseThrow();
+        List<String> standingOrderIds = dueOrders.stream().map(StandingOrder::getId).toList();
+
+        Map<String, Set<LocalDateTime>> executedOccurrences = new HashMap<>();
+        for (Object[] row : transactionRepository.findOccurrences(standingOrderIds, from)) {
+            executedOccurrences.computeIfAbsent((String) row[0], id -> new HashSet<>()).add((LocalDateTime) row[1]);
+        }
+        return executedOccurrences;
+    }
+
+    private void executeDueOccurrences(StandingOrder standingOrder, LocalDateTime now,
+                                       Set<LocalDateTime> executedOccurrences, List<Transaction> transactions) {
+        Transaction sample = standingOrder.getTransactionSample();
+        LocalDateTime occurrence = standingOrder.getNextExecutionAt();
+
+        while (occurrence != null && !occurrence.isAfter(now)) {
+            if (standingOrder.getEndDate() != null && occurrence.isAfter(standingOrder.getEndDate())) {
+                occurrence = null;
+                break;
+            }
 
-                standingOrder.setLastRepeatedAt(now);
-                standingOrderRepository.save(standingOrder);
+            if (!executedOccurrences.contains(occurrence)) {
+                Transaction transaction = copyOf(sample, standingOrder.getId(), occurrence);
+                entityManager.persist(transaction);
+                transactions.add(transaction);
             }
 
-            pageRequest = PageRequest.of(i, batchSize);
-            standingOrders = standingOrderRepository.findAll(pageRequest);
+            standingOrder.setLastRepeatedAt(occurrence);
+            occurrence = standingOrder.getFrequency() == null
+                    ? null
+                    : standingOrder.getFrequency().nextAfter(scheduleAnchor(standingOrder), occurrence);
         }
 
+        if (occurrence != null && standingOrder.getEndDate() != null && occurrence.isAfter(standingOrder.getEndDate())) {
+            occurrence = null;
+        }
+        standingOrder.setNextExecutionAt(occurrence);
+        if (standingOrder.getRemindDaysBefore() != null) {
+            standingOrderReminderService.refresh(standingOrder.getId());
+        }
     }
 
+    private Transaction copyOf(Transaction sample, String standingOrderId, LocalDateTime occurrence) {
+        return Transaction.builder()
+                .account(sample.getAccount())
+                .forAsset(sample.getForAsset())
+                .receiver(sample.getReceiver())
+                .category(sample.getCategory())
+                .type(sample.getType())
+                .amount(sample.getAmount())
+                .executionDateTime(occurrence)
+                .note(sample.getNote())
+                .lat(sample.getLat())
+                .lon(sample.getLon())
+                .photo(sample.getPhoto())
+                .icon(sample.getIcon())
+                .sourceStandingOrderId(standingOrderId)
+                .occurrenceAt(occurrence)
+                .build();
+    }
 
+    /**
+     * Nastaví první termín příkazu po now. Řada termínů začíná datem začátku příkazu,
+     * bez něj datem vzorové transakce.
+     */
+    private void scheduleNextExecution(StandingOrder standingOrder, LocalDateTime now) {
+        if (standingOrder.getFrequency() == null) {
+            standingOrder.setNextExecutionAt(null);
+            return;
+        }
+
+        LocalDateTime next = standingOrder.getFrequency().nextAfter(scheduleAnchor(standingOrder), now);
+        if (standingOrder.getEndDate() != null && next.isAfter(standingOrder.getEndDate())) {
+            next = null;
+        }
+        standingOrder.setNextExecutionAt(next);
+    }
+
+    private LocalDateTime scheduleAnchor(StandingOrder standingOrder) {
+        if (standingOrder.getStartDate() != null) {
+            return standingOrder.getStartDate();
+        }
+        Transaction sample = standingOrder.getTransactionSample();
+        if (sample != null && sample.getExecutionDateTime() != null) {
+            return sample.getExecutionDateTime();
+        }
+        return standingOrder.getCreatedAt() != null ? standingOrder.getCreatedAt() : LocalDateTime.now();
+    }
+
+    /**
+     * Zvýší verzi dat účtů transakce, čímž zneplatní jejich analytiku uloženou v cache,
+     * a označí jejich uživatele k novému vyhodnocení rad.
+     */
+    private void touchAccounts(Transaction transaction) {
+        Set<String> accountIds = accountIdsOf(transaction);
+        if (!accountIds.isEmpty()) {
+            accountRepository.incrementDataVersion(accountIds);
+            adviceSchedulerService.markAccountsDirty(accountIds);
+        }
+    }
+
+    /**
+     * Zamkne účet i příjemce transakce do konce DB transakce dřív, než se změní jejich součty.
+     * Souběžné zápisy stejného účtu i jeho přepočet tak čekají, místo aby si přepisovaly změny.
+     */
+    private void lockAccounts(Transaction transaction) {
+        Set<String> accountIds = transaction == null ? Set.of() : accountIdsOf(transaction);
+        if (!accountIds.isEmpty()) {
+            accountRepository.lockForUpdate(accountIds);
+        }
+    }
+
+    private Set<String> accountIdsOf(Transaction transaction) {
+        Set<String> accountIds = new HashSet<>();
+        if (transaction.getAccount() != null && transaction.getAccount().getId() != null) {
+            accountIds.add(transaction.getAccount().getId());
+        }
+        if (transaction.getReceiver() != null && transaction.getReceiver().getId() != null) {
+            accountIds.add(transaction.getReceiver().getId());
+        }
+        return accountIds;
+    }
 }
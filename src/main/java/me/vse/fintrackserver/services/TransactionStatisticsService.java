@@ -0,0 +1,307 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Category;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.TransactionStatistics;
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.TransactionRepository;
+import me.vse.fintrackserver.repositories.TransactionStatisticsRepository;
+import me.vse.fintrackserver.services.utils.StreamingStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * # Služba pro průběžné statistiky částek transakcí
+ *
+ * Pro každý účet a každou jeho kategorii se při zápisu transakce aktualizuje průměr, rozptyl
+ * a histogram částek. Nová transakce se tak vyhodnotí jako anomální v konstantním čase
+ * a nezávisle na délce historie účtu.
+ *
+ * Účty založené před zavedením statistik mají statisticsBackfilled = false, dokud je nepřepočítá
+ * úloha backfillStatistics. Do té doby statistiky pokrývají jen část historie a nepoužívají se.
+ */
+@Service
+@AllArgsConstructor
+@Builder
+public class TransactionStatisticsService {
+
+    private static final long MIN_SAMPLES = 10;
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionStatisticsRepository transactionStatisticsRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JobLeaseService jobLeaseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Vyhodnotí novou transakci proti dosavadním statistikám účtů a teprve potom ji do nich započte.
+     * Anomálie se po commitu odešle na /topic/analytics/{accountId}.
+     */
+    public void scoreAndApply(Transaction transaction) {
+        for (Account account : involvedAccounts(transaction)) {
+            TransactionStatistics accountStatistics = findOrCreate(account, null);
+            TransactionStatistics categoryStatistics = transaction.getCategory() != null
+                    ? findOrCreate(account, transaction.getCategory())
+                    : null;
+
+            Map<String, Object> anomaly = account.isStatisticsBackfilled()
+                    ? score(transaction, account, accountStatistics, categoryStatistics)
+                    : null;
+            update(accountStatistics, List.of(transaction.getAmount()), 1);
+            update(categoryStatistics, List.of(transaction.getAmount()), 1);
+
+            if (anomaly != null) {
+                publishAfterCommit(account.getId(), anomaly);
+            }
+        }
+    }
+
+    /**
+     * Započte transakci do statistik bez vyhodnocení, používá se po úpravě transakce.
+     */
+    public void apply(Transaction transaction) {
+        applyDelta(transaction, 1);
+    }
+
+    /**
+     * Započte dávku transakcí bez vyhodnocení. Částky se seskupí po účtech a kategoriích,
+     * takže každý řádek statistik se načte a uloží jednou za dávku.
+     */
+    public void applyAll(Collection<Transaction> transactions) {
+        Map<String, Account> accounts = new HashMap<>();
+        Map<String, Category> categories = new HashMap<>();
+        Map<String, List<Double>> amounts = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            Category category = transaction.getCategory();
+            for (Account account : involvedAccounts(transaction)) {
+                accounts.putIfAbsent(account.getId(), account);
+                amounts.computeIfAbsent(account.getId() + "|", key -> new ArrayList<>()).add(transaction.getAmount());
+                if (category != null) {
+                    categories.putIfAbsent(category.getId(), category);
+                    amounts.computeIfAbsent(account.getId() + "|" + category.getId(), key -> new ArrayList<>())
+                            .add(transaction.getAmount());
+                }
+            }
+        }
+
+        amounts.forEach((key, values) -> {
+            String[] parts = key.split("\\|", -1);
+            Category category = parts[1].isEmpty() ? null : categories.get(parts[1]);
+            update(findOrCreate(accounts.get(parts[0]), category), values, 1);
+        });
+    }
+
+    /**
+     * Odečte transakci ze statistik, volá se před změnou nebo smazáním transakce.
+     */
+    public void revert(Transaction transaction) {
+        applyDelta(transaction, -1);
+    }
+
+    public StreamingStatistics getAccountStatistics(Account account) {
+        return transactionStatisticsRepository.findByAccount(account)
+                .map(StreamingStatistics::of)
+                .orElseGet(StreamingStatistics::new);
+    }
+
+    /**
+     * Přepočítá statistiky jednoho účtu od nuly jedním průchodem přes jeho transakce.
+     * Celkové statistiky účtu vzniknou sloučením statistik kategorií. Volající drží zámek účtu.
+     */
+    public void rebuildAccount(String accountId) {
+        Account account = entityManager.getReference(Account.class, accountId);
+        Map<String, StreamingStatistics> byCategory = new HashMap<>();
+        StreamingStatistics withoutCategory = new StreamingStatistics();
+
+        try (Stream<TransactionAnalyticsRowDto> rows = transactionRepository.streamAnalyticsRowsByAccount(account)) {
+            rows.forEach(row -> (row.getCategoryId() == null
+                    ? withoutCategory
+                    : byCategory.computeIfAbsent(row.getCategoryId(), id -> new StreamingStatistics()))
+                    .add(row.getAmount()));
+        }
+
+        transactionStatisticsRepository.deleteByAccountId(accountId);
+
+        StreamingStatistics total = new StreamingStatistics();
+        total.merge(withoutCategory);
+        List<TransactionStatistics> rows = new ArrayList<>();
+        byCategory.forEach((categoryId, statistics) -> {
+            total.merge(statistics);
+            rows.add(toEntity(account, entityManager.getReference(Category.class, categoryId), statistics));
+        });
+        if (total.getCount() > 0) {
+            rows.add(toEntity(account, null, total));
+        }
+        transactionStatisticsRepository.saveAll(rows);
+        accountRepository.markStatisticsBackfilled(accountId);
+    }
+
+    /**
+     * Dopočítá statistiky účtů, které je ještě nemají za celou historii. Každý účet běží ve vlastní
+     * DB transakci pod zámkem účtu. Při více instancích proběhne v dané hodině jen na jedné z nich.
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    public void backfillStatistics() {
+        jobLeaseService.runOnce("STATISTICS_BACKFILL", LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).toString(),
+                jobLeaseService.getDefaultLease(), this::backfillAll);
+    }
+
+    private void backfillAll() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<String> accountIds = accountRepository.findIdsWithoutStatisticsAfter(null,
+                PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        while (!accountIds.isEmpty()) {
+            for (String accountId : accountIds) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    accountRepository.lockForUpdate(List.of(accountId));
+                    rebuildAccount(accountId);
+                });
+            }
+            accountIds = accountRepository.findIdsWithoutStatisticsAfter(accountIds.get(accountIds.size() - 1),
+                    PageRequest.of(0, BACKFILL_BATCH_SIZE));
+        }
+    }
+
+    private void applyDelta(Transaction transaction, int sign) {
+        for (Account account : involvedAccounts(transaction)) {
+            update(findOrCreate(account, null), List.of(transaction.getAmount()), sign);
+            if (transaction.getCategory() != null) {
+                update(findOrCreate(account, transaction.getCategory()), List.of(transaction.getAmount()), sign);
+            }
+        }
+    }
+
+    private Map<String, Object> score(Transaction transaction, Account account,
+                                      TransactionStatistics accountStatistics,
+                                      TransactionStatistics categoryStatistics) {
+        StreamingStatistics accountModel = StreamingStatistics.of(accountStatistics);
+        StreamingStatistics categoryModel = categoryStatistics != null
+                ? StreamingStatistics.of(categoryStatistics)
+                : new StreamingStatistics();
+
+        double amount = transaction.getAmount();
+        boolean accountAnomaly = accountModel.getCount() >= MIN_SAMPLES
+                && amount > accountModel.getAnomalyThreshold();
+        boolean categoryAnomaly = categoryModel.getCount() >= MIN_SAMPLES
+                && amount > categoryModel.getAnomalyThreshold();
+        if (!accountAnomaly && !categoryAnomaly) {
+            return null;
+        }
+
+        Map<String, Object> anomaly = new HashMap<>();
+        anomaly.put("type", "TRANSACTION_ANOMALY");
+        anomaly.put("transactionId", transaction.getId());
+        anomaly.put("accountId", account.getId());
+        anomaly.put("amount", amount);
+        anomaly.put("averageAmount", accountModel.getMean());
+        anomaly.put("transactionThreshold", accountModel.getAnomalyThreshold());
+        anomaly.put("percentile95", accountModel.getQuantile(0.95));
+        if (categoryAnomaly) {
+            anomaly.put("categoryId", transaction.getCategory().getId());
+            anomaly.put("categoryName", transaction.getCategory().getName());
+            anomaly.put("categoryThreshold", categoryModel.getAnomalyThreshold());
+        }
+        anomaly.put("analysisTimestamp", LocalDateTime.now());
+        return anomaly;
+    }
+
+    private void update(TransactionStatistics statistics, List<Double> amounts, int sign) {
+        if (statistics == null) {
+            return;
+        }
+        StreamingStatistics model = StreamingStatistics.of(statistics);
+        for (double amount : amounts) {
+            if (sign > 0) {
+                model.add(amount);
+            } else {
+                model.remove(amount);
+            }
+        }
+        model.writeTo(statistics);
+        transactionStatisticsRepository.save(statistics);
+    }
+
+    private TransactionStatistics findOrCreate(Account account, Category category) {
+        Optional<TransactionStatistics> statistics = findForUpdate(account, category);
+        if (statistics.isPresent()) {
+            return statistics.get();
+        }
+        transactionStatisticsRepository.mergeEmpty(account, category);
+        return findForUpdate(account, category)
+                .orElseGet(() -> toEntity(account, category, new StreamingStatistics()));
+    }
+
+    private Optional<TransactionStatistics> findForUpdate(Account account, Category category) {
+        return category == null
+                ? transactionStatisticsRepository.findByAccountForUpdate(account)
+                : transactionStatisticsRepository.findByAccountAndCategoryForUpdate(account, category);
+    }
+
+    private TransactionStatistics toEntity(Account account, Category category, StreamingStatistics model) {
+        TransactionStatistics statistics = TransactionStatistics.builder()
+                .account(account)
+                .category(category)
+                .build();
+        model.writeTo(statistics);
+        return statistics;
+    }
+
+    private List<Account> involvedAccounts(Transaction transaction) {
+        if (transaction == null || transaction.getAccount() == null) {
+            return List.of();
+        }
+        Account account = transaction.getAccount();
+        Account receiver = transaction.getReceiver();
+        if (receiver == null || Objects.equals(receiver.getId(), account.getId())) {
+            return List.of(account);
+        }
+        return List.of(account, receiver);
+    }
+
+    private void publishAfterCommit(String accountId, Map<String, Object> anomaly) {
+        String destination = "/topic/analytics/" + accountId;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            messagingTemplate.convertAndSend(destination, anomaly);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                messagingTemplate.convertAndSend(destination, anomaly);
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.enums.AdviceMessages;
+import me.vse.fintrackserver.rest.responses.AdviceResponse;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schránka rad rozdělená podle uživatele. Každý uživatel má vlastní frontu s nejvýše jednou radou
+ * od každého typu a omezenou délkou, při přeplnění se zahodí nejstarší rada.
+ * Vložení i výběr jsou atomické operace nad jedním klíčem mapy.
+ */
+public class AdviceInbox {
+
+    private final int maxPerUser;
+
+    private final Map<String, LinkedHashMap<AdviceMessages, AdviceResponse>> inboxes = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+
+    public AdviceInbox(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+    }
+
+    public void add(AdviceResponse response) {
+        inboxes.compute(response.getUserId(), (userId, inbox) -> {
+            if (inbox == null) {
+                inbox = new LinkedHashMap<>();
+            }
+            if (inbox.remove(response.getMessage()) == null) {
+                size.incrementAndGet();
+            }
+            inbox.put(response.getMessage(), response);
+
+            if (inbox.size() > maxPerUser) {
+                Iterator<AdviceResponse> oldest = inbox.values().iterator();
+                oldest.next();
+                oldest.remove();
+                size.decrementAndGet();
+            }
+            return inbox;
+        });
+    }
+
+    /**
+     * Vybere nejstarší radu uživatele, nebo null, pokud žádnou nemá.
+     */
+    public AdviceResponse poll(String userId) {
+        AdviceResponse[] polled = new AdviceResponse[1];
+        inboxes.computeIfPresent(userId, (key, inbox) -> {
+            Iterator<AdviceResponse> oldest = inbox.values().iterator();
+            polled[0] = oldest.next();
+            oldest.remove();
+            size.decrementAndGet();
+            return inbox.isEmpty() ? null : inbox;
+        });
+        return polled[0];
+    }
+
+    public long size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,45 @@
+package me.vse.fintrackserver.services.utils;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dílčí součty jednoho nebo více účtů skupiny. Dílčí výsledky se dají libovolně slučovat.
+ */
+@Getter
+public class GroupAnalyticsPartial {
+
+    public static final String UNCATEGORIZED = "UNCATEGORIZED";
+
+    private double totalIncome;
+    private double totalExpense;
+    private double monthIncome;
+    private double monthExpense;
+    private final Map<String, Double> categoryIncomes = new HashMap<>();
+    private final Map<String, Double> categoryExpenses = new HashMap<>();
+
+    public void addCategory(String categoryName, double income, double expense) {
+        String key = categoryName != null ? categoryName : UNCATEGORIZED;
+        totalIncome += income;
+        totalExpense += expense;
+        if (income != 0.0) categoryIncomes.merge(key, income, Double::sum);
+        if (expense != 0.0) categoryExpenses.merge(key, expense, Double::sum);
+    }
+
+    public void addMonth(double income, double expense) {
+        monthIncome += income;
+        monthExpense += expense;
+    }
+
+    public GroupAnalyticsPartial merge(GroupAnalyticsPartial other) {
+        totalIncome += other.totalIncome;
+        totalExpense += other.totalExpense;
+        monthIncome += other.monthIncome;
+        monthExpense += other.monthExpense;
+        other.categoryIncomes.forEach((key, value) -> categoryIncomes.merge(key, value, Double::sum));
+        other.categoryExpenses.forEach((key, value) -> categoryExpenses.merge(key, value, Double::sum));
+        return this;
+    }
+}
@@ -0,0 +1,53 @@
+package me.vse.fintrackserver.services.utils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Prioritní fronta připomínek seřazená podle času připomenutí, nejvýše jedna připomínka na klíč.
+ * Přeplánování nebo zrušení jen zneplatní původní záznam, který se zahodí až při výběru,
+ * takže každá operace stojí O(log n).
+ */
+public class ReminderQueue<T> {
+
+    private record Entry<T>(String key, LocalDateTime remindAt, T payload) {
+    }
+
+    private final PriorityQueue<Entry<T>> queue = new PriorityQueue<>(Comparator.comparing(Entry::remindAt));
+
+    private final Map<String, Entry<T>> current = new HashMap<>();
+
+    public synchronized void schedule(String key, LocalDateTime remindAt, T payload) {
+        Entry<T> entry = new Entry<>(key, remindAt, payload);
+        current.put(key, entry);
+        queue.add(entry);
+    }
+
+    public synchronized void cancel(String key) {
+        current.remove(key);
+    }
+
+    /**
+     * Vybere všechny platné připomínky s časem nejpozději now.
+     */
+    public synchronized List<T> pollDue(LocalDateTime now) {
+        List<T> due = new ArrayList<>();
+        while (!queue.isEmpty() && !queue.peek().remindAt().isAfter(now)) {
+            Entry<T> entry = queue.poll();
+            if (current.get(entry.key()) == entry) {
+                current.remove(entry.key());
+                due.add(entry.payload());
+            }
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return current.size();
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        current.clear();
+    }
+}
@@ -0,0 +1,102 @@
+package me.vse.fintrackserver.services.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.vse.fintrackserver.model.dto.StatementLineDto;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Jeden sloupec rozvahy (aktiva, pasiva, výnosy nebo náklady) skládaný z řádků seřazených podle skupiny.
+ * Každá skupina má hlavičku, řádek popisků, řádky transakcí a součet, skupiny odděluje prázdný řádek.
+ * Sloupec drží jen aktuální skupinu, takže paměť nezávisí na počtu transakcí.
+ */
+public class StatementColumn {
+
+    public enum Kind { HEADER, LABELS, LINE, TOTAL, EMPTY }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private Kind kind;
+        private String name;
+        private Double debit;
+        private Double credit;
+    }
+
+    private final Iterator<StatementLineDto> lines;
+    private final Predicate<StatementLineDto> isDebit;
+    private final Deque<Row> pending = new ArrayDeque<>();
+
+    private StatementLineDto next;
+    private String groupId;
+    private String groupName;
+    private double net;
+    private boolean started;
+
+    public StatementColumn(Iterator<StatementLineDto> lines, Predicate<StatementLineDto> isDebit) {
+        this.lines = lines;
+        this.isDebit = isDebit;
+    }
+
+    /**
+     * Další řádek sloupce, nebo null, když je sloupec vyčerpaný.
+     */
+    public Row poll() {
+        while (pending.isEmpty()) {
+            if (!fill()) {
+                return null;
+            }
+        }
+        return pending.poll();
+    }
+
+    private boolean fill() {
+        if (next == null && lines.hasNext()) {
+            next = lines.next();
+        }
+
+        if (groupName != null) {
+            if (next != null && Objects.equals(next.getGroupId(), groupId)) {
+                addLine(next);
+                next = null;
+                return true;
+            }
+            pending.add(new Row(Kind.TOTAL, groupName, net > 0 ? net : null, net < 0 ? -net : null));
+            groupName = null;
+            return true;
+        }
+
+        if (next == null) {
+            return false;
+        }
+
+        if (started) {
+            pending.add(new Row(Kind.EMPTY, null, null, null));
+        }
+        started = true;
+        groupId = next.getGroupId();
+        groupName = next.getGroupName();
+        net = 0.0;
+        pending.add(new Row(Kind.HEADER, groupName, null, null));
+        pending.add(new Row(Kind.LABELS, null, null, null));
+        return true;
+    }
+
+    private void addLine(StatementLineDto line) {
+        if (line.getAmount() == null) {
+            return;
+        }
+        if (isDebit.test(line)) {
+            net += line.getAmount();
+            pending.add(new Row(Kind.LINE, groupName, line.getAmount(), null));
+        } else {
+            net -= line.getAmount();
+            pending.add(new Row(Kind.LINE, groupName, null, line.getAmount()));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package me.vse.fintrackserver.services.utils;
+
+import lombok.Getter;
+import me.vse.fintrackserver.model.TransactionStatistics;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Průběžné statistiky částek s konstantní pamětí: průměr a rozptyl Welfordovou metodou
+ * a logaritmický histogram pro odhad kvantilů. Obojí lze odečítat i slučovat.
+ */
+public class StreamingStatistics {
+
+    private static final int BUCKETS = 128;
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    private static final double ANOMALY_SIGMAS = 2.0;
+
+    @Getter
+    private long count;
+
+    @Getter
+    private double mean;
+
+    private double m2;
+
+    private final long[] buckets = new long[BUCKETS];
+
+    public static StreamingStatistics of(TransactionStatistics statistics) {
+        StreamingStatistics result = new StreamingStatistics();
+        result.count = statistics.getSampleCount();
+        result.mean = statistics.getMean();
+        result.m2 = statistics.getM2();
+        result.decodeHistogram(statistics.getHistogram());
+        return result;
+    }
+
+    public void writeTo(TransactionStatistics statistics) {
+        statistics.setSampleCount(count);
+        statistics.setMean(mean);
+        statistics.setM2(m2);
+        statistics.setHistogram(encodeHistogram());
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        buckets[bucketOf(value)]++;
+    }
+
+    public void remove(double value) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        double previousMean = (count * mean - value) / (count - 1);
+        m2 = Math.max(0.0, m2 - (value - previousMean) * (value - mean));
+        mean = previousMean;
+        count--;
+        int bucket = bucketOf(value);
+        if (buckets[bucket] > 0) {
+            buckets[bucket]--;
+        }
+    }
+
+    public void merge(StreamingStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += other.buckets[i];
+        }
+    }
+
+    public double getStandardDeviation() {
+        return count < 2 ? 0.0 : Math.sqrt(m2 / (count - 1));
+    }
+
+    public double getAnomalyThreshold() {
+        return mean + ANOMALY_SIGMAS * getStandardDeviation();
+    }
+
+    /**
+     * Odhad kvantilu z histogramu, přesnost je dána šířkou koše (zhruba 19 %).
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i == 0 ? 0.5 : Math.pow(2.0, (i - 0.5) / BUCKETS_PER_DOUBLING);
+            }
+        }
+        return Math.pow(2.0, (double) (BUCKETS - 1) / BUCKETS_PER_DOUBLING);
+    }
+
+    private void clear() {
+        count = 0;
+        mean = 0.0;
+        m2 = 0.0;
+        Arrays.fill(buckets, 0);
+    }
+
+    private int bucketOf(double value) {
+        if (value < 1.0) {
+            return 0;
+        }
+        int bucket = 1 + (int) Math.floor(BUCKETS_PER_DOUBLING * Math.log(value) / Math.log(2.0));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private String encodeHistogram() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i] > 0) {
+                joiner.add(i + ":" + buckets[i]);
+            }
+        }
+        return joiner.toString();
+    }
+
+    private void decodeHistogram(String histogram) {
+        if (histogram == null || histogram.isEmpty()) {
+            return;
+        }
+        for (String entry : histogram.split(",")) {
+            String[] parts = entry.split(":");
+            buckets[Integer.parseInt(parts[0])] = Long.parseLong(parts[1]);
+        }
+    }
+}
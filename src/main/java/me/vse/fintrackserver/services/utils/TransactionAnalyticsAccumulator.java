@@ -0,0 +1,108 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Souhrnné statistiky transakcí účtu spočtené jedním průchodem bez uchovávání jednotlivých transakcí.
+ */
+public class TransactionAnalyticsAccumulator {
+
+    private static final int RECENT_LIMIT = 5;
+    private static final Comparator<TransactionAnalyticsRowDto> BY_EXECUTION_DATE = Comparator.comparing(
+            TransactionAnalyticsRowDto::getExecutionDateTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final SummaryStatistics statistics = new SummaryStatistics();
+
+    private final Map<String, Double> categoryTotals = new HashMap<>();
+
+    private final SortedMap<YearMonth, Double> monthlyTotals = new TreeMap<>();
+
+    private final Map<DayOfWeek, Long> dayOfWeekCounts = new EnumMap<>(DayOfWeek.class);
+
+    private final PriorityQueue<TransactionAnalyticsRowDto> recent = new PriorityQueue<>(BY_EXECUTION_DATE);
+
+    public void accept(TransactionAnalyticsRowDto row) {
+        statistics.addValue(row.getAmount());
+
+        if (row.getCategoryName() != null) {
+            categoryTotals.merge(row.getCategoryName(), row.getAmount(), Double::sum);
+        }
+
+        if (row.getExecutionDateTime() != null) {
+            monthlyTotals.merge(YearMonth.from(row.getExecutionDateTime()), row.getAmount(), Double::sum);
+            dayOfWeekCounts.merge(row.getExecutionDateTime().getDayOfWeek(), 1L, Long::sum);
+        }
+
+        recent.offer(row);
+        if (recent.size() > RECENT_LIMIT) {
+            recent.poll();
+        }
+    }
+
+    public long getCount() {
+        return statistics.getN();
+    }
+
+    public boolean isEmpty() {
+        return statistics.getN() == 0;
+    }
+
+    public double getTotalAmount() {
+        return statistics.getSum();
+    }
+
+    public double getMean() {
+        return isEmpty() ? 0.0 : statistics.getMean();
+    }
+
+    public double getStandardDeviation() {
+        return statistics.getN() < 2 ? 0.0 : statistics.getStandardDeviation();
+    }
+
+    /**
+     * Akumulátor se sdílí přes cache, proto se ven vydávají jen neměnné kopie.
+     */
+    public Map<String, Double> getCategoryTotals() {
+        return Collections.unmodifiableMap(new HashMap<>(categoryTotals));
+    }
+
+    public SortedMap<YearMonth, Double> getMonthlyTotals() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(monthlyTotals));
+    }
+
+    public double getAverageMonthlyTotal() {
+        return monthlyTotals.values().stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+    }
+
+    public Map<String, Double> getMonthlyTotalsByKey() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        monthlyTotals.forEach((month, total) -> result.put(month.toString(), total));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public Map<String, Long> getDayOfWeekCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        dayOfWeekCounts.forEach((day, count) -> result.put(day.toString(), count));
+        return Collections.unmodifiableMap(result);
+    }
+
+    public Optional<String> getMostFrequentDay() {
+        return dayOfWeekCounts.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(entry -> entry.getKey().toString());
+    }
+
+    /**
+     * ID nejnovějších transakcí seřazená od nejnovější.
+     */
+    public List<String> getRecentTransactionIds() {
+        List<TransactionAnalyticsRowDto> rows = new ArrayList<>(recent);
+        rows.sort(BY_EXECUTION_DATE.reversed());
+        return rows.stream().map(TransactionAnalyticsRowDto::getId).toList();
+    }
+}
@@ -0,0 +1,51 @@
+package me.vse.fintrackserver.services.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * # Kurzor pro stránkování transakcí
+ * Neprůhledná pozice (datum provedení, id) poslední vrácené transakce.
+ * Klient ji dostane jako řetězec a pošle zpět pro načtení další stránky.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime executionDateTime;
+    private String id;
+
+    public static TransactionCursor of(TransactionListItemDto transaction) {
+        return new TransactionCursor(transaction.getExecutionDateTime(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = executionDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = raw.indexOf(SEPARATOR);
+            if (separatorIndex <= 0 || separatorIndex == raw.length() - 1) {
+                throw new IllegalArgumentException(ErrorMessages.INCORRECT_CURSOR.name());
+            }
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separatorIndex)),
+                    raw.substring(separatorIndex + 1)
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException(ErrorMessages.INCORRECT_CURSOR.name());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.FintrackServerApplication;
+import me.vse.fintrackserver.enums.AccountType;
+import me.vse.fintrackserver.enums.PostingType;
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Řádky posting se zakládají stejnými příkazy jako v migraci changelog_101720262200,
+ * takže test ověřuje i rozpis existujících transakcí, nejen dotazy repozitáře.
+ */
+@SpringBootTest(classes = FintrackServerApplication.class)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PostingRepositoryTest {
+
+    private static final String BACKFILL_CHANGELOG = "liquibase/changelog_101720262200.xml";
+
+    @Autowired
+    private PostingRepository postingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Account account;
+    private Account anotherAccount;
+    private Transaction income;
+    private Transaction expense;
+    private Transaction revenue;
+    private Transaction cost;
+    private Transaction outgoingTransfer;
+    private Transaction incomingTransfer;
+    private Transaction selfTransfer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        account = Account.builder()
+                .name("myAccount")
+                .type(AccountType.CURRENT_ACCOUNT)
+                .currency(Currency.getInstance("USD"))
+                .build();
+        anotherAccount = Account.builder()
+                .name("anotherAccount")
+                .type(AccountType.SAVINGS_ACCOUNT)
+                .currency(Currency.getInstance("EUR"))
+                .build();
+        accountRepository.saveAll(List.of(account, anotherAccount));
+
+        income = transaction(account, null, TransactionTypes.INCOME, 150.0, LocalDateTime.of(2024, 9, 11, 12, 0));
+        expense = transaction(account, null, TransactionTypes.EXPENSE, 250.0, LocalDateTime.of(2024, 9, 15, 12, 0));
+        revenue = transaction(account, null, TransactionTypes.REVENUE, 1000.0, LocalDateTime.of(2024, 9, 18, 16, 0));
+        cost = transaction(account, null, TransactionTypes.COST, 100.0, LocalDateTime.of(2024, 10, 2, 7, 40));
+        outgoingTransfer = transaction(account, anotherAccount, TransactionTypes.TRANSFER, 200.0,
+                LocalDateTime.of(2024, 10, 2, 7, 40));
+        incomingTransfer = transaction(anotherAccount, account, TransactionTypes.TRANSFER, 150.0,
+                LocalDateTime.of(2024, 10, 6, 12, 40));
+        selfTransfer = transaction(account, account, TransactionTypes.TRANSFER, 300.0,
+                LocalDateTime.of(2024, 10, 8, 9, 0));
+        Transaction foreignExpense = transaction(anotherAccount, null, TransactionTypes.EXPENSE, 500.0,
+                LocalDateTime.of(2024, 10, 10, 11, 0));
+
+        transactionRepository.saveAll(List.of(income, expense, revenue, cost, outgoingTransfer, incomingTransfer,
+                selfTransfer, foreignExpense));
+        transactionRepository.flush();
+
+        for (String statement : backfillStatements()) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        postingRepository.deleteAll();
+        transactionRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void getTotalsTest() {
+        TransactionTotalsDto totals = postingRepository.getTotals(account.getId());
+        assertEquals(1300.0, totals.getTotalIncome());
+        assertEquals(550.0, totals.getTotalExpense());
+        assertEquals(1000.0, totals.getTotalRevenue());
+        assertEquals(100.0, totals.getTotalCost());
+
+        TransactionTotalsDto receiverTotals = postingRepository.getTotals(anotherAccount.getId());
+        assertEquals(200.0, receiverTotals.getTotalIncome());
+        assertEquals(650.0, receiverTotals.getTotalExpense());
+
+        TransactionTotalsDto octoberTotals = postingRepository.getTotals(account.getId(),
+                LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 10, 31, 0, 0));
+        assertEquals(150.0, octoberTotals.getTotalIncome());
+        assertEquals(300.0, octoberTotals.getTotalExpense());
+        assertEquals(0.0, octoberTotals.getTotalRevenue());
+        assertEquals(100.0, octoberTotals.getTotalCost());
+    }
+
+    @Test
+    void getNetFlowTest() {
+        LocalDateTime endDate = LocalDateTime.of(2024, 10, 31, 0, 0);
+
+        assertEquals(750.0, postingRepository.getNetFlow(account.getId(), endDate));
+        assertEquals(-150.0, postingRepository.getNetFlow(account.getId(),
+                LocalDateTime.of(2024, 10, 1, 0, 0), endDate));
+        assertEquals(-450.0, postingRepository.getNetFlow(anotherAccount.getId(), endDate));
+        assertEquals(LocalDateTime.of(2024, 9, 11, 12, 0),
+                postingRepository.findFirstExecutionDateTime(account.getId()));
+        assertEquals(4, postingRepository.countBetween(account.getId(),
+                LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 11, 1, 0, 0)));
+    }
+
+    @Test
+    void findTransactionsTest() {
+        List<Transaction> transfers = postingRepository.findTransactions(account.getId(),
+                List.of(PostingType.TRANSFER_IN, PostingType.TRANSFER_OUT, PostingType.TRANSFER_INTERNAL));
+        assertEquals(idsOf(List.of(outgoingTransfer, incomingTransfer, selfTransfer)),
+                transfers.stream().map(Transaction::getId).collect(Collectors.toSet()));
+
+        List<Transaction> received = postingRepository.findTransactions(anotherAccount.getId(),
+                List.of(PostingType.TRANSFER_IN));
+        assertEquals(Set.of(outgoingTransfer.getId()),
+                received.stream().map(Transaction::getId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void findListItemsTest() {
+        List<TransactionListItemDto> items = postingRepository.findListItems(account.getId(),
+                List.of(PostingType.EXPENSE, PostingType.COST));
+
+        assertEquals(List.of(cost.getId(), expense.getId()),
+                items.stream().map(TransactionListItemDto::getId).toList());
+        assertEquals(TransactionTypes.COST, items.get(0).getType());
+        assertEquals(100.0, items.get(0).getAmount());
+    }
+
+    @Test
+    void findPageAfterCursorTest() {
+        LocalDateTime fromDate = LocalDateTime.of(2024, 9, 1, 0, 0);
+        List<String> expected = List.of(income, expense, revenue, cost, outgoingTransfer, incomingTransfer,
+                        selfTransfer).stream()
+                .sorted(Comparator.comparing(Transaction::getExecutionDateTime)
+                        .thenComparing(Transaction::getId)
+                        .reversed())
+                .map(Transaction::getId)
+                .toList();
+
+        List<TransactionListItemDto> page = postingRepository.findPage(account.getId(), fromDate,
+                LocalDateTime.of(2024, 10, 31, 0, 0), PageRequest.of(0, 3));
+        List<String> actual = new ArrayList<>();
+        while (!page.isEmpty()) {
+            page.forEach(item -> actual.add(item.getId()));
+            TransactionListItemDto last = page.get(page.size() - 1);
+            page = postingRepository.findPageAfterCursor(account.getId(), fromDate, last.getExecutionDateTime(),
+                    last.getId(), PageRequest.of(0, 3));
+        }
+
+        assertEquals(expected, actual);
+    }
+
+    private Transaction transaction(Account account, Account receiver, TransactionTypes type, double amount,
+                                    LocalDateTime executionDateTime) {
+        return Transaction.builder()
+                .account(account)
+                .receiver(receiver)
+                .type(type)
+                .amount(amount)
+                .executionDateTime(executionDateTime)
+                .build();
+    }
+
+    private Set<String> idsOf(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).collect(Collectors.toSet());
+    }
+
+    private List<String> backfillStatements() throws IOException {
+        String changelog;
+        try (InputStream inputStream = new ClassPathResource(BACKFILL_CHANGELOG).getInputStream()) {
+            changelog = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        return Arrays.stream(changelog.split(";"))
+                .map(String::trim)
+                .filter(statement -> statement.startsWith("insert into posting"))
+                .toList();
+    }
+}
@@ -0,0 +1,124 @@
+package me.vse.fintrackserver.repositories;
+
+import me.vse.fintrackserver.FintrackServerApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static me.vse.fintrackserver.ATest.randomString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = FintrackServerApplication.class)
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class TransactionQueryPlanTest {
+
+    private static final String ACCOUNT_INDEX = "IDX_TRANSACTION_ACCOUNT_DATE";
+    private static final String RECEIVER_INDEX = "IDX_TRANSACTION_RECEIVER_DATE";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String STATISTICS_TABLE = "TRANSACTION_PLAN_STATS";
+
+    /**
+     * Nad prázdnou tabulkou je full scan nejlevnější, plány se proto počítají se statistikami velké tabulky.
+     * Původní statistiky tabulky i indexů se předem uloží a po testu obnoví.
+     */
+    @BeforeAll
+    void setStatistics() {
+        jdbcTemplate.execute("""
+            BEGIN
+                BEGIN
+                    DBMS_STATS.DROP_STAT_TABLE(ownname => USER, stattab => '%1$s');
+                EXCEPTION
+                    WHEN OTHERS THEN NULL;
+                END;
+                DBMS_STATS.CREATE_STAT_TABLE(ownname => USER, stattab => '%1$s');
+                DBMS_STATS.EXPORT_TABLE_STATS(ownname => USER, tabname => 'TRANSACTION',
+                                              stattab => '%1$s', cascade => TRUE);
+            END;
+        """.formatted(STATISTICS_TABLE));
+        jdbcTemplate.execute("""
+            BEGIN
+                DBMS_STATS.SET_TABLE_STATS(ownname => USER, tabname => 'TRANSACTION',
+                                           numrows => 5000000, numblks => 100000);
+                DBMS_STATS.SET_COLUMN_STATS(ownname => USER, tabname => 'TRANSACTION', colname => 'ACCOUNT_ID',
+                                            distcnt => 50000, density => 0.00002);
+                DBMS_STATS.SET_COLUMN_STATS(ownname => USER, tabname => 'TRANSACTION', colname => 'RECEIVER_ID',
+                                            distcnt => 50000, density => 0.00002, nullcnt => 4500000);
+                DBMS_STATS.SET_INDEX_STATS(ownname => USER, indname => 'IDX_TRANSACTION_ACCOUNT_DATE',
+                                           numrows => 5000000, numlblks => 20000, numdist => 5000000,
+                                           clstfct => 200000, indlevel => 2);
+                DBMS_STATS.SET_INDEX_STATS(ownname => USER, indname => 'IDX_TRANSACTION_RECEIVER_DATE',
+                                           numrows => 500000, numlblks => 2000, numdist => 500000,
+                                           clstfct => 100000, indlevel => 2);
+            END;
+        """);
+    }
+
+    /**
+     * Nastavené statistiky se smažou a nahradí uloženými, tabulka bez statistik zůstane bez nich.
+     */
+    @AfterAll
+    void restoreStatistics() {
+        jdbcTemplate.execute("""
+            BEGIN
+                DBMS_STATS.DELETE_TABLE_STATS(ownname => USER, tabname => 'TRANSACTION', cascade_indexes => TRUE);
+                DBMS_STATS.IMPORT_TABLE_STATS(ownname => USER, tabname => 'TRANSACTION',
+                                              stattab => '%1$s', cascade => TRUE);
+                DBMS_STATS.DROP_STAT_TABLE(ownname => USER, stattab => '%1$s');
+            END;
+        """.formatted(STATISTICS_TABLE));
+    }
+
+    private Stream<Arguments> getNativeQueries() {
+        return Arrays.stream(TransactionRepository.class.getMethods())
+                .filter(method -> method.isAnnotationPresent(Query.class))
+                .filter(method -> method.getAnnotation(Query.class).nativeQuery())
+                .map(method -> Arguments.of(method.getName(), method.getAnnotation(Query.class).value()));
+    }
+
+    @ParameterizedTest(name = "Test execution plan of {0}. Should read both branches by index without full scan")
+    @MethodSource("getNativeQueries")
+    void nativeQueryPlanTest(String name, String sql) {
+        List<String> plan = explain(sql.replace(":#{#account.id}", ":accountId"));
+
+        assertTrue(usesIndex(plan, ACCOUNT_INDEX), name + " " + plan);
+        assertTrue(usesIndex(plan, RECEIVER_INDEX), name + " " + plan);
+        assertFalse(plan.contains("TABLE ACCESS FULL TRANSACTION"), name + " " + plan);
+    }
+
+    private boolean usesIndex(List<String> plan, String index) {
+        return plan.stream().anyMatch(step -> step.startsWith("INDEX RANGE SCAN") && step.endsWith(index));
+    }
+
+    private List<String> explain(String sql) {
+        String statementId = randomString(20);
+        jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + sql);
+        return jdbcTemplate.queryForList("""
+            SELECT TRIM(operation || ' ' || options) || ' ' || object_name
+            FROM plan_table
+            WHERE statement_id = ?
+            ORDER BY id
+        """, String.class, statementId);
+    }
+}
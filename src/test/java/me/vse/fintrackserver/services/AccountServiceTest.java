@@ -7,6 +7,7 @@ import me.vse.fintrackserver.enums.TransactionTypes;
 import me.vse.fintrackserver.enums.UserRights;
 import me.vse.fintrackserver.mappers.AccountMapper;
 import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
 import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.rest.requests.AccountAddRequest;
 import org.easymock.EasyMock;
@@ -19,11 +20,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Currency;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.easymock.EasyMock.*;
@@ -40,6 +41,10 @@ public class AccountServiceTest {
     private AccountMapper accountMapper;
     private AssetService assetService;
     private TransactionService transactionService;
+    private TransactionAggregationService transactionAggregationService;
+    private BalanceCheckpointService balanceCheckpointService;
+    private AdviceSchedulerService adviceSchedulerService;
+    private AccountAccessService accountAccessService;
     private AccountService accountService;
 
     @BeforeEach
@@ -49,15 +54,49 @@ public class AccountServiceTest {
         accountMapper = EasyMock.mock(AccountMapper.class);
         assetService = EasyMock.mock(AssetService.class);
         transactionService = EasyMock.mock(TransactionService.class);
+        transactionAggregationService = EasyMock.mock(TransactionAggregationService.class);
+        balanceCheckpointService = EasyMock.mock(BalanceCheckpointService.class);
+        adviceSchedulerService = EasyMock.niceMock(AdviceSchedulerService.class);
+        accountAccessService = EasyMock.niceMock(AccountAccessService.class);
+        replay(adviceSchedulerService, accountAccessService);
         accountService = AccountService.builder()
                 .entityManager(entityManager)
                 .accountRepository(accountRepository)
                 .accountMapper(accountMapper)
                 .assetService(assetService)
                 .transactionService(transactionService)
+                .transactionAggregationService(transactionAggregationService)
+                .balanceCheckpointService(balanceCheckpointService)
+                .adviceSchedulerService(adviceSchedulerService)
+                .accountAccessService(accountAccessService)
                 .build();
     }
 
+    private void mockTransactionTotals(Account account) {
+        List<Transaction> transactions = account.getTransactions() != null
+                ? account.getTransactions().stream().filter(Objects::nonNull).toList()
+                : new ArrayList<>();
+
+        expect(transactionAggregationService.getIncome(account.getId())).andReturn(null).anyTimes();
+        expect(transactionAggregationService.getExpense(account.getId())).andReturn(null).anyTimes();
+        expect(transactionAggregationService.getTotal(account.getId())).andReturn(null).anyTimes();
+        expect(transactionService.getTransactionTotals(account, null, null)).andReturn(
+                new TransactionTotalsDto(
+                        sumByType(transactions, TransactionTypes.INCOME),
+                        sumByType(transactions, TransactionTypes.EXPENSE),
+                        sumByType(transactions, TransactionTypes.REVENUE),
+                        sumByType(transactions, TransactionTypes.COST)
+                )
+        ).anyTimes();
+    }
+
+    private Double sumByType(List<Transaction> transactions, TransactionTypes type) {
+        return transactions.stream()
+                .filter(transaction -> type.equals(transaction.getType()))
+                .mapToDouble(Transaction::getAmount)
+                .sum();
+    }
+
     private Stream<Arguments> getAccountAddScenarios() {
         return Stream.of(
                 Arguments.of(false, "accName", "USD",
@@ -809,44 +848,9 @@ public class AccountServiceTest {
             return asset.getAcquisitionPrice();
         }).anyTimes();
 
-        if (account.getTransactions() != null) {
-            expect(transactionService.getRevenueTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.REVENUE.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-            expect(transactionService.getIncomeTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.INCOME.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-            expect(transactionService.getCostTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.COST.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-            expect(transactionService.getExpenseTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.EXPENSE.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-        } else {
-            expect(transactionService.getRevenueTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-            expect(transactionService.getIncomeTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-            expect(transactionService.getCostTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-            expect(transactionService.getExpenseTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-        }
-
+        mockTransactionTotals(account);
 
-        replay(entityManager, assetService, transactionService);
+        replay(entityManager, assetService, transactionService, transactionAggregationService);
 
         if (exceptionMessage != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
@@ -869,20 +873,9 @@ public class AccountServiceTest {
             return asset.getAcquisitionPrice();
         }).anyTimes();
 
-        if (account.getTransactions() != null) {
-            expect(transactionService.getIncomeTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.INCOME.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-        } else {
-            expect(transactionService.getIncomeTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-        }
-
+        mockTransactionTotals(account);
 
-        replay(entityManager, assetService, transactionService);
+        replay(entityManager, assetService, transactionService, transactionAggregationService);
 
         if (exceptionMessage != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
@@ -1239,20 +1232,9 @@ public class AccountServiceTest {
             return asset.getAcquisitionPrice();
         }).anyTimes();
 
-        if (account.getTransactions() != null) {
-            expect(transactionService.getExpenseTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.EXPENSE.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-        } else {
-            expect(transactionService.getExpenseTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-        }
-
+        mockTransactionTotals(account);
 
-        replay(entityManager, assetService, transactionService);
+        replay(entityManager, assetService, transactionService, transactionAggregationService);
 
         if (exceptionMessage != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
@@ -1608,28 +1590,9 @@ public class AccountServiceTest {
             return asset.getAcquisitionPrice();
         }).anyTimes();
 
-        if (account.getTransactions() != null) {
-            expect(transactionService.getExpenseTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.EXPENSE.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-            expect(transactionService.getIncomeTransactions(account, null, null)).andReturn(
-                    account.getTransactions().stream()
-                            .filter(Objects::nonNull)
-                            .filter(transaction -> TransactionTypes.INCOME.equals(transaction.getType()))
-                            .collect(Collectors.toList())
-            ).anyTimes();
-        } else {
-            expect(transactionService.getExpenseTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-            expect(transactionService.getIncomeTransactions(account, null, null))
-                    .andReturn(new ArrayList<>()).anyTimes();
-        }
-
+        mockTransactionTotals(account);
 
-        replay(entityManager, assetService, transactionService);
+        replay(entityManager, assetService, transactionService, transactionAggregationService);
 
         if (exceptionMessage != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
@@ -1639,4 +1602,17 @@ public class AccountServiceTest {
             assertEquals(expected, accountService.getBalance(account.getId(), null, null));
         }
     }
+
+    @Test
+    public void getBalanceAsOfDateTest() {
+        Account account = Account.builder().id("accId").initialAmount(100.0).build();
+        LocalDateTime endDate = LocalDateTime.of(2024, 3, 10, 12, 0);
+
+        expect(entityManager.find(Account.class, account.getId())).andReturn(account);
+        expect(balanceCheckpointService.getNetFlowAsOf(account, endDate)).andReturn(250.0);
+        replay(entityManager, transactionService, transactionAggregationService, balanceCheckpointService);
+
+        assertEquals(350.0, accountService.getBalance(account.getId(), null, endDate));
+        verify(entityManager, balanceCheckpointService);
+    }
 }
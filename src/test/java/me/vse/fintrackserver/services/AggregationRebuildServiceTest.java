@@ -0,0 +1,119 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.Task;
+import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.TaskRepository;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AggregationRebuildServiceTest {
+
+    private EntityManager entityManager;
+    private AccountRepository accountRepository;
+    private TaskRepository taskRepository;
+    private TransactionAggregationService transactionAggregationService;
+    private TransactionStatisticsService transactionStatisticsService;
+    private AggregationRebuildService aggregationRebuildService;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = EasyMock.mock(EntityManager.class);
+        accountRepository = EasyMock.mock(AccountRepository.class);
+        taskRepository = EasyMock.mock(TaskRepository.class);
+        transactionAggregationService = EasyMock.mock(TransactionAggregationService.class);
+        transactionStatisticsService = EasyMock.mock(TransactionStatisticsService.class);
+        aggregationRebuildService = new AggregationRebuildService();
+        ReflectionTestUtils.setField(aggregationRebuildService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(aggregationRebuildService, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(aggregationRebuildService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(aggregationRebuildService, "transactionAggregationService",
+                transactionAggregationService);
+        ReflectionTestUtils.setField(aggregationRebuildService, "transactionStatisticsService",
+                transactionStatisticsService);
+        ReflectionTestUtils.setField(aggregationRebuildService, "transactionManager",
+                EasyMock.niceMock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(aggregationRebuildService, "threads", 1);
+        ReflectionTestUtils.setField(aggregationRebuildService, "partitions", 1);
+        ReflectionTestUtils.setField(aggregationRebuildService, "batchSize", 2);
+    }
+
+    @Test
+    public void startWithoutUserTest() {
+        expect(entityManager.find(User.class, "userId")).andReturn(null);
+        replay(entityManager, taskRepository);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> aggregationRebuildService.start("userId", false));
+
+        assertEquals(ErrorMessages.USER_DOESNT_EXIST.name(), exception.getMessage());
+        verify(entityManager, taskRepository);
+    }
+
+    @Test
+    public void startWithoutAdminTest() {
+        expect(entityManager.find(User.class, "userId")).andReturn(User.builder().id("userId").build());
+        replay(entityManager, taskRepository);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> aggregationRebuildService.start("userId", false));
+
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), exception.getMessage());
+        verify(entityManager, taskRepository);
+    }
+
+    @Test
+    public void startRebuildsEveryAccountAndFinishesPartitionTest() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        Task task = Task.builder().id("taskId").build();
+
+        expect(entityManager.find(User.class, "userId"))
+                .andReturn(User.builder().id("userId").isAdmin(true).build());
+        expect(taskRepository.findByName("AGGREGATION_REBUILD_1_0")).andReturn(Optional.empty());
+        expect(taskRepository.save(anyObject(Task.class))).andAnswer(() -> {
+            Task saved = getCurrentArgument(0);
+            assertEquals("AGGREGATION_REBUILD_1_0", saved.getName());
+            assertFalse(saved.isFinished());
+            return task;
+        });
+        expect(accountRepository.findIdsByPartition(0, 0, null, PageRequest.of(0, 2)))
+                .andReturn(List.of("firstId", "secondId"));
+        for (String accountId : List.of("firstId", "secondId")) {
+            transactionAggregationService.rebuildAccount(accountId);
+            transactionStatisticsService.rebuildAccount(accountId);
+            taskRepository.updateCheckpoint("taskId", accountId);
+        }
+        expect(accountRepository.findIdsByPartition(0, 0, "secondId", PageRequest.of(0, 2)))
+                .andReturn(List.of());
+        expect(taskRepository.save(task)).andAnswer(() -> {
+            assertTrue(task.isFinished());
+            assertEquals("secondId", task.getCheckpoint());
+            finished.countDown();
+            return task;
+        });
+        replay(entityManager, accountRepository, taskRepository, transactionAggregationService,
+                transactionStatisticsService);
+
+        aggregationRebuildService.start("userId", false);
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        verify(entityManager, accountRepository, taskRepository, transactionAggregationService,
+                transactionStatisticsService);
+    }
+}
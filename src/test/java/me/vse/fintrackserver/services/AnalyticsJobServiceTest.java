@@ -0,0 +1,146 @@
+package me.vse.fintrackserver.services;
+
+import me.vse.fintrackserver.enums.AnalyticsJobStatus;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.rest.responses.AnalyticsJobResponse;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AnalyticsJobServiceTest {
+
+    private AnalyticsService analyticsService;
+    private SimpMessagingTemplate messagingTemplate;
+    private AccountAccessService accountAccessService;
+    private AnalyticsJobService analyticsJobService;
+
+    @BeforeEach
+    public void setUp() {
+        analyticsService = EasyMock.mock(AnalyticsService.class);
+        messagingTemplate = EasyMock.mock(SimpMessagingTemplate.class);
+        accountAccessService = EasyMock.mock(AccountAccessService.class);
+        analyticsJobService = new AnalyticsJobService();
+        ReflectionTestUtils.setField(analyticsJobService, "analyticsService", analyticsService);
+        ReflectionTestUtils.setField(analyticsJobService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(analyticsJobService, "accountAccessService", accountAccessService);
+        ReflectionTestUtils.setField(analyticsJobService, "threads", 1);
+        ReflectionTestUtils.setField(analyticsJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(analyticsJobService, "retentionMinutes", 60L);
+        ReflectionTestUtils.invokeMethod(analyticsJobService, "init");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(analyticsJobService, "shutdown");
+    }
+
+    @Test
+    public void submitRunsAnalysisByAccountIdTest() throws InterruptedException {
+        Account account = Account.builder().id("accId").build();
+        expect(analyticsService.analyzeAccountTransactions(eq("accId"), eq("cz"), anyString()))
+                .andReturn(Map.of("accountId", "accId"));
+        expect(accountAccessService.canRead("userId", "accId")).andReturn(true).anyTimes();
+        replay(analyticsService, messagingTemplate, accountAccessService);
+
+        AnalyticsJobResponse submitted = analyticsJobService.submit(account, "cz");
+
+        assertEquals(AnalyticsJobStatus.QUEUED, submitted.getStatus());
+        AnalyticsJobResponse job = awaitFinished(submitted.getJobId());
+        assertEquals(AnalyticsJobStatus.DONE, job.getStatus());
+        assertEquals(Map.of("accountId", "accId"), job.getResult());
+        verify(analyticsService, messagingTemplate);
+    }
+
+    @Test
+    public void submitKeepsOneJobPerAccountTest() throws InterruptedException {
+        Account account = Account.builder().id("accId").build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        expect(analyticsService.analyzeAccountTransactions(eq("accId"), eq("cz"), anyString())).andAnswer(() -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of();
+        });
+        expect(accountAccessService.canRead("userId", "accId")).andReturn(true).anyTimes();
+        replay(analyticsService, messagingTemplate, accountAccessService);
+
+        AnalyticsJobResponse first = analyticsJobService.submit(account, "cz");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AnalyticsJobResponse second = analyticsJobService.submit(account, "en");
+        release.countDown();
+
+        assertEquals(first.getJobId(), second.getJobId());
+        assertEquals(AnalyticsJobStatus.DONE, awaitFinished(first.getJobId()).getStatus());
+        verify(analyticsService, messagingTemplate);
+    }
+
+    @Test
+    public void failedJobIsReportedTest() throws InterruptedException {
+        Account account = Account.builder().id("accId").build();
+        expect(analyticsService.analyzeAccountTransactions(eq("accId"), eq("cz"), anyString()))
+                .andThrow(new IllegalArgumentException(ErrorMessages.ACCOUNT_DOESNT_EXIST.name()));
+        CountDownLatch reported = new CountDownLatch(1);
+        messagingTemplate.convertAndSend(eq("/topic/analytics/accId"), anyObject(Object.class));
+        expectLastCall().andAnswer(() -> {
+            reported.countDown();
+            return null;
+        });
+        expect(accountAccessService.canRead("userId", "accId")).andReturn(true).anyTimes();
+        replay(analyticsService, messagingTemplate, accountAccessService);
+
+        AnalyticsJobResponse job = awaitFinished(analyticsJobService.submit(account, "cz").getJobId());
+
+        assertTrue(reported.await(5, TimeUnit.SECONDS));
+        assertEquals(AnalyticsJobStatus.FAILED, job.getStatus());
+        assertEquals(ErrorMessages.ACCOUNT_DOESNT_EXIST.name(), job.getError());
+        verify(analyticsService, messagingTemplate);
+    }
+
+    @Test
+    public void getJobChecksAccessTest() throws InterruptedException {
+        Account account = Account.builder().id("accId").build();
+        expect(analyticsService.analyzeAccountTransactions(eq("accId"), eq("cz"), anyString())).andReturn(Map.of());
+        expect(accountAccessService.canRead("userId", "accId")).andReturn(true).anyTimes();
+        expect(accountAccessService.canRead("otherId", "accId")).andReturn(false);
+        replay(analyticsService, messagingTemplate, accountAccessService);
+
+        String jobId = analyticsJobService.submit(account, "cz").getJobId();
+        awaitFinished(jobId);
+
+        IllegalArgumentException foreign = assertThrows(IllegalArgumentException.class,
+                () -> analyticsJobService.getJob(jobId, "otherId"));
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), foreign.getMessage());
+
+        IllegalArgumentException anonymous = assertThrows(IllegalArgumentException.class,
+                () -> analyticsJobService.getJob(jobId, null));
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), anonymous.getMessage());
+
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> analyticsJobService.getJob("unknownId", "userId"));
+        assertEquals(ErrorMessages.ANALYTICS_JOB_DOESNT_EXIST.name(), unknown.getMessage());
+        verify(accountAccessService);
+    }
+
+    private AnalyticsJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        AnalyticsJobResponse job = analyticsJobService.getJob(jobId, "userId");
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = analyticsJobService.getJob(jobId, "userId");
+        }
+        return job;
+    }
+}
@@ -0,0 +1,191 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Budget;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.User;
+import me.vse.fintrackserver.repositories.BudgetRepository;
+import me.vse.fintrackserver.repositories.TransactionRollupRepository;
+import me.vse.fintrackserver.rest.requests.BudgetRequest;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class BudgetServiceTest {
+
+    private EntityManager entityManager;
+    private BudgetRepository budgetRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private AccountAccessService accountAccessService;
+    private BudgetService budgetService;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = EasyMock.mock(EntityManager.class);
+        budgetRepository = EasyMock.mock(BudgetRepository.class);
+        messagingTemplate = EasyMock.mock(SimpMessagingTemplate.class);
+        accountAccessService = EasyMock.mock(AccountAccessService.class);
+        budgetService = BudgetService.builder()
+                .entityManager(entityManager)
+                .budgetRepository(budgetRepository)
+                .transactionRollupRepository(EasyMock.mock(TransactionRollupRepository.class))
+                .messagingTemplate(messagingTemplate)
+                .pushNotificationService(EasyMock.mock(PushNotificationService.class))
+                .accountAccessService(accountAccessService)
+                .build();
+    }
+
+    @Test
+    public void applySpendNotifiesOnlyWhenLimitIsCrossedTest() {
+        Account account = Account.builder().id("accId").build();
+        Budget budget = Budget.builder()
+                .account(account)
+                .monthlyLimit(100.0)
+                .spentMonthToDate(80.0)
+                .periodStart(LocalDate.now().withDayOfMonth(1))
+                .build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(30.0)
+                .executionDateTime(LocalDateTime.now())
+                .build();
+
+        expect(budgetRepository.findAffectedForUpdate(account, null)).andReturn(List.of(budget)).times(2);
+        messagingTemplate.convertAndSend(eq("/topic/analytics/accId"), anyObject(Object.class));
+        expectLastCall().once();
+        replay(budgetRepository, messagingTemplate);
+
+        budgetService.applySpend(transaction);
+        budgetService.applySpend(transaction);
+
+        verify(budgetRepository, messagingTemplate);
+        assertEquals(140.0, budget.getSpentMonthToDate());
+    }
+
+    @Test
+    public void applySpendNotifiesAfterCommitTest() {
+        Account account = Account.builder().id("accId").build();
+        Budget budget = Budget.builder()
+                .account(account)
+                .monthlyLimit(100.0)
+                .spentMonthToDate(80.0)
+                .periodStart(LocalDate.now().withDayOfMonth(1))
+                .build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(30.0)
+                .executionDateTime(LocalDateTime.now())
+                .build();
+
+        expect(budgetRepository.findAffectedForUpdate(account, null)).andReturn(List.of(budget));
+        replay(budgetRepository, messagingTemplate);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            budgetService.applySpend(transaction);
+            verify(budgetRepository, messagingTemplate);
+
+            reset(messagingTemplate);
+            messagingTemplate.convertAndSend(eq("/topic/analytics/accId"), anyObject(Object.class));
+            replay(messagingTemplate);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(messagingTemplate);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void applySpendRollsOverStalePeriodTest() {
+        Account account = Account.builder().id("accId").build();
+        Budget budget = Budget.builder()
+                .account(account)
+                .monthlyLimit(100.0)
+                .spentMonthToDate(95.0)
+                .periodStart(LocalDate.now().withDayOfMonth(1).minusMonths(1))
+                .build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .type(TransactionTypes.TRANSFER)
+                .receiver(Account.builder().id("otherId").build())
+                .amount(10.0)
+                .executionDateTime(LocalDateTime.now())
+                .build();
+
+        expect(budgetRepository.findAffectedForUpdate(account, null)).andReturn(List.of(budget));
+        replay(budgetRepository, messagingTemplate);
+
+        budgetService.applySpend(transaction);
+
+        verify(budgetRepository, messagingTemplate);
+        assertEquals(10.0, budget.getSpentMonthToDate());
+        assertEquals(LocalDate.now().withDayOfMonth(1), budget.getPeriodStart());
+    }
+
+    @Test
+    public void applySpendIgnoresIncomeAndOtherMonthsTest() {
+        Account account = Account.builder().id("accId").build();
+        replay(budgetRepository, messagingTemplate);
+
+        budgetService.applySpend(Transaction.builder()
+                .account(account)
+                .type(TransactionTypes.INCOME)
+                .amount(30.0)
+                .executionDateTime(LocalDateTime.now())
+                .build());
+        budgetService.revertSpend(Transaction.builder()
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(30.0)
+                .executionDateTime(LocalDateTime.now().minusMonths(2))
+                .build());
+
+        verify(budgetRepository, messagingTemplate);
+    }
+
+    @Test
+    public void saveWithIncorrectLimitTest() {
+        replay(budgetRepository, messagingTemplate);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> budgetService.save(BudgetRequest.builder().accountId("accId").monthlyLimit(0.0).build()));
+
+        assertEquals(ErrorMessages.INCORRECT_BUDGET_LIMIT.name(), exception.getMessage());
+    }
+
+    @Test
+    public void saveWithoutWriteAccessTest() {
+        expect(entityManager.find(Account.class, "accId")).andReturn(Account.builder().id("accId").build());
+        expect(entityManager.find(User.class, "userId")).andReturn(User.builder().id("userId").build());
+        expect(accountAccessService.canWrite("userId", "accId")).andReturn(false);
+        replay(entityManager, budgetRepository, messagingTemplate, accountAccessService);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> budgetService.save(BudgetRequest.builder()
+                        .accountId("accId")
+                        .userId("userId")
+                        .monthlyLimit(100.0)
+                        .build()));
+
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), exception.getMessage());
+        verify(entityManager, budgetRepository, accountAccessService);
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.EntityManager;
 import me.vse.fintrackserver.enums.ErrorMessages;
 import me.vse.fintrackserver.mappers.CategoryMapper;
 import me.vse.fintrackserver.model.Category;
+import me.vse.fintrackserver.model.User;
 import me.vse.fintrackserver.model.dto.CategoryDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
 import me.vse.fintrackserver.repositories.CategoryRepository;
 import org.apache.logging.log4j.util.Strings;
 import org.easymock.EasyMock;
@@ -18,6 +20,7 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.easymock.EasyMock.*;
@@ -32,6 +35,7 @@ public class CategoryServiceTest {
     private CategoryService categoryService;
     private CategoryRepository categoryRepository;
     private CategoryMapper categoryMapper;
+    private AccountRepository accountRepository;
 
 
     @BeforeEach
@@ -39,7 +43,8 @@ public class CategoryServiceTest {
         entityManager = EasyMock.mock(EntityManager.class);
         categoryRepository = EasyMock.mock(CategoryRepository.class);
         categoryMapper = EasyMock.mock(CategoryMapper.class);
-        categoryService = new CategoryService(entityManager, categoryMapper, categoryRepository);
+        accountRepository = EasyMock.mock(AccountRepository.class);
+        categoryService = new CategoryService(entityManager, categoryMapper, categoryRepository, accountRepository);
     }
 
     @ParameterizedTest(name = "Test category add. Given category name: {0}, color: {1}, icon: {2}. " +
@@ -133,6 +138,27 @@ public class CategoryServiceTest {
         }
     }
 
+    @Test
+    public void updateRenameBumpsAccountDataVersionTest() {
+        Category category = Category.builder().id("categoryId").name("Food").build();
+        CategoryDto categoryDto = CategoryDto.builder().id("categoryId").userId("userId").name("Groceries").build();
+
+        expect(entityManager.find(Category.class, "categoryId")).andReturn(category);
+        expect(entityManager.find(User.class, "userId"))
+                .andReturn(User.builder().id("userId").categories(List.of(category)).build());
+        categoryMapper.updateCategoryMapperFromDto(categoryDto, category);
+        expectLastCall().andAnswer(() -> {
+            category.setName(categoryDto.getName());
+            return null;
+        });
+        expect(categoryRepository.save(category)).andReturn(category);
+        expect(accountRepository.incrementDataVersionByCategoryId("categoryId")).andReturn(2);
+        replay(entityManager, categoryMapper, categoryRepository, accountRepository);
+
+        assertEquals(category, categoryService.update(categoryDto));
+        verify(entityManager, categoryMapper, categoryRepository, accountRepository);
+    }
+
     @Test
     public void getAllTest() {
         // todo user categories
@@ -39,6 +39,7 @@ public class GroupServiceTest {
     private GroupRepository groupRepository;
     private UserGroupRelationRepository userGroupRelationRepository;
     private AccountRepository accountRepository;
+    private AccountAccessService accountAccessService;
 
 
     @BeforeEach
@@ -48,8 +49,10 @@ public class GroupServiceTest {
         groupRepository = EasyMock.mock(GroupRepository.class);
         userGroupRelationRepository = EasyMock.mock(UserGroupRelationRepository.class);
         accountRepository = EasyMock.mock(AccountRepository.class);
+        accountAccessService = EasyMock.niceMock(AccountAccessService.class);
+        replay(accountAccessService);
         groupService = new GroupService(entityManager, userRepository, groupRepository, accountRepository,
-                userGroupRelationRepository);
+                userGroupRelationRepository, accountAccessService);
     }
 
     private Stream<Arguments> getAddScenarios() {
@@ -0,0 +1,84 @@
+package me.vse.fintrackserver.services;
+
+import me.vse.fintrackserver.model.Task;
+import me.vse.fintrackserver.repositories.TaskRepository;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class JobLeaseServiceTest {
+
+    private TaskRepository taskRepository;
+    private JobLeaseService jobLeaseService;
+
+    @BeforeEach
+    public void setUp() {
+        taskRepository = EasyMock.mock(TaskRepository.class);
+        jobLeaseService = new JobLeaseService();
+        ReflectionTestUtils.setField(jobLeaseService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(jobLeaseService, "transactionManager",
+                EasyMock.niceMock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(jobLeaseService, "leaseMinutes", 60L);
+        ReflectionTestUtils.invokeMethod(jobLeaseService, "init");
+    }
+
+    @Test
+    public void forEachPartitionContinuesAfterFailedPartitionTest() {
+        String nodeId = jobLeaseService.getNodeId();
+        for (int partition = 0; partition < 3; partition++) {
+            String name = "JOB_3_" + partition;
+            expect(taskRepository.findByName(name)).andReturn(Optional.of(Task.builder().name(name).build()));
+            expect(taskRepository.acquireLease(eq(name), eq("2024-03-10"), eq(nodeId),
+                    anyObject(LocalDateTime.class), anyObject(LocalDateTime.class))).andReturn(1);
+        }
+        expect(taskRepository.releaseLease("JOB_3_1", nodeId)).andReturn(1);
+        expect(taskRepository.completeLease("JOB_3_0", "2024-03-10", nodeId)).andReturn(1);
+        expect(taskRepository.completeLease("JOB_3_2", "2024-03-10", nodeId)).andReturn(1);
+        replay(taskRepository);
+
+        List<Integer> finished = new ArrayList<>();
+        jobLeaseService.forEachPartition("JOB", 3, "2024-03-10", Duration.ofMinutes(5), (partition, extendLease) -> {
+            if (partition == 1) {
+                throw new IllegalStateException("failed");
+            }
+            finished.add(partition);
+        });
+
+        verify(taskRepository);
+        assertEquals(2, finished.size());
+        assertFalse(finished.contains(1));
+    }
+
+    @Test
+    public void forEachPartitionExtendsLeaseTest() {
+        String nodeId = jobLeaseService.getNodeId();
+        Task task = Task.builder().name("JOB_1_0").build();
+        expect(taskRepository.findByName("JOB_1_0")).andReturn(Optional.of(task)).times(3);
+        expect(taskRepository.acquireLease(eq("JOB_1_0"), eq("2024-03-10"), eq(nodeId),
+                anyObject(LocalDateTime.class), anyObject(LocalDateTime.class))).andReturn(1);
+        expect(taskRepository.holdLease(eq("JOB_1_0"), eq(nodeId),
+                anyObject(LocalDateTime.class), anyObject(LocalDateTime.class))).andReturn(1).times(2);
+        expect(taskRepository.completeLease("JOB_1_0", "2024-03-10", nodeId)).andReturn(1);
+        replay(taskRepository);
+
+        jobLeaseService.forEachPartition("JOB", 1, "2024-03-10", Duration.ofMinutes(5), (partition, extendLease) -> {
+            extendLease.run();
+            extendLease.run();
+        });
+
+        verify(taskRepository);
+    }
+}
@@ -0,0 +1,151 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.PostingType;
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Posting;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.repositories.PostingRepository;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PostingServiceTest {
+
+    private EntityManager entityManager;
+    private PostingRepository postingRepository;
+    private PostingService postingService;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = EasyMock.mock(EntityManager.class);
+        postingRepository = EasyMock.mock(PostingRepository.class);
+        postingService = PostingService.builder()
+                .entityManager(entityManager)
+                .postingRepository(postingRepository)
+                .build();
+    }
+
+    @ParameterizedTest(name = "Test legs of transaction. Given type: {0}, amount: {1}. " +
+            "Should create one leg of type {2} with signed amount {3}")
+    @CsvSource({
+            "INCOME, 100.0, INCOME, 100.0",
+            "REVENUE, 100.0, REVENUE, 100.0",
+            "EXPENSE, 100.0, EXPENSE, -100.0",
+            "COST, 100.0, COST, -100.0"
+    })
+    public void legsOfTest(TransactionTypes type, double amount, PostingType expectedType, double expectedAmount) {
+        LocalDateTime executedAt = LocalDateTime.of(2024, 3, 10, 12, 0);
+        Transaction transaction = Transaction.builder()
+                .id("transactionId")
+                .account(Account.builder().id("accId").build())
+                .type(type)
+                .amount(amount)
+                .executionDateTime(executedAt)
+                .build();
+
+        List<Posting> legs = postingService.legsOf(transaction);
+
+        assertEquals(1, legs.size());
+        assertEquals("transactionId", legs.get(0).getTransactionId());
+        assertEquals("accId", legs.get(0).getAccountId());
+        assertEquals(expectedType, legs.get(0).getType());
+        assertEquals(expectedAmount, legs.get(0).getSignedAmount());
+        assertEquals(executedAt, legs.get(0).getExecutionDateTime());
+    }
+
+    @Test
+    public void legsOfTransferTest() {
+        Transaction transaction = Transaction.builder()
+                .id("transactionId")
+                .account(Account.builder().id("sender").build())
+                .receiver(Account.builder().id("receiver").build())
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .build();
+
+        List<Posting> legs = postingService.legsOf(transaction);
+
+        assertEquals(2, legs.size());
+        assertEquals("sender", legs.get(0).getAccountId());
+        assertEquals(PostingType.TRANSFER_OUT, legs.get(0).getType());
+        assertEquals(-50.0, legs.get(0).getSignedAmount());
+        assertEquals("receiver", legs.get(1).getAccountId());
+        assertEquals(PostingType.TRANSFER_IN, legs.get(1).getType());
+        assertEquals(50.0, legs.get(1).getSignedAmount());
+    }
+
+    @Test
+    public void legsOfSelfTransferTest() {
+        Account account = Account.builder().id("accId").build();
+        Transaction transaction = Transaction.builder()
+                .id("transactionId")
+                .account(account)
+                .receiver(account)
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .build();
+
+        List<Posting> legs = postingService.legsOf(transaction);
+
+        assertEquals(1, legs.size());
+        assertEquals(PostingType.TRANSFER_INTERNAL, legs.get(0).getType());
+        assertEquals(0.0, legs.get(0).getSignedAmount());
+    }
+
+    @Test
+    public void legsOfTransferWithoutReceiverTest() {
+        Transaction transaction = Transaction.builder()
+                .id("transactionId")
+                .account(Account.builder().id("accId").build())
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .build();
+
+        List<Posting> legs = postingService.legsOf(transaction);
+
+        assertEquals(1, legs.size());
+        assertEquals(PostingType.TRANSFER_OUT, legs.get(0).getType());
+        assertEquals(-50.0, legs.get(0).getSignedAmount());
+    }
+
+    @Test
+    public void applyPersistsEveryLegTest() {
+        Transaction transaction = Transaction.builder()
+                .id("transactionId")
+                .account(Account.builder().id("sender").build())
+                .receiver(Account.builder().id("receiver").build())
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .build();
+        entityManager.persist(anyObject(Posting.class));
+        expectLastCall().times(2);
+        replay(entityManager, postingRepository);
+
+        postingService.apply(transaction);
+
+        verify(entityManager, postingRepository);
+    }
+
+    @Test
+    public void revertTest() {
+        expect(postingRepository.deleteByTransactionId("transactionId")).andReturn(2);
+        replay(entityManager, postingRepository);
+
+        postingService.revert(Transaction.builder().id("transactionId").build());
+        postingService.revert(Transaction.builder().build());
+
+        verify(entityManager, postingRepository);
+    }
+}
@@ -0,0 +1,158 @@
+package me.vse.fintrackserver.services;
+
+import me.vse.fintrackserver.enums.ErrorMessages;
+import me.vse.fintrackserver.enums.ReportJobStatus;
+import me.vse.fintrackserver.rest.responses.ReportJobResponse;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private GeneralStatementService generalStatementService;
+    private SimpMessagingTemplate messagingTemplate;
+    private ReportJobService reportJobService;
+
+    @BeforeEach
+    public void setUp() {
+        generalStatementService = EasyMock.mock(GeneralStatementService.class);
+        messagingTemplate = EasyMock.mock(SimpMessagingTemplate.class);
+        reportJobService = new ReportJobService();
+        ReflectionTestUtils.setField(reportJobService, "generalStatementService", generalStatementService);
+        ReflectionTestUtils.setField(reportJobService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(reportJobService, "threads", 1);
+        ReflectionTestUtils.setField(reportJobService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(reportJobService, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(reportJobService, "cacheDir", directory.toString());
+        ReflectionTestUtils.invokeMethod(reportJobService, "init");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ReflectionTestUtils.invokeMethod(reportJobService, "shutdown");
+    }
+
+    @Test
+    public void submitServesCachedFileTest() throws Exception {
+        Files.writeString(directory.resolve("accId_rev_en_all-" + LocalDate.now() + ".xlsx"), "report");
+        expectAccount("userId");
+        replay(generalStatementService, messagingTemplate);
+
+        ReportJobResponse job = reportJobService.submit("accId", "userId", "en", null);
+
+        assertEquals(ReportJobStatus.DONE, job.getStatus());
+        assertTrue(job.isCached());
+        assertEquals(6L, job.getSize());
+        verify(generalStatementService, messagingTemplate);
+    }
+
+    @Test
+    public void submitDeletesOtherRevisionsOfEveryPeriodTest() throws Exception {
+        Path oldAll = Files.writeString(directory.resolve("accId_old_en_all-" + LocalDate.now() + ".xlsx"), "old");
+        Path yesterdayAll = Files.writeString(
+                directory.resolve("accId_rev_en_all-" + LocalDate.now().minusDays(1) + ".xlsx"), "yesterday");
+        Path oldMonth = Files.writeString(directory.resolve("accId_old_cz_2024-03.xlsx"), "old");
+        Path currentMonth = Files.writeString(directory.resolve("accId_rev_cz_2024-03.xlsx"), "current");
+        Path otherAccount = Files.writeString(directory.resolve("otherId_old_en_all-2024-04-01.xlsx"), "other");
+
+        expectAccount("userId");
+        generalStatementService.writeReport(eq("en"), eq("accId"), eq(YearMonth.of(2024, 4)),
+                anyObject(OutputStream.class));
+        expectLastCall().andAnswer(() -> {
+            ((OutputStream) getCurrentArgument(3)).write("report".getBytes(StandardCharsets.UTF_8));
+            return null;
+        });
+        CountDownLatch notified = new CountDownLatch(1);
+        messagingTemplate.convertAndSend(eq("/topic/analytics/accId"), anyObject(Object.class));
+        expectLastCall().andAnswer(() -> {
+            assertEquals("REPORT_READY", ((Map<?, ?>) getCurrentArgument(1)).get("type"));
+            notified.countDown();
+            return null;
+        });
+        replay(generalStatementService, messagingTemplate);
+
+        ReportJobResponse submitted = reportJobService.submit("accId", "userId", "en", "2024-04");
+
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertEquals(ReportJobStatus.DONE, reportJobService.getJob(submitted.getJobId(), "userId").getStatus());
+        assertTrue(Files.exists(directory.resolve("accId_rev_en_2024-04.xlsx")));
+        assertTrue(Files.exists(currentMonth));
+        assertTrue(Files.exists(otherAccount));
+        assertFalse(Files.exists(oldAll));
+        assertFalse(Files.exists(oldMonth));
+        assertFalse(Files.exists(yesterdayAll));
+        verify(generalStatementService, messagingTemplate);
+    }
+
+    @Test
+    public void getJobChecksAccessTest() throws Exception {
+        Files.writeString(directory.resolve("accId_rev_en_all-" + LocalDate.now() + ".xlsx"), "report");
+        expectAccount("userId");
+        generalStatementService.checkAccess("accId", "otherId");
+        expectLastCall().andThrow(new IllegalArgumentException(ErrorMessages.UNPERMITTED_OPERATION.name())).times(2);
+        replay(generalStatementService, messagingTemplate);
+
+        String jobId = reportJobService.submit("accId", "userId", "en", null).getJobId();
+
+        IllegalArgumentException foreign = assertThrows(IllegalArgumentException.class,
+                () -> reportJobService.getJob(jobId, "otherId"));
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), foreign.getMessage());
+
+        IllegalArgumentException download = assertThrows(IllegalArgumentException.class,
+                () -> reportJobService.openFile(jobId, "otherId"));
+        assertEquals(ErrorMessages.UNPERMITTED_OPERATION.name(), download.getMessage());
+
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> reportJobService.getJob("unknownId", "userId"));
+        assertEquals(ErrorMessages.REPORT_JOB_DOESNT_EXIST.name(), unknown.getMessage());
+        verify(generalStatementService);
+    }
+
+    @Test
+    public void openFileKeepsStreamingDeletedFileTest() throws Exception {
+        Path file = Files.writeString(directory.resolve("accId_rev_en_all-" + LocalDate.now() + ".xlsx"), "report");
+        expectAccount("userId");
+        replay(generalStatementService, messagingTemplate);
+
+        String jobId = reportJobService.submit("accId", "userId", "en", null).getJobId();
+        FileChannel channel = reportJobService.openFile(jobId, "userId");
+        Files.delete(file);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        reportJobService.transferTo(channel, outputStream);
+
+        assertEquals("report", outputStream.toString(StandardCharsets.UTF_8));
+        assertFalse(channel.isOpen());
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> reportJobService.openFile(jobId, "userId"));
+        assertEquals(ErrorMessages.REPORT_NOT_READY.name(), exception.getMessage());
+    }
+
+    private void expectAccount(String userId) {
+        generalStatementService.checkAccess("accId", userId);
+        expectLastCall().anyTimes();
+        expect(generalStatementService.resolveLanguage("en")).andReturn("en").anyTimes();
+        expect(generalStatementService.getRevision("accId")).andReturn("rev").anyTimes();
+    }
+}
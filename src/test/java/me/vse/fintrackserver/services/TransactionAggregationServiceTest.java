@@ -0,0 +1,258 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.RollupGranularity;
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.model.dto.RollupTotalsDto;
+import me.vse.fintrackserver.model.dto.TransactionTotalsDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.AggregationRepository;
+import me.vse.fintrackserver.repositories.PostingRepository;
+import me.vse.fintrackserver.repositories.TransactionRepository;
+import me.vse.fintrackserver.repositories.TransactionRollupRepository;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionAggregationServiceTest {
+
+    private EntityManager entityManager;
+    private TransactionRepository transactionRepository;
+    private PostingRepository postingRepository;
+    private AggregationRepository aggregationRepository;
+    private TransactionRollupRepository transactionRollupRepository;
+    private BalanceCheckpointService balanceCheckpointService;
+    private JobLeaseService jobLeaseService;
+    private AccountRepository accountRepository;
+    private TransactionAggregationService transactionAggregationService;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = EasyMock.mock(EntityManager.class);
+        transactionRepository = EasyMock.mock(TransactionRepository.class);
+        postingRepository = EasyMock.mock(PostingRepository.class);
+        aggregationRepository = EasyMock.mock(AggregationRepository.class);
+        transactionRollupRepository = EasyMock.mock(TransactionRollupRepository.class);
+        balanceCheckpointService = EasyMock.mock(BalanceCheckpointService.class);
+        jobLeaseService = EasyMock.mock(JobLeaseService.class);
+        accountRepository = EasyMock.mock(AccountRepository.class);
+        transactionAggregationService = TransactionAggregationService.builder()
+                .entityManager(entityManager)
+                .transactionRepository(transactionRepository)
+                .postingRepository(postingRepository)
+                .aggregationRepository(aggregationRepository)
+                .transactionRollupRepository(transactionRollupRepository)
+                .balanceCheckpointService(balanceCheckpointService)
+                .jobLeaseService(jobLeaseService)
+                .accountRepository(accountRepository)
+                .transactionManager(EasyMock.niceMock(PlatformTransactionManager.class))
+                .build();
+    }
+
+    @Test
+    public void getRangeTotalsSplitsIntoMonthsDaysAndEdgesTest() {
+        Account account = Account.builder().id("accId").build();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 15, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 4, 10, 12, 0);
+
+        expect(postingRepository.getTotals("accId", from,
+                LocalDate.of(2024, 1, 16).atStartOfDay().minusNanos(1)))
+                .andReturn(new TransactionTotalsDto(1.0, 2.0, 0.0, 0.0));
+        expect(transactionRollupRepository.sumTotals(account, RollupGranularity.DAY,
+                LocalDate.of(2024, 1, 16), LocalDate.of(2024, 2, 1)))
+                .andReturn(new RollupTotalsDto(10.0, 20.0));
+        expect(transactionRollupRepository.sumTotals(account, RollupGranularity.MONTH,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 1)))
+                .andReturn(new RollupTotalsDto(100.0, 200.0));
+        expect(transactionRollupRepository.sumTotals(account, RollupGranularity.DAY,
+                LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 10)))
+                .andReturn(new RollupTotalsDto(1000.0, 2000.0));
+        expect(postingRepository.getTotals("accId", LocalDate.of(2024, 4, 10).atStartOfDay(), end))
+                .andReturn(new TransactionTotalsDto(10000.0, 20000.0, 0.0, 0.0));
+        replay(postingRepository, transactionRollupRepository);
+
+        RollupTotalsDto totals = transactionAggregationService.getRangeTotals(account, from, end);
+
+        assertEquals(11111.0, totals.getTotalIncome());
+        assertEquals(22222.0, totals.getTotalExpense());
+        verify(postingRepository, transactionRollupRepository);
+    }
+
+    @Test
+    public void getRangeTotalsWithinOneMonthTest() {
+        Account account = Account.builder().id("accId").build();
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 20, 0, 0);
+
+        expect(transactionRollupRepository.sumTotals(account, RollupGranularity.DAY,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 20)))
+                .andReturn(new RollupTotalsDto(10.0, 20.0));
+        expect(postingRepository.getTotals("accId", end, end))
+                .andReturn(new TransactionTotalsDto(1.0, 2.0, 0.0, 0.0));
+        replay(postingRepository, transactionRollupRepository);
+
+        RollupTotalsDto totals = transactionAggregationService.getRangeTotals(account, from, end);
+
+        assertEquals(11.0, totals.getTotalIncome());
+        assertEquals(22.0, totals.getTotalExpense());
+        verify(postingRepository, transactionRollupRepository);
+    }
+
+    @Test
+    public void getRangeTotalsWithinOneDayTest() {
+        Account account = Account.builder().id("accId").build();
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 8, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 20, 0);
+
+        expect(postingRepository.getTotals("accId", from, end))
+                .andReturn(new TransactionTotalsDto(5.0, 7.0, 0.0, 0.0));
+        replay(postingRepository, transactionRollupRepository);
+
+        RollupTotalsDto totals = transactionAggregationService.getRangeTotals(account, from, end);
+
+        assertEquals(5.0, totals.getTotalIncome());
+        assertEquals(7.0, totals.getTotalExpense());
+        verify(postingRepository, transactionRollupRepository);
+    }
+
+    @Test
+    public void applyTransferTest() {
+        Account sender = Account.builder().id("sender").build();
+        Account receiver = Account.builder().id("receiver").build();
+        Category category = Category.builder().id("catId").build();
+        LocalDateTime executedAt = LocalDateTime.of(2024, 3, 10, 12, 0);
+        Transaction transaction = Transaction.builder()
+                .account(sender)
+                .receiver(receiver)
+                .category(category)
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .executionDateTime(executedAt)
+                .build();
+
+        expect(aggregationRepository.mergeDelta(sender, category, 0.0, 50.0)).andReturn(1);
+        expect(aggregationRepository.mergeDelta(receiver, category, 50.0, 0.0)).andReturn(1);
+        for (Account account : new Account[]{sender, receiver}) {
+            double income = account == receiver ? 50.0 : 0.0;
+            double expense = account == sender ? 50.0 : 0.0;
+            expect(transactionRollupRepository.mergeDelta(account, category, RollupGranularity.DAY,
+                    LocalDate.of(2024, 3, 10), income, expense)).andReturn(1);
+            expect(transactionRollupRepository.mergeDelta(account, category, RollupGranularity.MONTH,
+                    LocalDate.of(2024, 3, 1), income, expense)).andReturn(1);
+        }
+        balanceCheckpointService.applyDelta(sender, executedAt, -50.0);
+        balanceCheckpointService.applyDelta(receiver, executedAt, 50.0);
+        replay(aggregationRepository, transactionRollupRepository, balanceCheckpointService);
+
+        transactionAggregationService.apply(transaction);
+
+        verify(aggregationRepository, transactionRollupRepository, balanceCheckpointService);
+    }
+
+    @Test
+    public void revertSelfTransferTest() {
+        Account account = Account.builder().id("accId").build();
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .receiver(account)
+                .type(TransactionTypes.TRANSFER)
+                .amount(50.0)
+                .executionDateTime(LocalDateTime.of(2024, 3, 10, 12, 0))
+                .build();
+        replay(aggregationRepository, transactionRollupRepository, balanceCheckpointService);
+
+        transactionAggregationService.revert(transaction);
+
+        verify(aggregationRepository, transactionRollupRepository, balanceCheckpointService);
+    }
+
+    @Test
+    public void verifyAndRepairAggregationsLocksAndFixesEachAccountTest() {
+        expect(jobLeaseService.getDefaultLease()).andReturn(Duration.ofMinutes(60));
+        expect(jobLeaseService.runOnce(eq("AGGREGATION_VERIFY"), anyString(), anyObject(), anyObject(Runnable.class)))
+                .andAnswer(() -> {
+                    ((Runnable) getCurrentArgument(3)).run();
+                    return true;
+                });
+        expect(accountRepository.findIdsAfter(null, PageRequest.of(0, 100))).andReturn(List.of("accId"));
+        expect(accountRepository.lockForUpdate(List.of("accId"))).andReturn(List.of("accId"));
+        expect(accountRepository.findIdsAfter("accId", PageRequest.of(0, 100))).andReturn(List.of());
+        expect(transactionRepository.aggregateOwnTotalsByCategoryAndDay("accId")).andReturn(List.<Object[]>of(
+                new Object[]{"accId", "catId", LocalDate.of(2024, 3, 10).atStartOfDay(), 100.0, 40.0}));
+        expect(transactionRepository.aggregateIncomingTransfersByCategoryAndDay("accId")).andReturn(List.<Object[]>of(
+                new Object[]{"accId", "catId", LocalDate.of(2024, 3, 11).atStartOfDay(), 10.0}));
+        expect(aggregationRepository.findTotalsByAccountId("accId")).andReturn(List.<Object[]>of(
+                new Object[]{"aggId", "accId", "catId", 100.0, 40.0},
+                new Object[]{"staleId", "accId", null, 5.0, 0.0}));
+        expect(aggregationRepository.setTotals("aggId", 110.0, 40.0)).andReturn(1);
+        expect(aggregationRepository.setTotals("staleId", 0.0, 0.0)).andReturn(1);
+        expect(aggregationRepository.saveAll(List.of())).andReturn(List.of());
+        expect(transactionRollupRepository.findTotalsByAccountId("accId")).andReturn(List.<Object[]>of(
+                new Object[]{"dayId", "accId", "catId", RollupGranularity.DAY, LocalDate.of(2024, 3, 10), 100.0, 40.0},
+                new Object[]{"monthId", "accId", "catId", RollupGranularity.MONTH, LocalDate.of(2024, 3, 1), 1.0, 1.0}));
+        expect(transactionRollupRepository.setTotals("monthId", 110.0, 40.0)).andReturn(1);
+        Account account = Account.builder().id("accId").build();
+        Category category = Category.builder().id("catId").build();
+        expect(entityManager.getReference(Account.class, "accId")).andReturn(account);
+        expect(entityManager.getReference(Category.class, "catId")).andReturn(category);
+        expect(transactionRollupRepository.saveAll(anyObject())).andAnswer(() -> {
+            List<TransactionRollup> rollups = getCurrentArgument(0);
+            assertEquals(1, rollups.size());
+            assertEquals(account, rollups.get(0).getAccount());
+            assertEquals(category, rollups.get(0).getCategory());
+            assertEquals(RollupGranularity.DAY, rollups.get(0).getGranularity());
+            assertEquals(LocalDate.of(2024, 3, 11), rollups.get(0).getBucketStart());
+            assertEquals(10.0, rollups.get(0).getTotalIncome());
+            assertEquals(0.0, rollups.get(0).getTotalExpense());
+            return rollups;
+        });
+        replay(entityManager, jobLeaseService, accountRepository, transactionRepository, aggregationRepository,
+                transactionRollupRepository);
+
+        transactionAggregationService.verifyAndRepairAggregations();
+
+        verify(entityManager, jobLeaseService, accountRepository, transactionRepository, aggregationRepository,
+                transactionRollupRepository);
+    }
+
+    @Test
+    public void rebuildAccountLocksAccountBeforeAggregatingTest() {
+        AtomicBoolean locked = new AtomicBoolean();
+        expect(accountRepository.lockForUpdate(List.of("accId"))).andAnswer(() -> {
+            locked.set(true);
+            return List.of("accId");
+        });
+        expect(transactionRepository.aggregateOwnTotalsByCategoryAndDay("accId")).andAnswer(() -> {
+            assertTrue(locked.get());
+            return List.of();
+        });
+        expect(transactionRepository.aggregateIncomingTransfersByCategoryAndDay("accId")).andReturn(List.of());
+        aggregationRepository.deleteByAccountId("accId");
+        transactionRollupRepository.deleteByAccountId("accId");
+        balanceCheckpointService.deleteCheckpoints("accId");
+        expect(aggregationRepository.saveAll(List.of())).andReturn(List.of());
+        expect(transactionRollupRepository.saveAll(List.of())).andReturn(List.of());
+        replay(accountRepository, transactionRepository, aggregationRepository, transactionRollupRepository,
+                balanceCheckpointService);
+
+        transactionAggregationService.rebuildAccount("accId");
+
+        verify(accountRepository, transactionRepository, aggregationRepository, transactionRollupRepository,
+                balanceCheckpointService);
+    }
+}
@@ -3,35 +3,48 @@ package me.vse.fintrackserver.services;
 import jakarta.persistence.EntityManager;
 import me.vse.fintrackserver.enums.ErrorMessages;
 import me.vse.fintrackserver.enums.Frequencies;
+import me.vse.fintrackserver.enums.PostingType;
 import me.vse.fintrackserver.enums.TransactionTypes;
 import me.vse.fintrackserver.mappers.StandingOrderMapper;
 import me.vse.fintrackserver.model.*;
+import me.vse.fintrackserver.model.dto.TransactionListItemDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.PostingRepository;
 import me.vse.fintrackserver.repositories.StandingOrderRepository;
 import me.vse.fintrackserver.repositories.TransactionRepository;
 import me.vse.fintrackserver.rest.requests.StandingOrderRequest;
 import me.vse.fintrackserver.rest.requests.TransactionRequest;
+import me.vse.fintrackserver.rest.responses.TransactionByCategoryResponse;
+import me.vse.fintrackserver.rest.responses.TransactionPageResponse;
+import me.vse.fintrackserver.services.utils.TransactionCursor;
 import org.apache.logging.log4j.util.Strings;
 import org.easymock.EasyMock;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static me.vse.fintrackserver.ATest.randomString;
 import static org.easymock.EasyMock.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +55,16 @@ public class TransactionServiceTest {
     private TransactionRepository transactionRepository;
     private StandingOrderRepository standingOrderRepository;
     private StandingOrderMapper standingOrderMapper;
+    private TransactionAggregationService transactionAggregationService;
+    private AccountRepository accountRepository;
+    private TransactionStatisticsService transactionStatisticsService;
+    private BudgetService budgetService;
+    private AdviceSchedulerService adviceSchedulerService;
+    private StandingOrderReminderService standingOrderReminderService;
+    private JobLeaseService jobLeaseService;
+    private AccountAccessService accountAccessService;
+    private PostingRepository postingRepository;
+    private PostingService postingService;
     private TransactionService transactionService;
 
     @BeforeEach
@@ -50,8 +73,63 @@ public class TransactionServiceTest {
         transactionRepository = EasyMock.mock(TransactionRepository.class);
         standingOrderRepository = EasyMock.mock(StandingOrderRepository.class);
         standingOrderMapper = EasyMock.mock(StandingOrderMapper.class);
+        transactionAggregationService = EasyMock.niceMock(TransactionAggregationService.class);
+        accountRepository = EasyMock.niceMock(AccountRepository.class);
+        transactionStatisticsService = EasyMock.niceMock(TransactionStatisticsService.class);
+        budgetService = EasyMock.niceMock(BudgetService.class);
+        adviceSchedulerService = EasyMock.niceMock(AdviceSchedulerService.class);
+        standingOrderReminderService = EasyMock.niceMock(StandingOrderReminderService.class);
+        jobLeaseService = EasyMock.niceMock(JobLeaseService.class);
+        accountAccessService = EasyMock.niceMock(AccountAccessService.class);
+        postingRepository = EasyMock.mock(PostingRepository.class);
+        postingService = EasyMock.niceMock(PostingService.class);
+        replay(accountRepository, transactionStatisticsService, budgetService, adviceSchedulerService,
+                standingOrderReminderService, postingService);
         transactionService = new TransactionService(entityManager, transactionRepository,
-                standingOrderRepository, standingOrderMapper, null);
+                standingOrderRepository, standingOrderMapper, accountAccessService, transactionAggregationService, accountRepository,
+                transactionStatisticsService, budgetService, adviceSchedulerService, standingOrderReminderService,
+                jobLeaseService, postingRepository, postingService);
+    }
+
+    private void expectPostedTransactions(Account account, List<Transaction> transactions) {
+        expect(postingRepository.findTransactions(eq(account.getId()), anyObject()))
+                .andAnswer(() -> {
+                    Collection<PostingType> types = getCurrentArgument(1);
+                    return transactions.stream()
+                            .filter(transaction -> postingTypesOf(transaction, account.getId()).stream()
+                                    .anyMatch(types::contains))
+                            .collect(Collectors.toList());
+                });
+    }
+
+    /**
+     * Typy řádků posting, které transakce založí na daném účtu, rozepsané nezávisle na PostingService.
+     */
+    private List<PostingType> postingTypesOf(Transaction transaction, String accountId) {
+        if (transaction.getAccount() == null || transaction.getType() == null) {
+            return List.of();
+        }
+        boolean isSender = accountId.equals(transaction.getAccount().getId());
+        boolean isReceiver = transaction.getReceiver() != null && accountId.equals(transaction.getReceiver().getId());
+        return switch (transaction.getType()) {
+            case INCOME -> isSender ? List.of(PostingType.INCOME) : List.of();
+            case REVENUE -> isSender ? List.of(PostingType.REVENUE) : List.of();
+            case EXPENSE -> isSender ? List.of(PostingType.EXPENSE) : List.of();
+            case COST -> isSender ? List.of(PostingType.COST) : List.of();
+            case TRANSFER -> isSender && isReceiver ? List.of(PostingType.TRANSFER_INTERNAL)
+                    : isSender ? List.of(PostingType.TRANSFER_OUT)
+                    : isReceiver ? List.of(PostingType.TRANSFER_IN)
+                    : List.of();
+        };
+    }
+
+    private TransactionListItemDto toListItem(Transaction transaction) {
+        return new TransactionListItemDto(transaction.getId(), transaction.getType(), transaction.getAmount(),
+                transaction.getExecutionDateTime(), transaction.getNote(),
+                transaction.getCategory() != null ? transaction.getCategory().getId() : null,
+                transaction.getCategory() != null ? transaction.getCategory().getName() : null,
+                transaction.getForAsset() != null ? transaction.getForAsset().getId() : null,
+                transaction.getReceiver() != null ? transaction.getReceiver().getId() : null);
     }
 
     private Stream<Arguments> getCreateTransactionScenarios() {
@@ -523,7 +601,10 @@ public class TransactionServiceTest {
                     .andReturn(Strings.isBlank(request.getCategoryId()) ? null : transaction.getCategory());
         }
         entityManager.persist(transaction);
-        replay(entityManager);
+        if (message == null) {
+            transactionAggregationService.apply(transaction);
+        }
+        replay(entityManager, transactionAggregationService);
 
         if (transaction != null && "$strip2047".equals(transaction.getNote())) {
             transaction.setNote(request.getNote().substring(0, 2047));
@@ -535,7 +616,7 @@ public class TransactionServiceTest {
             assertEquals(message.name(), thrown.getMessage());
         } else {
             assertEquals(transaction, transactionService.create(request));
-            verify(entityManager);
+            verify(entityManager, transactionAggregationService);
         }
     }
 
@@ -1138,7 +1219,11 @@ public class TransactionServiceTest {
                     .andReturn(Strings.isBlank(request.getCategoryId()) ? null : transaction.getCategory());
         }
         expect(transactionRepository.save(transaction)).andReturn(transaction);
-        replay(entityManager, transactionRepository);
+        if (message == null) {
+            transactionAggregationService.revert(transaction);
+            transactionAggregationService.apply(transaction);
+        }
+        replay(entityManager, transactionRepository, transactionAggregationService);
 
         if (transaction != null && "$strip2047".equals(transaction.getNote())) {
             transaction.setNote(request.getNote().substring(0, 2047));
@@ -1150,7 +1235,7 @@ public class TransactionServiceTest {
             assertEquals(message.name(), thrown.getMessage());
         } else {
             assertEquals(transaction, transactionService.update(request));
-            verify(entityManager);
+            verify(entityManager, transactionAggregationService);
         }
     }
 
@@ -1169,8 +1254,10 @@ public class TransactionServiceTest {
         Transaction transaction = new Transaction();
         expect(entityManager.find(Transaction.class, id))
                 .andReturn(Strings.isBlank(id) ? null : transaction);
+        expect(entityManager.find(User.class, "userId")).andReturn(User.builder().id("userId").build());
+        expect(accountAccessService.canWrite("userId", null)).andReturn(true);
         transactionRepository.delete(transaction);
-        replay(entityManager, transactionRepository);
+        replay(entityManager, transactionRepository, transactionAggregationService, accountAccessService);
 
         if (exception != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
@@ -1357,6 +1444,134 @@ public class TransactionServiceTest {
         }
     }
 
+    @Test
+    public void runStandingOrdersCatchesUpMissedOccurrencesTest() {
+        LocalDateTime start = LocalDateTime.now().minusMonths(2).minusDays(1).withNano(0);
+        Transaction sample = Transaction.builder()
+                .id("sampleId")
+                .account(Account.builder().id("accId").build())
+                .type(TransactionTypes.EXPENSE)
+                .amount(100.0)
+                .executionDateTime(start)
+                .build();
+        StandingOrder standingOrder = StandingOrder.builder()
+                .id("standingOrderId")
+                .frequency(Frequencies.MONTHLY)
+                .transactionSample(sample)
+                .startDate(start)
+                .nextExecutionAt(start)
+                .build();
+
+        expectSinglePartition();
+        expect(standingOrderRepository.findDue(anyObject(LocalDateTime.class), eq(7), eq(0), anyObject(Pageable.class)))
+                .andReturn(List.of(standingOrder)).once()
+                .andReturn(List.of()).once();
+        expect(transactionRepository.findOccurrences(List.of("standingOrderId"), start)).andReturn(List.of());
+        List<Transaction> persisted = new ArrayList<>();
+        entityManager.persist(anyObject(Transaction.class));
+        expectLastCall().andAnswer(() -> {
+            persisted.add((Transaction) getCurrentArguments()[0]);
+            return null;
+        }).times(3);
+        transactionAggregationService.applyAll(anyObject());
+        expectLastCall().andAnswer(() -> {
+            assertEquals(persisted, getCurrentArgument(0));
+            return null;
+        }).once();
+        entityManager.flush();
+        entityManager.clear();
+        replay(entityManager, transactionRepository, standingOrderRepository, transactionAggregationService,
+                jobLeaseService);
+
+        transactionService.runStandingOrders();
+
+        verify(entityManager, transactionRepository, standingOrderRepository, transactionAggregationService,
+                jobLeaseService);
+        assertEquals(List.of(start, start.plusMonths(1), start.plusMonths(2)),
+                persisted.stream().map(Transaction::getExecutionDateTime).toList());
+        assertEquals("standingOrderId", persisted.get(0).getSourceStandingOrderId());
+        assertEquals(start.plusMonths(3), standingOrder.getNextExecutionAt());
+        assertEquals(start.plusMonths(2), standingOrder.getLastRepeatedAt());
+    }
+
+    @Test
+    public void runStandingOrdersSkipsExecutedOccurrencesTest() {
+        LocalDateTime start = LocalDateTime.now().minusMonths(1).minusDays(1).withNano(0);
+        StandingOrder standingOrder = StandingOrder.builder()
+                .id("standingOrderId")
+                .frequency(Frequencies.MONTHLY)
+                .transactionSample(Transaction.builder()
+                        .id("sampleId")
+                        .account(Account.builder().id("accId").build())
+                        .type(TransactionTypes.EXPENSE)
+                        .amount(100.0)
+                        .executionDateTime(start)
+                        .build())
+                .startDate(start)
+                .nextExecutionAt(start)
+                .build();
+
+        expectSinglePartition();
+        expect(standingOrderRepository.findDue(anyObject(LocalDateTime.class), eq(7), eq(0), anyObject(Pageable.class)))
+                .andReturn(List.of(standingOrder)).once()
+                .andReturn(List.of()).once();
+        expect(transactionRepository.findOccurrences(List.of("standingOrderId"), start))
+                .andReturn(List.<Object[]>of(new Object[]{"standingOrderId", start}));
+        List<Transaction> persisted = new ArrayList<>();
+        entityManager.persist(anyObject(Transaction.class));
+        expectLastCall().andAnswer(() -> {
+            persisted.add((Transaction) getCurrentArguments()[0]);
+            return null;
+        }).once();
+        entityManager.flush();
+        entityManager.clear();
+        replay(entityManager, transactionRepository, standingOrderRepository, jobLeaseService);
+
+        transactionService.runStandingOrders();
+
+        verify(entityManager, transactionRepository, standingOrderRepository, jobLeaseService);
+        assertEquals(List.of(start.plusMonths(1)), persisted.stream().map(Transaction::getExecutionDateTime).toList());
+        assertEquals(start.plusMonths(2), standingOrder.getNextExecutionAt());
+        assertEquals(start.plusMonths(1), standingOrder.getLastRepeatedAt());
+    }
+
+    @Test
+    public void runStandingOrdersStopsAtEndDateTest() {
+        LocalDateTime start = LocalDateTime.now().minusDays(10).withNano(0);
+        StandingOrder standingOrder = StandingOrder.builder()
+                .id("standingOrderId")
+                .frequency(Frequencies.WEEKLY)
+                .transactionSample(Transaction.builder().id("sampleId").executionDateTime(start).build())
+                .startDate(start)
+                .endDate(start.plusDays(3))
+                .nextExecutionAt(start)
+                .build();
+
+        expectSinglePartition();
+        expect(standingOrderRepository.findDue(anyObject(LocalDateTime.class), eq(7), eq(0), anyObject(Pageable.class)))
+                .andReturn(List.of(standingOrder)).once()
+                .andReturn(List.of()).once();
+        expect(transactionRepository.findOccurrences(List.of("standingOrderId"), start)).andReturn(List.of());
+        entityManager.persist(anyObject(Transaction.class));
+        expectLastCall().once();
+        entityManager.flush();
+        entityManager.clear();
+        replay(entityManager, transactionRepository, standingOrderRepository, jobLeaseService);
+
+        transactionService.runStandingOrders();
+
+        verify(entityManager, transactionRepository, standingOrderRepository, jobLeaseService);
+        assertNull(standingOrder.getNextExecutionAt());
+    }
+
+    private void expectSinglePartition() {
+        jobLeaseService.forEachPartition(eq("STANDING_ORDERS"), eq(8), anyString(), anyObject(), anyObject());
+        expectLastCall().andAnswer(() -> {
+            ((JobLeaseService.PartitionJob) getCurrentArguments()[4]).run(0, () -> { });
+            return null;
+        }).once();
+    }
+
     private Stream<Arguments> getExpenseTransactionsScenarios() {
         return Stream.of(
                 Arguments.of(
@@ -1617,11 +1832,11 @@ public class TransactionServiceTest {
             transaction.setAccount(account);
         }
 
-        expect(transactionRepository.findAllByAccount(account)).andReturn(account.getTransactions());
-        replay(transactionRepository);
+        expectPostedTransactions(account, account.getTransactions());
+        replay(postingRepository);
 
         assertEquals(expected, transactionService.getExpenseTransactions(account, null, null));
-        verify(transactionRepository);
+        verify(postingRepository);
     }
 
     private Stream<Arguments> getIncomeTransactionsScenarios() {
@@ -1853,11 +2068,11 @@ public class TransactionServiceTest {
             transaction.setAccount(account);
         }
 
-        expect(transactionRepository.findAllByAccount(account)).andReturn(account.getTransactions());
-        replay(transactionRepository);
+        expectPostedTransactions(account, account.getTransactions());
+        replay(postingRepository);
 
         assertEquals(expected, transactionService.getIncomeTransactions(account, null, null));
-        verify(transactionRepository);
+        verify(postingRepository);
     }
 
     private Stream<Arguments> getRevenueTransactionsScenarios() {
@@ -1917,11 +2132,11 @@ public class TransactionServiceTest {
             transaction.setAccount(account);
         }
 
-        expect(transactionRepository.findAllByAccount(account)).andReturn(account.getTransactions());
-        replay(transactionRepository);
+        expectPostedTransactions(account, account.getTransactions());
+        replay(postingRepository);
 
         assertEquals(expected, transactionService.getRevenueTransactions(account, null, null));
-        verify(transactionRepository);
+        verify(postingRepository);
     }
 
     private Stream<Arguments> getCostTransactionsScenarios() {
@@ -1981,11 +2196,11 @@ public class TransactionServiceTest {
             transaction.setAccount(account);
         }
 
-        expect(transactionRepository.findAllByAccount(account)).andReturn(account.getTransactions());
-        replay(transactionRepository);
+        expectPostedTransactions(account, account.getTransactions());
+        replay(postingRepository);
 
         assertEquals(expected, transactionService.getCostTransactions(account, null, null));
-        verify(transactionRepository);
+        verify(postingRepository);
     }
 
     private Stream<Arguments> getFindAllByAccountScenarios() {
@@ -2013,9 +2228,10 @@ public class TransactionServiceTest {
         expect(entityManager.find(Account.class, account.getId()))
                 .andReturn(Strings.isBlank(account.getId()) ? null : account);
         Pageable pageable = PageRequest.of(1, 20);
-        expect(transactionRepository.findAllPagesByAccount(account, pageable))
-                .andReturn(account.getTransactions());
-        replay(entityManager, transactionRepository);
+        expect(postingRepository.findPage(eq(account.getId()), anyObject(LocalDateTime.class),
+                anyObject(LocalDateTime.class), eq(pageable)))
+                .andReturn(List.of());
+        replay(entityManager, postingRepository);
 
         if (exception != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
@@ -2023,8 +2239,51 @@ public class TransactionServiceTest {
             assertEquals(exception.name(), thrown.getMessage());
         } else {
             transactionService.findAllByAccount(account.getId(), null, null, 1);
-            verify(entityManager, transactionRepository);
+            verify(entityManager, postingRepository);
+        }
+    }
+
+    @ParameterizedTest(name = "Test keyset page of transactions by account id. Given page size: {0}. " +
+            "Should return {1} transactions and next cursor present: {2}")
+    @CsvSource({"2, 2, true", "3, 3, false", "5, 3, false"})
+    public void findAllByAccountKeysetTest(int pageSize, int expectedSize, boolean hasNext) {
+        Account account = Account.builder().id("accId").build();
+        List<TransactionListItemDto> transactions = Stream.of(
+                Transaction.builder().id("c").executionDateTime(LocalDateTime.of(2024, 3, 10, 12, 0)).build(),
+                Transaction.builder().id("b").executionDateTime(LocalDateTime.of(2024, 3, 9, 12, 0)).build(),
+                Transaction.builder().id("a").executionDateTime(LocalDateTime.of(2024, 3, 9, 12, 0)).build()
+        ).map(this::toListItem).collect(Collectors.toList());
+        expect(entityManager.find(Account.class, account.getId())).andReturn(account);
+        expect(postingRepository.findPage(eq(account.getId()), anyObject(LocalDateTime.class),
+                anyObject(LocalDateTime.class), eq(PageRequest.of(0, pageSize + 1))))
+                .andReturn(transactions.subList(0, Math.min(pageSize + 1, transactions.size())));
+        replay(entityManager, postingRepository);
+
+        TransactionPageResponse response = transactionService.findAllByAccount(account.getId(), null, null,
+                null, pageSize);
+
+        assertEquals(expectedSize, response.getTransactions().size());
+        if (hasNext) {
+            TransactionCursor cursor = TransactionCursor.decode(response.getNextCursor());
+            TransactionListItemDto last = response.getTransactions().get(expectedSize - 1);
+            assertEquals(last.getId(), cursor.getId());
+            assertEquals(last.getExecutionDateTime(), cursor.getExecutionDateTime());
+        } else {
+            assertNull(response.getNextCursor());
         }
+        verify(entityManager, postingRepository);
+    }
+
+    @ParameterizedTest(name = "Test keyset page with malformed cursor: {0}. Should throw INCORRECT_CURSOR")
+    @ValueSource(strings = {"notBase64!", "bm9TZXBhcmF0b3I", "MjAyNC0wMy0xMHxhYmM"})
+    public void findAllByAccountKeysetWrongCursorTest(String cursor) {
+        Account account = Account.builder().id("accId").build();
+        expect(entityManager.find(Account.class, account.getId())).andReturn(account);
+        replay(entityManager, transactionRepository);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> transactionService.findAllByAccount(account.getId(), null, null, cursor, 20));
+        assertEquals(ErrorMessages.INCORRECT_CURSOR.name(), thrown.getMessage());
     }
 
     private Stream<Arguments> getFindAllByCategories() {
@@ -2036,7 +2295,7 @@ public class TransactionServiceTest {
                                 Transaction.builder()
                                         .id("transactionId")
                                         .type(TransactionTypes.INCOME)
-                                        .category(Category.builder().name("Wage").build())
+                                        .category(Category.builder().id("wageId").name("Wage").build())
                                         .amount(100.0)
                                         .build()
                         ),
@@ -2044,7 +2303,7 @@ public class TransactionServiceTest {
                                 Transaction.builder()
                                         .id("transactionId")
                                         .type(TransactionTypes.INCOME)
-                                        .category(Category.builder().name("Wage").build())
+                                        .category(Category.builder().id("wageId").name("Wage").build())
                                         .amount(100.0)
                                         .build()
                         ),
@@ -2095,14 +2354,14 @@ public class TransactionServiceTest {
                                         .id("transactionId")
                                         .type(TransactionTypes.EXPENSE)
                                         .amount(100.0)
-                                        .category(Category.builder().name("Food").build())
+                                        .category(Category.builder().id("foodId").name("Food").build())
                                         .build()
                         ),
                         List.of(
                                 Transaction.builder()
                                         .id("transactionId")
                                         .type(TransactionTypes.EXPENSE)
-                                        .category(Category.builder().name("Food").build())
+                                        .category(Category.builder().id("foodId").name("Food").build())
                                         .amount(100.0)
                                         .build()
                         ),
@@ -2169,23 +2428,45 @@ public class TransactionServiceTest {
 
         expect(entityManager.find(Account.class, account.getId()))
                 .andReturn(Strings.isBlank(account.getId()) ? null : account);
-        expect(transactionRepository.findAllByAccount(account)).andReturn(transactions);
-        replay(entityManager, transactionRepository);
+        expect(postingRepository.findListItems(eq(account.getId()), anyObject()))
+                .andAnswer(() -> {
+                    Collection<PostingType> types = getCurrentArgument(1);
+                    return transactions.stream()
+                            .filter(transaction -> postingTypesOf(transaction, account.getId()).stream()
+                                    .anyMatch(types::contains))
+                            .map(this::toListItem)
+                            .collect(Collectors.toList());
+                });
+        replay(entityManager, postingRepository);
 
-        Map<Category, List<Transaction>> expected = expectedTransactions.stream()
-                .collect(Collectors.groupingBy(transaction ->
-                Optional.ofNullable(transaction.getCategory()).orElse(Category.builder().name("Other").build())
-        ));
+        List<List<Object>> expected = expectedTransactions.stream()
+                .collect(Collectors.groupingBy(transaction -> transaction.getCategory() != null
+                                ? transaction.getCategory().getId() : "",
+                        LinkedHashMap::new,
+                        Collectors.toList()))
+                .values().stream()
+                .map(group -> {
+                    Category category = group.get(0).getCategory();
+                    return Arrays.<Object>asList(category != null ? category.getId() : null,
+                            category != null ? category.getName() : "Other",
+                            group.stream().map(Transaction::getId).toList());
+                })
+                .toList();
 
         if (exception != null) {
             IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
                     () -> transactionService.findAllByAccount(account.getId(), null, null, 1));
             assertEquals(exception.name(), thrown.getMessage());
         } else {
-            assertEquals(expected,
-                    transactionService.findAllByCategories(account.getId(), null, null, isIncome));
+            List<TransactionByCategoryResponse> actual =
+                    transactionService.findAllByCategories(account.getId(), null, null, isIncome);
+            assertEquals(expected, actual.stream()
+                    .map(response -> Arrays.<Object>asList(response.getCategory().getId(),
+                            response.getCategory().getName(),
+                            response.getTransactions().stream().map(TransactionListItemDto::getId).toList()))
+                    .toList());
 
-            verify(entityManager, transactionRepository);
+            verify(entityManager, postingRepository);
         }
     }
 
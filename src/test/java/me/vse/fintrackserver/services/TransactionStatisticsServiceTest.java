@@ -0,0 +1,173 @@
+package me.vse.fintrackserver.services;
+
+import jakarta.persistence.EntityManager;
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.Account;
+import me.vse.fintrackserver.model.Transaction;
+import me.vse.fintrackserver.model.TransactionStatistics;
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import me.vse.fintrackserver.repositories.AccountRepository;
+import me.vse.fintrackserver.repositories.TransactionRepository;
+import me.vse.fintrackserver.repositories.TransactionStatisticsRepository;
+import me.vse.fintrackserver.services.utils.StreamingStatistics;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionStatisticsServiceTest {
+
+    private EntityManager entityManager;
+    private TransactionRepository transactionRepository;
+    private TransactionStatisticsRepository transactionStatisticsRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private AccountRepository accountRepository;
+    private JobLeaseService jobLeaseService;
+    private TransactionStatisticsService transactionStatisticsService;
+
+    @BeforeEach
+    public void setUp() {
+        entityManager = EasyMock.mock(EntityManager.class);
+        transactionRepository = EasyMock.mock(TransactionRepository.class);
+        transactionStatisticsRepository = EasyMock.mock(TransactionStatisticsRepository.class);
+        messagingTemplate = EasyMock.mock(SimpMessagingTemplate.class);
+        accountRepository = EasyMock.mock(AccountRepository.class);
+        jobLeaseService = EasyMock.mock(JobLeaseService.class);
+        transactionStatisticsService = TransactionStatisticsService.builder()
+                .entityManager(entityManager)
+                .transactionRepository(transactionRepository)
+                .transactionStatisticsRepository(transactionStatisticsRepository)
+                .messagingTemplate(messagingTemplate)
+                .accountRepository(accountRepository)
+                .jobLeaseService(jobLeaseService)
+                .transactionManager(EasyMock.niceMock(PlatformTransactionManager.class))
+                .build();
+    }
+
+    private TransactionStatistics statisticsOf(Account account, double... amounts) {
+        StreamingStatistics model = new StreamingStatistics();
+        for (double amount : amounts) {
+            model.add(amount);
+        }
+        TransactionStatistics statistics = TransactionStatistics.builder().account(account).build();
+        model.writeTo(statistics);
+        return statistics;
+    }
+
+    @Test
+    public void scoreAndApplyPublishesAnomalyTest() {
+        Account account = Account.builder().id("accId").statisticsBackfilled(true).build();
+        TransactionStatistics statistics = statisticsOf(account, 90, 100, 110, 95, 105, 100, 98, 102, 97, 103);
+        Transaction transaction = Transaction.builder()
+                .id("txId")
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(1000.0)
+                .build();
+
+        expect(transactionStatisticsRepository.findByAccountForUpdate(account)).andReturn(Optional.of(statistics));
+        expect(transactionStatisticsRepository.save(statistics)).andReturn(statistics);
+        Capture<Object> payload = newCapture();
+        messagingTemplate.convertAndSend(eq("/topic/analytics/accId"), capture(payload));
+        replay(transactionStatisticsRepository, messagingTemplate);
+
+        transactionStatisticsService.scoreAndApply(transaction);
+
+        verify(transactionStatisticsRepository, messagingTemplate);
+        assertEquals("txId", ((Map<?, ?>) payload.getValue()).get("transactionId"));
+        assertEquals(11, statistics.getSampleCount());
+    }
+
+    @Test
+    public void scoreAndApplyWithoutHistoryTest() {
+        Account account = Account.builder().id("accId").build();
+        Transaction transaction = Transaction.builder()
+                .id("txId")
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(1000.0)
+                .build();
+
+        TransactionStatistics created = TransactionStatistics.builder().id("statsId").account(account).build();
+        expect(transactionStatisticsRepository.findByAccountForUpdate(account)).andReturn(Optional.empty());
+        expect(transactionStatisticsRepository.mergeEmpty(account, null)).andReturn(1);
+        expect(transactionStatisticsRepository.findByAccountForUpdate(account)).andReturn(Optional.of(created));
+        expect(transactionStatisticsRepository.save(created)).andReturn(created);
+        replay(transactionStatisticsRepository, messagingTemplate);
+
+        transactionStatisticsService.scoreAndApply(transaction);
+
+        verify(transactionStatisticsRepository, messagingTemplate);
+        assertEquals(1, created.getSampleCount());
+        assertEquals(1000.0, created.getMean());
+    }
+
+    @Test
+    public void scoreAndApplySkipsScoringBeforeBackfillTest() {
+        Account account = Account.builder().id("accId").build();
+        TransactionStatistics statistics = statisticsOf(account, 90, 100, 110, 95, 105, 100, 98, 102, 97, 103);
+        Transaction transaction = Transaction.builder()
+                .id("txId")
+                .account(account)
+                .type(TransactionTypes.EXPENSE)
+                .amount(1000.0)
+                .build();
+
+        expect(transactionStatisticsRepository.findByAccountForUpdate(account)).andReturn(Optional.of(statistics));
+        expect(transactionStatisticsRepository.save(statistics)).andReturn(statistics);
+        replay(transactionStatisticsRepository, messagingTemplate);
+
+        transactionStatisticsService.scoreAndApply(transaction);
+
+        verify(transactionStatisticsRepository, messagingTemplate);
+        assertEquals(11, statistics.getSampleCount());
+    }
+
+    @Test
+    public void backfillStatisticsRebuildsAccountsUnderLockTest() {
+        Account account = Account.builder().id("accId").build();
+        expect(jobLeaseService.getDefaultLease()).andReturn(Duration.ofMinutes(60));
+        expect(jobLeaseService.runOnce(eq("STATISTICS_BACKFILL"), anyString(), anyObject(), anyObject(Runnable.class)))
+                .andAnswer(() -> {
+                    ((Runnable) getCurrentArgument(3)).run();
+                    return true;
+                });
+        expect(accountRepository.findIdsWithoutStatisticsAfter(null, PageRequest.of(0, 100)))
+                .andReturn(List.of("accId"));
+        expect(accountRepository.lockForUpdate(List.of("accId"))).andReturn(List.of("accId"));
+        expect(entityManager.getReference(Account.class, "accId")).andReturn(account);
+        expect(transactionRepository.streamAnalyticsRowsByAccount(account)).andReturn(Stream.of(
+                new TransactionAnalyticsRowDto("txId", 100.0, null, null, null)));
+        transactionStatisticsRepository.deleteByAccountId("accId");
+        expect(transactionStatisticsRepository.saveAll(anyObject())).andAnswer(() -> {
+            List<TransactionStatistics> rows = getCurrentArgument(0);
+            assertEquals(1, rows.size());
+            assertEquals(1, rows.get(0).getSampleCount());
+            return rows;
+        });
+        expect(accountRepository.markStatisticsBackfilled("accId")).andReturn(1);
+        expect(accountRepository.findIdsWithoutStatisticsAfter("accId", PageRequest.of(0, 100)))
+                .andReturn(List.of());
+        replay(entityManager, transactionRepository, transactionStatisticsRepository, accountRepository,
+                jobLeaseService);
+
+        transactionStatisticsService.backfillStatistics();
+
+        verify(entityManager, transactionRepository, transactionStatisticsRepository, accountRepository,
+                jobLeaseService);
+    }
+}
@@ -0,0 +1,49 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.enums.AdviceMessages;
+import me.vse.fintrackserver.rest.responses.AdviceResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdviceInboxTest {
+
+    @Test
+    public void pollOldestFirstTest() {
+        AdviceInbox inbox = new AdviceInbox(10);
+        inbox.add(new AdviceResponse("user1", AdviceMessages.GOAL_ISNT_PRESENT, List.of()));
+        inbox.add(new AdviceResponse("user1", AdviceMessages.RESERVE_FUND_CREATION, List.of("100.0")));
+        inbox.add(new AdviceResponse("user2", AdviceMessages.GOAL_ISNT_PRESENT, List.of()));
+
+        assertEquals(3, inbox.size());
+        assertEquals(AdviceMessages.GOAL_ISNT_PRESENT, inbox.poll("user1").getMessage());
+        assertEquals(AdviceMessages.RESERVE_FUND_CREATION, inbox.poll("user1").getMessage());
+        assertNull(inbox.poll("user1"));
+        assertEquals("user2", inbox.poll("user2").getUserId());
+        assertEquals(0, inbox.size());
+    }
+
+    @Test
+    public void sameMessageIsReplacedTest() {
+        AdviceInbox inbox = new AdviceInbox(10);
+        inbox.add(new AdviceResponse("user1", AdviceMessages.RESERVE_FUND_CREATION, List.of("100.0")));
+        inbox.add(new AdviceResponse("user1", AdviceMessages.RESERVE_FUND_CREATION, List.of("200.0")));
+
+        assertEquals(1, inbox.size());
+        assertEquals(List.of("200.0"), inbox.poll("user1").getArguments());
+    }
+
+    @Test
+    public void boundedPerUserTest() {
+        AdviceInbox inbox = new AdviceInbox(2);
+        inbox.add(new AdviceResponse("user1", AdviceMessages.GOAL_ISNT_PRESENT, List.of()));
+        inbox.add(new AdviceResponse("user1", AdviceMessages.RESERVE_FUND_CREATION, List.of()));
+        inbox.add(new AdviceResponse("user1", AdviceMessages.EXPENSES_ARE_HIGHER_THAN_USUAL, List.of()));
+
+        assertEquals(2, inbox.size());
+        assertEquals(AdviceMessages.RESERVE_FUND_CREATION, inbox.poll("user1").getMessage());
+        assertEquals(AdviceMessages.EXPENSES_ARE_HIGHER_THAN_USUAL, inbox.poll("user1").getMessage());
+    }
+}
@@ -0,0 +1,31 @@
+package me.vse.fintrackserver.services.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GroupAnalyticsPartialTest {
+
+    @Test
+    public void mergeTest() {
+        GroupAnalyticsPartial first = new GroupAnalyticsPartial();
+        first.addCategory("Food", 0.0, 100.0);
+        first.addCategory(null, 500.0, 0.0);
+        first.addMonth(200.0, 50.0);
+
+        GroupAnalyticsPartial second = new GroupAnalyticsPartial();
+        second.addCategory("Food", 10.0, 40.0);
+        second.addMonth(10.0, 40.0);
+
+        GroupAnalyticsPartial merged = new GroupAnalyticsPartial().merge(first).merge(second);
+
+        assertEquals(510.0, merged.getTotalIncome());
+        assertEquals(140.0, merged.getTotalExpense());
+        assertEquals(210.0, merged.getMonthIncome());
+        assertEquals(90.0, merged.getMonthExpense());
+        assertEquals(Map.of(GroupAnalyticsPartial.UNCATEGORIZED, 500.0, "Food", 10.0), merged.getCategoryIncomes());
+        assertEquals(Map.of("Food", 140.0), merged.getCategoryExpenses());
+    }
+}
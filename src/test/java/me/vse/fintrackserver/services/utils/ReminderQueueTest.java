@@ -0,0 +1,40 @@
+package me.vse.fintrackserver.services.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReminderQueueTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 12, 0);
+
+    @Test
+    public void pollDueInOrderTest() {
+        ReminderQueue<String> queue = new ReminderQueue<>();
+        queue.schedule("order2", NOW.minusMinutes(1), "second");
+        queue.schedule("order1", NOW.minusHours(1), "first");
+        queue.schedule("order3", NOW.plusDays(1), "later");
+
+        assertEquals(List.of("first", "second"), queue.pollDue(NOW));
+        assertTrue(queue.pollDue(NOW).isEmpty());
+        assertEquals(1, queue.size());
+        assertEquals(List.of("later"), queue.pollDue(NOW.plusDays(1)));
+    }
+
+    @Test
+    public void rescheduleAndCancelTest() {
+        ReminderQueue<String> queue = new ReminderQueue<>();
+        queue.schedule("order1", NOW.minusMinutes(5), "old");
+        queue.schedule("order1", NOW.plusMinutes(5), "new");
+        queue.schedule("order2", NOW.minusMinutes(5), "cancelled");
+        queue.cancel("order2");
+
+        assertTrue(queue.pollDue(NOW).isEmpty());
+        assertEquals(List.of("new"), queue.pollDue(NOW.plusMinutes(5)));
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,54 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.enums.TransactionTypes;
+import me.vse.fintrackserver.model.dto.StatementLineDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementColumnTest {
+
+    @Test
+    public void pollTest() {
+        StatementColumn column = new StatementColumn(List.of(
+                new StatementLineDto("car", "Car", 100.0, TransactionTypes.INCOME),
+                new StatementLineDto("car", "Car", 30.0, TransactionTypes.EXPENSE),
+                new StatementLineDto("flat", "Flat", null, null),
+                new StatementLineDto("boat", "Boat", 50.0, TransactionTypes.EXPENSE)
+        ).iterator(), line -> TransactionTypes.INCOME.equals(line.getType()));
+
+        List<StatementColumn.Row> rows = new ArrayList<>();
+        for (StatementColumn.Row row = column.poll(); row != null; row = column.poll()) {
+            rows.add(row);
+        }
+
+        assertEquals(List.of(
+                StatementColumn.Kind.HEADER, StatementColumn.Kind.LABELS, StatementColumn.Kind.LINE,
+                StatementColumn.Kind.LINE, StatementColumn.Kind.TOTAL, StatementColumn.Kind.EMPTY,
+                StatementColumn.Kind.HEADER, StatementColumn.Kind.LABELS, StatementColumn.Kind.TOTAL,
+                StatementColumn.Kind.EMPTY,
+                StatementColumn.Kind.HEADER, StatementColumn.Kind.LABELS, StatementColumn.Kind.LINE,
+                StatementColumn.Kind.TOTAL
+        ), rows.stream().map(StatementColumn.Row::getKind).toList());
+
+        assertEquals(100.0, rows.get(2).getDebit());
+        assertEquals(30.0, rows.get(3).getCredit());
+        assertEquals(70.0, rows.get(4).getDebit());
+        assertNull(rows.get(4).getCredit());
+        assertEquals("Flat", rows.get(6).getName());
+        assertNull(rows.get(8).getDebit());
+        assertNull(rows.get(8).getCredit());
+        assertEquals(50.0, rows.get(13).getCredit());
+        assertNull(column.poll());
+    }
+
+    @Test
+    public void emptyTest() {
+        StatementColumn column = new StatementColumn(List.<StatementLineDto>of().iterator(), line -> true);
+
+        assertNull(column.poll());
+    }
+}
@@ -0,0 +1,72 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.model.TransactionStatistics;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamingStatisticsTest {
+
+    private static final double[] AMOUNTS = {120.0, 35.5, 980.0, 12.0, 450.0, 75.0, 3.2, 260.0};
+
+    @Test
+    public void addMatchesSummaryStatisticsTest() {
+        StreamingStatistics statistics = new StreamingStatistics();
+        SummaryStatistics expected = new SummaryStatistics();
+        for (double amount : AMOUNTS) {
+            statistics.add(amount);
+            expected.addValue(amount);
+        }
+
+        assertEquals(expected.getN(), statistics.getCount());
+        assertEquals(expected.getMean(), statistics.getMean(), 1e-9);
+        assertEquals(expected.getStandardDeviation(), statistics.getStandardDeviation(), 1e-9);
+    }
+
+    @Test
+    public void removeAndMergeTest() {
+        StreamingStatistics first = new StreamingStatistics();
+        StreamingStatistics second = new StreamingStatistics();
+        SummaryStatistics expected = new SummaryStatistics();
+        for (int i = 0; i < AMOUNTS.length; i++) {
+            (i % 2 == 0 ? first : second).add(AMOUNTS[i]);
+            if (i != 2) expected.addValue(AMOUNTS[i]);
+        }
+
+        first.merge(second);
+        first.remove(AMOUNTS[2]);
+
+        assertEquals(expected.getN(), first.getCount());
+        assertEquals(expected.getMean(), first.getMean(), 1e-9);
+        assertEquals(expected.getStandardDeviation(), first.getStandardDeviation(), 1e-9);
+    }
+
+    @Test
+    public void persistRoundTripTest() {
+        StreamingStatistics statistics = new StreamingStatistics();
+        for (double amount : AMOUNTS) {
+            statistics.add(amount);
+        }
+        TransactionStatistics entity = new TransactionStatistics();
+        statistics.writeTo(entity);
+
+        StreamingStatistics restored = StreamingStatistics.of(entity);
+
+        assertEquals(statistics.getCount(), restored.getCount());
+        assertEquals(statistics.getMean(), restored.getMean());
+        assertEquals(statistics.getStandardDeviation(), restored.getStandardDeviation());
+        assertEquals(statistics.getQuantile(0.5), restored.getQuantile(0.5));
+    }
+
+    @Test
+    public void quantileTest() {
+        StreamingStatistics statistics = new StreamingStatistics();
+        for (int i = 1; i <= 100; i++) {
+            statistics.add(i);
+        }
+
+        assertEquals(50.0, statistics.getQuantile(0.5), 50.0 * 0.2);
+        assertEquals(95.0, statistics.getQuantile(0.95), 95.0 * 0.2);
+    }
+}
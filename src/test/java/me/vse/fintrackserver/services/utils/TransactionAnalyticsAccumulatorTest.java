@@ -0,0 +1,57 @@
+package me.vse.fintrackserver.services.utils;
+
+import me.vse.fintrackserver.model.dto.TransactionAnalyticsRowDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionAnalyticsAccumulatorTest {
+
+    @Test
+    public void acceptTest() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        for (int i = 1; i <= 7; i++) {
+            accumulator.accept(new TransactionAnalyticsRowDto("tx" + i, i * 10.0, "catId", i % 2 == 0 ? "Food" : "Rent",
+                    LocalDateTime.of(2024, i <= 4 ? 1 : 2, i, 12, 0)));
+        }
+        accumulator.accept(new TransactionAnalyticsRowDto("tx8", 20.0, null, null, null));
+
+        assertEquals(8, accumulator.getCount());
+        assertEquals(300.0, accumulator.getTotalAmount());
+        assertEquals(37.5, accumulator.getMean());
+        assertEquals(Map.of("Food", 120.0, "Rent", 160.0), accumulator.getCategoryTotals());
+        assertEquals(Map.of("2024-01", 100.0, "2024-02", 180.0), accumulator.getMonthlyTotalsByKey());
+        assertEquals(140.0, accumulator.getAverageMonthlyTotal());
+        assertEquals(List.of("tx7", "tx6", "tx5", "tx4", "tx3"), accumulator.getRecentTransactionIds());
+    }
+
+    @Test
+    public void emptyTest() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+
+        assertTrue(accumulator.isEmpty());
+        assertEquals(0.0, accumulator.getMean());
+        assertEquals(0.0, accumulator.getStandardDeviation());
+        assertEquals(0.0, accumulator.getAverageMonthlyTotal());
+        assertEquals(Optional.empty(), accumulator.getMostFrequentDay());
+        assertTrue(accumulator.getRecentTransactionIds().isEmpty());
+    }
+
+    @Test
+    public void returnedMapsAreUnmodifiableTest() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        accumulator.accept(new TransactionAnalyticsRowDto("tx1", 10.0, "catId", "Food",
+                LocalDateTime.of(2024, 1, 1, 12, 0)));
+
+        assertThrows(UnsupportedOperationException.class, () -> accumulator.getCategoryTotals().put("Food", 0.0));
+        assertThrows(UnsupportedOperationException.class, () -> accumulator.getMonthlyTotals().clear());
+        assertThrows(UnsupportedOperationException.class, () -> accumulator.getMonthlyTotalsByKey().clear());
+        assertThrows(UnsupportedOperationException.class, () -> accumulator.getDayOfWeekCounts().clear());
+        assertEquals(Map.of("Food", 10.0), accumulator.getCategoryTotals());
+    }
+}